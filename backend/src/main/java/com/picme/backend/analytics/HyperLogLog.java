@@ -0,0 +1,154 @@
+package com.picme.backend.analytics;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ユニーク訪問者数を概算するHyperLogLogスケッチ
+ * レジスタ数2048（p=11、標準誤差 約2.3%）、64bitハッシュを使用する。
+ *
+ * 保存形式は先頭1バイトで区別する:
+ * 疎（0x01）: 0でないレジスタのみ (index 2バイト, 値 1バイト) の並び。訪問者が少ない日の大半はこちら
+ * 密（0x02）: 全レジスタ 2048バイト
+ */
+public final class HyperLogLog {
+
+    private static final int P = 11;
+    private static final int M = 1 << P;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / M);
+
+    private static final byte SPARSE = 0x01;
+    private static final byte DENSE = 0x02;
+
+    private final byte[] registers = new byte[M];
+
+    /**
+     * 保存済みのバイト列から復元（nullや空の場合は空のスケッチ）
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        HyperLogLog hll = new HyperLogLog();
+        if (bytes == null || bytes.length == 0) {
+            return hll;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte format = buffer.get();
+        if (format == DENSE && buffer.remaining() == M) {
+            buffer.get(hll.registers);
+        } else if (format == SPARSE) {
+            while (buffer.remaining() >= 3) {
+                int index = buffer.getShort() & 0xFFFF;
+                byte value = buffer.get();
+                if (index < M) {
+                    hll.registers[index] = value;
+                }
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown HyperLogLog format: " + format);
+        }
+        return hll;
+    }
+
+    /**
+     * 訪問者を追加（各要素を連結してハッシュ化する）
+     */
+    public void add(String... parts) {
+        addHash(hash(parts));
+    }
+
+    void addHash(long hash) {
+        int index = (int) (hash >>> (64 - P));
+        // 残りのビットの先頭0の数+1。全て0の場合に備えて番兵ビットを立てる
+        long rest = (hash << P) | (1L << (P - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * 別のスケッチを合成（和集合）
+     */
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < M; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * ユニーク数の推定値
+     */
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        double estimate = ALPHA * M * M / sum;
+        // 小さい値は線形カウントで補正
+        if (estimate <= 2.5 * M && zeros > 0) {
+            estimate = M * Math.log((double) M / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * 保存用のバイト列に変換（小さい方の形式を選ぶ）
+     */
+    public byte[] toBytes() {
+        int nonZero = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                nonZero++;
+            }
+        }
+
+        if (nonZero * 3 < M) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 + nonZero * 3);
+            buffer.put(SPARSE);
+            for (int i = 0; i < M; i++) {
+                if (registers[i] != 0) {
+                    buffer.putShort((short) i);
+                    buffer.put(registers[i]);
+                }
+            }
+            return buffer.array();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 + M);
+        buffer.put(DENSE);
+        buffer.put(registers);
+        return buffer.array();
+    }
+
+    /**
+     * FNV-1a 64bit に MurmurHash3 の最終ミックスを掛けて上位ビットを均一にする
+     */
+    private static long hash(String... parts) {
+        long h = 0xcbf29ce484222325L;
+        for (String part : parts) {
+            if (part != null) {
+                for (byte b : part.getBytes(StandardCharsets.UTF_8)) {
+                    h ^= (b & 0xFF);
+                    h *= 0x100000001b3L;
+                }
+            }
+            // 区切り（"ab"+"c" と "a"+"bc" を区別する）
+            h ^= 0xFF;
+            h *= 0x100000001b3L;
+        }
+
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93e63fe53b9L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
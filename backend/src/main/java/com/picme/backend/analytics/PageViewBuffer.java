@@ -0,0 +1,244 @@
+package com.picme.backend.analytics;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ページビューの書き込みバッファ
+ * リクエストスレッドは有界キューに積むだけで、専用スレッドが件数または時間で区切って
+ * まとめてINSERTする。1ビューごとのトランザクション・コミットを避け、
+ * アクセス集中時でもコネクションプールを占有しない。
+ *
+ * キューが満杯の場合は設定に応じて破棄（DROP）するか、一定時間まで待機（BLOCK）する。
+ * BLOCKでも待機時間を超えた分は破棄し、リクエストを無期限に止めることはない。
+ *
+ * 生データの書き込みと日次集計（PageViewRollup）の加算は同じトランザクションで行う。
+ */
+@Component
+@Slf4j
+public class PageViewBuffer {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO page_views (user_id, visitor_ip, referrer, user_agent, viewed_at) VALUES (?, ?, ?, ?, ?)";
+
+    // page_views のカラム長
+    private static final int MAX_IP_LENGTH = 45;
+    private static final int MAX_TEXT_LENGTH = 500;
+
+    public enum OverflowPolicy { DROP, BLOCK }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PageViewRollup rollup;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PageViewEvent> queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutMillis;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public PageViewBuffer(
+            JdbcTemplate jdbcTemplate,
+            PageViewRollup rollup,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.page-view-buffer.capacity:10000}") int capacity,
+            @Value("${app.page-view-buffer.batch-size:500}") int batchSize,
+            @Value("${app.page-view-buffer.flush-interval-ms:1000}") long flushIntervalMillis,
+            @Value("${app.page-view-buffer.overflow-policy:DROP}") OverflowPolicy overflowPolicy,
+            @Value("${app.page-view-buffer.block-timeout-ms:50}") long blockTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rollup = rollup;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMillis = blockTimeoutMillis;
+    }
+
+    /**
+     * スキーマ更新の完了後に、集計の初期作成を行ってから書き込みを開始する
+     * 開始までに受け付けたページビューはキューに溜まる
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        try {
+            rollup.backfill();
+        } catch (Exception e) {
+            log.error("Failed to backfill page view rollup: {}", e.getMessage());
+        }
+
+        running = true;
+        writerThread = new Thread(this::drainLoop, "page-view-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * シャットダウン時に残りを書き込む
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (writerThread != null) {
+            writerThread.interrupt();
+            writerThread.join(10_000);
+        }
+
+        List<PageViewEvent> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (int i = 0; i < remaining.size(); i += batchSize) {
+            write(remaining.subList(i, Math.min(i + batchSize, remaining.size())));
+        }
+        log.info("Page view buffer stopped: written={}, dropped={}, failed={}", written.get(), dropped.get(), failed.get());
+    }
+
+    /**
+     * ページビューをキューに積む（書き込みは非同期）
+     */
+    public void offer(PageViewEvent event) {
+        boolean accepted;
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            try {
+                accepted = queue.offer(event, blockTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                accepted = false;
+            }
+        } else {
+            accepted = queue.offer(event);
+        }
+
+        if (accepted) {
+            enqueued.incrementAndGet();
+        } else if (dropped.incrementAndGet() % 1000 == 1) {
+            log.warn("Page view buffer full, dropping views (dropped so far: {})", dropped.get());
+        }
+    }
+
+    /**
+     * バッファの統計を取得
+     */
+    public Stats stats() {
+        return new Stats(
+                queue.size(),
+                queue.size() + queue.remainingCapacity(),
+                overflowPolicy.name(),
+                enqueued.get(),
+                dropped.get(),
+                written.get(),
+                failed.get(),
+                batches.get());
+    }
+
+    private void drainLoop() {
+        List<PageViewEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                // 最初の1件を待ち、そこからflush間隔の間に集まった分をまとめて書く
+                PageViewEvent first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.currentTimeMillis() + flushIntervalMillis;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.currentTimeMillis();
+                    if (batch.size() >= batchSize || wait <= 0) {
+                        break;
+                    }
+                    PageViewEvent next = queue.poll(wait, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // stop() による停止。集めた分はここで書き、キューの残りは stop() 側で書き込む
+                write(batch);
+                break;
+            }
+
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<PageViewEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<PageViewEvent> events = batch.stream().map(PageViewBuffer::normalize).toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_SQL, events, events.size(), (ps, event) -> {
+                    ps.setLong(1, event.userId());
+                    ps.setString(2, event.visitorIp());
+                    ps.setString(3, event.referrer());
+                    ps.setString(4, event.userAgent());
+                    ps.setTimestamp(5, Timestamp.valueOf(event.viewedAt()));
+                });
+                rollup.apply(events);
+            });
+            written.addAndGet(batch.size());
+            batches.incrementAndGet();
+        } catch (Exception e) {
+            failed.addAndGet(batch.size());
+            log.error("Failed to write {} page views: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private static PageViewEvent normalize(PageViewEvent event) {
+        return new PageViewEvent(
+                event.userId(),
+                truncate(event.visitorIp(), MAX_IP_LENGTH),
+                truncate(event.referrer(), MAX_TEXT_LENGTH),
+                truncate(event.userAgent(), MAX_TEXT_LENGTH),
+                event.viewedAt());
+    }
+
+    private static String truncate(String value, int maxLength) {
+        if (value == null || value.length() <= maxLength) {
+            return value;
+        }
+        return value.substring(0, maxLength);
+    }
+
+    /**
+     * バッファ統計
+     */
+    public record Stats(
+            int queueDepth,
+            int capacity,
+            String overflowPolicy,
+            long enqueued,
+            long dropped,
+            long written,
+            long failed,
+            long batches
+    ) {}
+}
@@ -0,0 +1,15 @@
+package com.picme.backend.analytics;
+
+import java.time.LocalDateTime;
+
+/**
+ * 書き込み待ちのページビュー
+ * エンティティを保持せず、バッファ上ではユーザーIDのみを持つ
+ */
+public record PageViewEvent(
+        Long userId,
+        String visitorIp,
+        String referrer,
+        String userAgent,
+        LocalDateTime viewedAt
+) {}
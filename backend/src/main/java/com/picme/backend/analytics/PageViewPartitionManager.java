@@ -0,0 +1,251 @@
+package com.picme.backend.analytics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * page_views の月次レンジパーティション管理（PostgreSQLのみ）
+ * 起動時に通常テーブルであればパーティションテーブルへ移行し、以降は日次で
+ * 先の月のパーティション作成と、保持期間を過ぎた月のパーティション削除を行う。
+ * 古いデータは行単位のDELETEではなくパーティションごとDROPする。
+ *
+ * 解析画面は日次集計から応答するため、生データの削除は集計結果に影響しない。
+ * 主キーはパーティションキーを含める必要があるため (id, viewed_at) となる。
+ *
+ * DDLはすべてトランザクション単位のアドバイザリーロック内で行い、複数インスタンスの同時起動でも直列化する。
+ * 移行はテーブルの差し替えだけを短いトランザクションで行い、旧テーブルの行は一定件数ずつ移す。
+ * 途中で停止しても、次回起動時に残りの行から再開する。
+ */
+@Component
+@Slf4j
+public class PageViewPartitionManager {
+
+    private static final String TABLE = "page_views";
+    private static final String SEQUENCE = "page_views_part_id_seq";
+    private static final String INDEX = "idx_page_views_user_viewed_at";
+    private static final Pattern PARTITION_NAME = Pattern.compile("^page_views_p(\\d{4})(\\d{2})$");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String LEGACY_TABLE = "page_views_legacy";
+    // page_views のDDLを直列化するアドバイザリーロックのキー
+    private static final long LOCK_KEY = 0x7069636d65L;
+    // 旧テーブルから1トランザクションで移す行数
+    private static final int MIGRATION_BATCH_SIZE = 10_000;
+
+    private static final String MOVE_LEGACY_BATCH_SQL =
+            "WITH moved AS (" +
+            "  DELETE FROM " + LEGACY_TABLE + " WHERE id IN (" +
+            "    SELECT id FROM " + LEGACY_TABLE + " ORDER BY id LIMIT ?) " +
+            "  RETURNING id, user_id, visitor_ip, referrer, user_agent, viewed_at) " +
+            "INSERT INTO " + TABLE + " (id, user_id, visitor_ip, referrer, user_agent, viewed_at) " +
+            "SELECT id, user_id, visitor_ip, referrer, user_agent, COALESCE(viewed_at, CURRENT_TIMESTAMP) FROM moved";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    private volatile boolean enabled;
+
+    public PageViewPartitionManager(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.page-view-partitions.months-ahead:2}") int monthsAhead,
+            @Value("${app.page-view-partitions.retention-months:13}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    /**
+     * 起動時の移行とパーティション準備
+     * 書き込みバッファの開始より前に実行する
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void initialize() {
+        try {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+            if (!"PostgreSQL".equalsIgnoreCase(product)) {
+                log.info("Page view partitioning skipped: unsupported database {}", product);
+                return;
+            }
+
+            withLock(() -> {
+                String relkind = jdbcTemplate.query(
+                        "SELECT c.relkind FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace " +
+                        "WHERE c.relname = ? AND n.nspname = current_schema()",
+                        rs -> rs.next() ? rs.getString(1) : null, TABLE);
+                if ("r".equals(relkind)) {
+                    swapToPartitioned();
+                } else if (relkind == null) {
+                    createPartitionedTable();
+                }
+            });
+            moveLegacyRows();
+
+            enabled = true;
+            maintain();
+        } catch (Exception e) {
+            log.error("Failed to initialize page view partitions: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 先の月のパーティション作成と保持期間切れパーティションの削除
+     */
+    @Scheduled(cron = "${app.page-view-partitions.maintenance-cron:0 15 3 * * *}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            try {
+                withLock(() -> createPartition(month));
+            } catch (Exception e) {
+                // 既定パーティションに該当月の行がある場合など
+                log.error("Failed to create page view partition for {}: {}", month, e.getMessage());
+            }
+        }
+
+        if (retentionMonths > 0) {
+            dropExpiredPartitions(current.minusMonths(retentionMonths));
+        }
+    }
+
+    /**
+     * 通常テーブルを旧テーブルに改名し、パーティションテーブルに差し替える（行の移動は moveLegacyRows）
+     * 以降の書き込みは新しいテーブルに入り、IDは旧テーブルの最大値の続きから採番する。
+     */
+    private void swapToPartitioned() {
+        log.info("Migrating {} to monthly range partitions", TABLE);
+        LocalDate oldest = jdbcTemplate.queryForObject(
+                "SELECT CAST(MIN(viewed_at) AS date) FROM " + TABLE, LocalDate.class);
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + TABLE, Long.class);
+
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + LEGACY_TABLE);
+        // 旧テーブルの主キー・インデックス名を空けておく
+        jdbcTemplate.execute("ALTER INDEX IF EXISTS page_views_pkey RENAME TO page_views_legacy_pkey");
+        jdbcTemplate.execute("DROP INDEX IF EXISTS " + INDEX);
+        jdbcTemplate.execute("DROP INDEX IF EXISTS idx_page_views_viewed_at");
+
+        createPartitionedTable();
+
+        if (oldest != null) {
+            for (YearMonth month = YearMonth.from(oldest); month.isBefore(YearMonth.now()); month = month.plusMonths(1)) {
+                createPartition(month);
+            }
+        }
+        for (int i = 0; i <= monthsAhead; i++) {
+            createPartition(YearMonth.now().plusMonths(i));
+        }
+
+        jdbcTemplate.queryForObject(
+                "SELECT setval('" + SEQUENCE + "', GREATEST(?, 1))", Long.class, maxId);
+    }
+
+    /**
+     * 旧テーブルの行を一定件数ずつ移し、空になったら削除する
+     */
+    private void moveLegacyRows() {
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, LEGACY_TABLE);
+        if (!Boolean.TRUE.equals(exists)) {
+            return;
+        }
+
+        long total = 0;
+        int moved;
+        do {
+            Integer batch = withLock(() -> jdbcTemplate.update(MOVE_LEGACY_BATCH_SQL, MIGRATION_BATCH_SIZE));
+            moved = batch != null ? batch : 0;
+            total += moved;
+        } while (moved > 0);
+
+        withLock(() -> jdbcTemplate.execute("DROP TABLE IF EXISTS " + LEGACY_TABLE));
+        log.info("Migrated {} page views into partitioned table", total);
+    }
+
+    private void createPartitionedTable() {
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE);
+        jdbcTemplate.execute(
+                "CREATE TABLE " + TABLE + " (" +
+                "  id bigint NOT NULL DEFAULT nextval('" + SEQUENCE + "')," +
+                "  user_id bigint NOT NULL REFERENCES users (id)," +
+                "  visitor_ip varchar(45)," +
+                "  referrer varchar(500)," +
+                "  user_agent varchar(500)," +
+                "  viewed_at timestamp(6) NOT NULL," +
+                "  PRIMARY KEY (id, viewed_at)" +
+                ") PARTITION BY RANGE (viewed_at)");
+        jdbcTemplate.execute("ALTER SEQUENCE " + SEQUENCE + " OWNED BY " + TABLE + ".id");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + INDEX + " ON " + TABLE + " (user_id, viewed_at)");
+        // 範囲外（時刻ずれ等）の行の受け皿
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS page_views_default PARTITION OF " + TABLE + " DEFAULT");
+    }
+
+    private void createPartition(YearMonth month) {
+        String name = "page_views_p" + month.format(SUFFIX);
+        jdbcTemplate.execute(
+                "CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + TABLE +
+                " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+    }
+
+    private void dropExpiredPartitions(YearMonth cutoff) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = ?", String.class, TABLE);
+
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (month.isBefore(cutoff)) {
+                withLock(() -> jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition));
+                log.info("Dropped expired page view partition {}", partition);
+            }
+        }
+    }
+
+    private void withLock(Runnable action) {
+        withLock(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * アドバイザリーロックを取ったトランザクション内で実行（コミット・ロールバックで解放）
+     */
+    private <T> T withLock(Supplier<T> action) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", rs -> null, LOCK_KEY);
+            return action.get();
+        });
+    }
+}
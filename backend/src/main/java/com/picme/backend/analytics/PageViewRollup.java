@@ -0,0 +1,224 @@
+package com.picme.backend.analytics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * ページビュー日次集計の更新
+ * 閲覧数は書き込みバッファのバッチと同じトランザクションで加算する。
+ * ユニーク訪問者（IP + User-Agent）は日次行のHyperLogLogスケッチに合成し、推定値を unique_visitors に保持する。
+ * リファラーは日次行のSpace-Savingスケッチに合成し、上位のみを固定サイズで保持する。
+ */
+@Component
+@Slf4j
+public class PageViewRollup {
+
+    // 集計テーブルの初期作成を複数インスタンス間で直列化するアドバイザリーロックのキー
+    private static final long BACKFILL_LOCK_KEY = 0x7069636d72L;
+    // スケッチ補完で1トランザクションに処理する日次行の数
+    private static final int BACKFILL_CHUNK_DAYS = 200;
+    // 生データはカーソルで少しずつ読む（トランザクション内でのみ有効）
+    private static final int BACKFILL_FETCH_SIZE = 1000;
+
+    private static final String UPSERT_DAILY_SQL =
+            "INSERT INTO page_view_daily (user_id, view_date, views, unique_visitors) VALUES (?, ?, ?, 0) " +
+            "ON CONFLICT (user_id, view_date) DO UPDATE SET views = page_view_daily.views + EXCLUDED.views";
+
+    // 複数インスタンスから同じ行を更新しても合成結果を失わないよう行ロックを取る
+    private static final String SELECT_SKETCHES_SQL =
+            "SELECT user_id, visitor_sketch, referrer_sketch FROM page_view_daily " +
+            "WHERE view_date = ? AND user_id = ANY(?) FOR UPDATE";
+
+    private static final String UPDATE_SKETCH_SQL =
+            "UPDATE page_view_daily SET visitor_sketch = ?, unique_visitors = ?, referrer_sketch = ? " +
+            "WHERE user_id = ? AND view_date = ?";
+
+    private static final String BACKFILL_DAILY_SQL =
+            "INSERT INTO page_view_daily (user_id, view_date, views, unique_visitors) " +
+            "SELECT user_id, CAST(viewed_at AS date), COUNT(*), 0 FROM page_views " +
+            "GROUP BY user_id, CAST(viewed_at AS date) " +
+            "ON CONFLICT (user_id, view_date) DO NOTHING";
+
+    // 補完対象の日次行をキー順に取り出し、合成中の書き込みと競合しないよう行ロックを取る
+    private static final String SELECT_MISSING_SKETCHES_SQL =
+            "SELECT user_id, view_date FROM page_view_daily " +
+            "WHERE (visitor_sketch IS NULL OR referrer_sketch IS NULL) AND (user_id, view_date) > (?, ?) " +
+            "ORDER BY user_id, view_date LIMIT ? FOR UPDATE";
+
+    // (user_id, viewed_at) のインデックスで対象日の範囲だけを読む
+    private static final String BACKFILL_SKETCHES_SQL =
+            "SELECT pv.user_id, CAST(pv.viewed_at AS date), pv.visitor_ip, pv.user_agent, pv.referrer " +
+            "FROM unnest(CAST(? AS bigint[]), CAST(? AS date[])) AS k(user_id, view_date) " +
+            "JOIN page_views pv ON pv.user_id = k.user_id " +
+            "  AND pv.viewed_at >= k.view_date AND pv.viewed_at < k.view_date + 1";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public PageViewRollup(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * バッチ分の閲覧数・訪問者・リファラーを日次集計に反映（呼び出し側のトランザクション内で実行）
+     */
+    public void apply(List<PageViewEvent> batch) {
+        Map<DayKey, Long> daily = new HashMap<>();
+        Map<DayKey, Sketches> sketches = new HashMap<>();
+        for (PageViewEvent event : batch) {
+            DayKey key = new DayKey(event.userId(), event.viewedAt().toLocalDate());
+            daily.merge(key, 1L, Long::sum);
+            sketches.computeIfAbsent(key, k -> new Sketches()).add(event);
+        }
+
+        List<Object[]> dailyArgs = new ArrayList<>(daily.size());
+        daily.forEach((key, views) -> dailyArgs.add(new Object[]{key.userId(), Date.valueOf(key.day()), views}));
+        jdbcTemplate.batchUpdate(UPSERT_DAILY_SQL, dailyArgs);
+
+        mergeSketches(sketches);
+    }
+
+    /**
+     * 集計テーブルが空の場合に既存の生データから集計を作成し、スケッチ未作成の日次行を補完する
+     * 書き込みバッファの開始前に呼び出すこと（開始後に呼ぶと二重計上になる）
+     * 空の判定と作成はロックを取った1トランザクションで行い、起動が重なった他のインスタンスは
+     * 作成のコミット後に空でないと判定して作成を行わない。
+     */
+    public void backfill() {
+        Integer days = transactionTemplate.execute(status -> {
+            jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", rs -> null, BACKFILL_LOCK_KEY);
+            Boolean hasRollup = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM page_view_daily)", Boolean.class);
+            return Boolean.TRUE.equals(hasRollup) ? 0 : jdbcTemplate.update(BACKFILL_DAILY_SQL);
+        });
+        if (days != null && days > 0) {
+            log.info("Backfilled page view rollup: {} daily rows", days);
+        }
+
+        backfillSketches();
+    }
+
+    /**
+     * スケッチ未作成の日次行を一定件数ずつ生データから作成する
+     * 1チャンクごとにコミットし、メモリに保持するのはそのチャンク分のスケッチのみとする。
+     */
+    private void backfillSketches() {
+        DayKey cursor = new DayKey(0L, LocalDate.of(1900, 1, 1));
+        int total = 0;
+        while (true) {
+            DayKey from = cursor;
+            ChunkResult chunk = transactionTemplate.execute(status -> backfillSketchChunk(from));
+            if (chunk == null || chunk.last() == null) {
+                break;
+            }
+            total += chunk.updated();
+            cursor = chunk.last();
+        }
+
+        if (total > 0) {
+            log.info("Backfilled visitor/referrer sketches for {} daily rows", total);
+        }
+    }
+
+    private ChunkResult backfillSketchChunk(DayKey after) {
+        List<DayKey> keys = jdbcTemplate.query(SELECT_MISSING_SKETCHES_SQL,
+                (rs, rowNum) -> new DayKey(rs.getLong(1), rs.getDate(2).toLocalDate()),
+                after.userId(), Date.valueOf(after.day()), BACKFILL_CHUNK_DAYS);
+        if (keys.isEmpty()) {
+            return new ChunkResult(null, 0);
+        }
+
+        Map<DayKey, Sketches> sketches = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(BACKFILL_SKETCHES_SQL);
+            ps.setFetchSize(BACKFILL_FETCH_SIZE);
+            ps.setArray(1, con.createArrayOf("bigint", keys.stream().map(DayKey::userId).toArray()));
+            ps.setArray(2, con.createArrayOf("date", keys.stream().map(key -> Date.valueOf(key.day())).toArray()));
+            return ps;
+        }, rs -> {
+            DayKey key = new DayKey(rs.getLong(1), rs.getDate(2).toLocalDate());
+            sketches.computeIfAbsent(key, k -> new Sketches()).add(rs.getString(3), rs.getString(4), rs.getString(5));
+        });
+
+        List<Object[]> updates = new ArrayList<>(sketches.size());
+        sketches.forEach((key, sketch) -> updates.add(sketchUpdateArgs(key, sketch)));
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SKETCH_SQL, updates);
+        }
+        return new ChunkResult(keys.get(keys.size() - 1), updates.size());
+    }
+
+    private void mergeSketches(Map<DayKey, Sketches> sketches) {
+        // 通常バッチは1日分（日付をまたぐ時のみ2日分）なので日ごとに1回読む
+        Map<LocalDate, List<Long>> usersByDay = new HashMap<>();
+        sketches.keySet().forEach(key -> usersByDay.computeIfAbsent(key.day(), d -> new ArrayList<>()).add(key.userId()));
+
+        List<Object[]> updates = new ArrayList<>(sketches.size());
+        usersByDay.forEach((day, userIds) -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_SKETCHES_SQL);
+            ps.setDate(1, Date.valueOf(day));
+            ps.setArray(2, con.createArrayOf("bigint", userIds.toArray()));
+            return ps;
+        }, rs -> {
+            DayKey key = new DayKey(rs.getLong(1), day);
+            Sketches merged = new Sketches(
+                    HyperLogLog.fromBytes(rs.getBytes(2)), SpaceSaving.fromBytes(rs.getBytes(3)));
+            merged.merge(Objects.requireNonNull(sketches.get(key)));
+            updates.add(sketchUpdateArgs(key, merged));
+        }));
+
+        jdbcTemplate.batchUpdate(UPDATE_SKETCH_SQL, updates);
+    }
+
+    private static Object[] sketchUpdateArgs(DayKey key, Sketches sketches) {
+        return new Object[]{
+                sketches.visitors().toBytes(),
+                sketches.visitors().estimate(),
+                sketches.referrers().toBytes(),
+                key.userId(),
+                Date.valueOf(key.day())};
+    }
+
+    private record DayKey(Long userId, LocalDate day) {}
+
+    private record ChunkResult(DayKey last, int updated) {}
+
+    /**
+     * 日次行1件分のスケッチ
+     */
+    private record Sketches(HyperLogLog visitors, SpaceSaving referrers) {
+
+        Sketches() {
+            this(new HyperLogLog(), new SpaceSaving());
+        }
+
+        void add(PageViewEvent event) {
+            add(event.visitorIp(), event.userAgent(), event.referrer());
+        }
+
+        void add(String visitorIp, String userAgent, String referrer) {
+            visitors.add(visitorIp, userAgent);
+            if (referrer != null && !referrer.isEmpty()) {
+                referrers.add(referrer);
+            }
+        }
+
+        void merge(Sketches other) {
+            visitors.merge(other.visitors());
+            referrers.merge(other.referrers());
+        }
+    }
+}
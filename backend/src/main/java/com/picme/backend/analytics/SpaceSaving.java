@@ -0,0 +1,176 @@
+package com.picme.backend.analytics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 上位K件（ヘビーヒッター）を保持するSpace-Savingスケッチ
+ * カウンター数を固定し、満杯時は最小カウンターを置き換える。
+ * 各項目のカウントは真の値以上（過大評価は最大でも error まで）となる。
+ */
+public final class SpaceSaving {
+
+    public static final int DEFAULT_CAPACITY = 32;
+
+    private static final byte FORMAT = 0x01;
+
+    private final int capacity;
+    private final Map<String, Counter> counters = new HashMap<>();
+
+    public SpaceSaving() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * 保存済みのバイト列から復元（nullや空の場合は空のスケッチ）
+     */
+    public static SpaceSaving fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return new SpaceSaving();
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte format = in.readByte();
+            if (format != FORMAT) {
+                throw new IllegalArgumentException("Unknown SpaceSaving format: " + format);
+            }
+            SpaceSaving sketch = new SpaceSaving(in.readUnsignedShort());
+            int size = in.readUnsignedShort();
+            for (int i = 0; i < size; i++) {
+                String item = in.readUTF();
+                sketch.counters.put(item, new Counter(in.readLong(), in.readLong()));
+            }
+            return sketch;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 項目を1件追加
+     */
+    public void add(String item) {
+        add(item, 1);
+    }
+
+    /**
+     * 項目をcount件追加
+     */
+    public void add(String item, long count) {
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            counter.count += count;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(item, new Counter(count, 0));
+            return;
+        }
+
+        // 最小カウンターを置き換え、その値を誤差として引き継ぐ
+        Map.Entry<String, Counter> min = minEntry();
+        counters.remove(min.getKey());
+        long minCount = min.getValue().count;
+        counters.put(item, new Counter(minCount + count, minCount));
+    }
+
+    /**
+     * 別のスケッチを合成
+     * 片方にしかない項目は、もう片方が満杯ならその最小値まで含まれていた可能性があるとして上限側に寄せる
+     */
+    public void merge(SpaceSaving other) {
+        long thisFloor = isFull() ? minEntry().getValue().count : 0;
+        long otherFloor = other.isFull() ? other.minEntry().getValue().count : 0;
+
+        Set<String> items = new HashSet<>(counters.keySet());
+        items.addAll(other.counters.keySet());
+
+        Map<String, Counter> merged = new HashMap<>();
+        for (String item : items) {
+            Counter a = counters.get(item);
+            Counter b = other.counters.get(item);
+            long count = (a != null ? a.count : thisFloor) + (b != null ? b.count : otherFloor);
+            long error = (a != null ? a.error : thisFloor) + (b != null ? b.error : otherFloor);
+            merged.put(item, new Counter(count, error));
+        }
+
+        counters.clear();
+        merged.entrySet().stream()
+                .sorted(Map.Entry.<String, Counter>comparingByValue(Comparator.comparingLong(c -> c.count)).reversed())
+                .limit(capacity)
+                .forEach(e -> counters.put(e.getKey(), e.getValue()));
+    }
+
+    /**
+     * カウントの多い順に上位n件を取得
+     */
+    public List<Entry> top(int n) {
+        List<Entry> entries = new ArrayList<>(counters.size());
+        counters.forEach((item, counter) -> entries.add(new Entry(item, counter.count, counter.error)));
+        entries.sort(Comparator.comparingLong(Entry::count).reversed());
+        return entries.size() > n ? entries.subList(0, n) : entries;
+    }
+
+    /**
+     * 保存用のバイト列に変換
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            out.writeShort(capacity);
+            out.writeShort(counters.size());
+            for (Map.Entry<String, Counter> e : counters.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeLong(e.getValue().count);
+                out.writeLong(e.getValue().error);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private boolean isFull() {
+        return counters.size() >= capacity;
+    }
+
+    private Map.Entry<String, Counter> minEntry() {
+        Map.Entry<String, Counter> min = null;
+        for (Map.Entry<String, Counter> e : counters.entrySet()) {
+            if (min == null || e.getValue().count < min.getValue().count) {
+                min = e;
+            }
+        }
+        return min;
+    }
+
+    private static final class Counter {
+        private long count;
+        private final long error;
+
+        private Counter(long count, long error) {
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    /**
+     * 上位項目（countは過大評価の上限側、errorはその最大誤差）
+     */
+    public record Entry(String item, long count, long error) {}
+}
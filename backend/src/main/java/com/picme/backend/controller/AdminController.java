@@ -1,9 +1,18 @@
 package com.picme.backend.controller;
 
+import com.picme.backend.analytics.PageViewBuffer;
 import com.picme.backend.dto.request.AdminCreateUserRequest;
 import com.picme.backend.dto.request.InquiryStatusUpdateRequest;
 import com.picme.backend.dto.response.*;
+import com.picme.backend.metrics.RequestMetrics;
+import com.picme.backend.security.PooledPasswordEncoder;
 import com.picme.backend.service.AdminService;
+import com.picme.backend.service.ArtworkUploadService;
+import com.picme.backend.service.EmailService;
+import com.picme.backend.service.ImageVariantService;
+import com.picme.backend.service.StripeEventInboxService;
+import com.picme.backend.service.SubscriptionReconcileService;
+import com.picme.backend.util.LruTtlCache;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -14,6 +23,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * 管理者機能コントローラー
  */
@@ -156,4 +168,94 @@ public class AdminController {
         SystemMetricsResponse metrics = adminService.getSystemMetrics();
         return ResponseEntity.ok(ApiResponse.success(metrics));
     }
+
+    /**
+     * キャッシュ統計取得（ヒット率・追い出し数）
+     */
+    @GetMapping("/system/cache")
+    public ResponseEntity<ApiResponse<Map<String, LruTtlCache.Stats>>> getCacheStats() {
+        Map<String, LruTtlCache.Stats> stats = adminService.getCacheStats();
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+
+    /**
+     * ページビュー書き込みバッファの統計取得
+     */
+    @GetMapping("/system/page-views")
+    public ResponseEntity<ApiResponse<PageViewBuffer.Stats>> getPageViewBufferStats() {
+        PageViewBuffer.Stats stats = adminService.getPageViewBufferStats();
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+
+    /**
+     * 作品アップロードワーカーの統計取得
+     */
+    @GetMapping("/system/uploads")
+    public ResponseEntity<ApiResponse<ArtworkUploadService.Stats>> getArtworkUploadStats() {
+        ArtworkUploadService.Stats stats = adminService.getArtworkUploadStats();
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+
+    /**
+     * 画像バリアント生成の統計取得
+     */
+    @GetMapping("/system/image-variants")
+    public ResponseEntity<ApiResponse<ImageVariantService.Stats>> getImageVariantStats() {
+        ImageVariantService.Stats stats = adminService.getImageVariantStats();
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+
+    /**
+     * ルートごとの応答時間取得（p50/p95/p99/最大、p95の大きい順）
+     */
+    @GetMapping("/system/routes")
+    public ResponseEntity<ApiResponse<List<RequestMetrics.RouteStats>>> getRouteStats() {
+        List<RequestMetrics.RouteStats> stats = adminService.getRouteStats();
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+
+    /**
+     * Stripeイベント受信箱の統計取得（未処理件数・最古の待ち時間・再試行/失敗数）
+     */
+    @GetMapping("/system/stripe-events")
+    public ResponseEntity<ApiResponse<StripeEventInboxService.Stats>> getStripeEventStats() {
+        StripeEventInboxService.Stats stats = adminService.getStripeEventStats();
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+
+    /**
+     * メール送信待ちの統計取得（未送信件数・最古の待ち時間・再試行/失敗数）
+     */
+    @GetMapping("/system/email-outbox")
+    public ResponseEntity<ApiResponse<EmailService.Stats>> getEmailOutboxStats() {
+        EmailService.Stats stats = adminService.getEmailOutboxStats();
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+
+    /**
+     * パスワードハッシュ処理の統計取得（コスト・待ち行列・待ち時間とハッシュ時間の分布）
+     */
+    @GetMapping("/system/password-hashing")
+    public ResponseEntity<ApiResponse<PooledPasswordEncoder.Stats>> getPasswordHashingStats() {
+        PooledPasswordEncoder.Stats stats = adminService.getPasswordHashingStats();
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+
+    /**
+     * サブスクリプション照合の統計取得（再開位置・補正件数・レート制限回数）
+     */
+    @GetMapping("/system/subscription-reconcile")
+    public ResponseEntity<ApiResponse<SubscriptionReconcileService.Stats>> getSubscriptionReconcileStats() {
+        SubscriptionReconcileService.Stats stats = adminService.getSubscriptionReconcileStats();
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+
+    /**
+     * サブスクリプション照合を開始（前回の続きから）
+     */
+    @PostMapping("/system/subscription-reconcile/run")
+    public ResponseEntity<ApiResponse<Void>> startSubscriptionReconcile() {
+        adminService.startSubscriptionReconcile();
+        return ResponseEntity.ok(ApiResponse.success("照合を開始しました"));
+    }
 }
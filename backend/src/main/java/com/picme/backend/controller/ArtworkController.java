@@ -4,6 +4,7 @@ import com.picme.backend.dto.request.ArtworkReorderRequest;
 import com.picme.backend.dto.request.ArtworkRequest;
 import com.picme.backend.dto.response.ApiResponse;
 import com.picme.backend.dto.response.ArtworkResponse;
+import com.picme.backend.dto.response.ArtworkStatusResponse;
 import com.picme.backend.service.ArtworkService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -76,8 +77,9 @@ public class ArtworkController {
     }
 
     /**
-     * 画像ファイルをアップロードして作品を作成
+     * 画像ファイルを受け付けて作品を作成
      * POST /api/artworks/upload
+     * 画像は非同期でアップロードするため 202 を返す。処理状態は /api/artworks/:id/status で確認する
      */
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<ApiResponse<ArtworkResponse>> uploadArtwork(
@@ -93,8 +95,21 @@ public class ArtworkController {
         ArtworkResponse artwork = artworkService.createArtworkWithUpload(
                 userDetails.getUsername(), file, title, description, categoryId, tagIds);
         return new ResponseEntity<>(
-                ApiResponse.success("作品をアップロードしました", artwork),
-                HttpStatus.CREATED);
+                ApiResponse.success("作品を受け付けました。画像を処理しています", artwork),
+                HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * 作品画像の処理状態を取得
+     * GET /api/artworks/:id/status
+     */
+    @GetMapping("/{id}/status")
+    public ResponseEntity<ApiResponse<ArtworkStatusResponse>> getArtworkStatus(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @PathVariable Long id) {
+
+        ArtworkStatusResponse status = artworkService.getArtworkStatus(userDetails.getUsername(), id);
+        return ResponseEntity.ok(ApiResponse.success(status));
     }
 
     /**
@@ -12,23 +12,30 @@ import com.picme.backend.dto.response.SocialLinkResponse;
 import com.picme.backend.dto.response.TagResponse;
 import com.picme.backend.exception.ApiException;
 import com.picme.backend.model.Inquiry;
-import com.picme.backend.model.PlanType;
 import com.picme.backend.model.User;
 import com.picme.backend.repository.InquiryRepository;
 import com.picme.backend.repository.UserRepository;
 import com.picme.backend.service.*;
+import com.picme.backend.service.PublicPageService.PageVersion;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  * 公開ページコントローラー
  * 認証不要で公開プロフィール情報を取得
+ *
+ * 公開ページ系のGETはユーザーの内容バージョンからETag / Last-Modifiedを返し、
+ * 変更がなければページ本体を読み込まずに304を返す。
  */
 @RestController
 @RequestMapping("/api/users")
@@ -42,11 +49,13 @@ public class PublicController {
     private final PostService postService;
     private final CategoryService categoryService;
     private final TagService tagService;
+    private final PublicPageService publicPageService;
     private final UserRepository userRepository;
     private final InquiryRepository inquiryRepository;
     private final EmailService emailService;
 
     private final AnalyticsService analyticsService;
+    private final EntitlementService entitlementService;
 
     /**
      * サイトマップ用: 全アクティブユーザー一覧
@@ -73,35 +82,24 @@ public class PublicController {
             @PathVariable String username,
             @RequestHeader(value = "X-Forwarded-For", required = false) String forwardedFor,
             @RequestHeader(value = "Referer", required = false) String referer,
-            @RequestHeader(value = "User-Agent", required = false) String userAgent) {
+            @RequestHeader(value = "User-Agent", required = false) String userAgent,
+            WebRequest webRequest) {
 
         log.info("Get public page request for: {}", username);
 
-        // ページビュー記録（非同期）
-        userRepository.findByUsername(username).ifPresent(user ->
-            analyticsService.recordPageView(user, forwardedFor, referer, userAgent)
-        );
+        Optional<PageVersion> version = publicPageService.getPageVersion(username);
+        if (version.isPresent() && isNotModified(webRequest, version.get())) {
+            // 304でもページビューは記録する
+            recordPageView(version.get().userId(), forwardedFor, referer, userAgent);
+            return null;
+        }
 
-        // 各サービスから公開データを取得
-        ProfileResponse profile = profileService.getPublicProfile(username);
-        List<ArtworkResponse> artworks = artworkService.getPublicArtworks(username);
-        List<SocialLinkResponse> socialLinks = socialLinkService.getPublicSocialLinks(username);
-        List<PostResponse> posts = postService.getPublicPosts(username);
-        List<CategoryResponse> categories = categoryService.getPublicCategories(username);
-        List<TagResponse> tags = tagService.getPublicTags(username);
-
-        PublicPageResponse response = PublicPageResponse.builder()
-                .profile(profile)
-                .artworks(artworks)
-                .socialLinks(socialLinks)
-                .posts(posts)
-                .categories(categories)
-                .tags(tags)
-                .contactFormEnabled(profile.getContactFormEnabled())
-                .customCss(profile.getCustomCss())
-                .build();
+        PublicPageResponse response = publicPageService.getPublicPage(username);
 
-        return ResponseEntity.ok(ApiResponse.success(response));
+        // ページビュー記録（非同期）
+        recordPageView(response.getProfile().getUserId(), forwardedFor, referer, userAgent);
+
+        return versioned(version, response);
     }
 
     /**
@@ -110,12 +108,12 @@ public class PublicController {
      */
     @GetMapping("/{username}/profile")
     public ResponseEntity<ApiResponse<ProfileResponse>> getPublicProfile(
-            @PathVariable String username) {
+            @PathVariable String username,
+            WebRequest webRequest) {
 
         log.info("Get public profile request for: {}", username);
 
-        ProfileResponse profile = profileService.getPublicProfile(username);
-        return ResponseEntity.ok(ApiResponse.success(profile));
+        return conditional(webRequest, username, () -> profileService.getPublicProfile(username));
     }
 
     /**
@@ -124,12 +122,12 @@ public class PublicController {
      */
     @GetMapping("/{username}/artworks")
     public ResponseEntity<ApiResponse<List<ArtworkResponse>>> getPublicArtworks(
-            @PathVariable String username) {
+            @PathVariable String username,
+            WebRequest webRequest) {
 
         log.info("Get public artworks request for: {}", username);
 
-        List<ArtworkResponse> artworks = artworkService.getPublicArtworks(username);
-        return ResponseEntity.ok(ApiResponse.success(artworks));
+        return conditional(webRequest, username, () -> artworkService.getPublicArtworks(username));
     }
 
     /**
@@ -138,12 +136,12 @@ public class PublicController {
      */
     @GetMapping("/{username}/social-links")
     public ResponseEntity<ApiResponse<List<SocialLinkResponse>>> getPublicSocialLinks(
-            @PathVariable String username) {
+            @PathVariable String username,
+            WebRequest webRequest) {
 
         log.info("Get public social links request for: {}", username);
 
-        List<SocialLinkResponse> socialLinks = socialLinkService.getPublicSocialLinks(username);
-        return ResponseEntity.ok(ApiResponse.success(socialLinks));
+        return conditional(webRequest, username, () -> socialLinkService.getPublicSocialLinks(username));
     }
 
     /**
@@ -152,12 +150,12 @@ public class PublicController {
      */
     @GetMapping("/{username}/posts")
     public ResponseEntity<ApiResponse<List<PostResponse>>> getPublicPosts(
-            @PathVariable String username) {
+            @PathVariable String username,
+            WebRequest webRequest) {
 
         log.info("Get public posts request for: {}", username);
 
-        List<PostResponse> posts = postService.getPublicPosts(username);
-        return ResponseEntity.ok(ApiResponse.success(posts));
+        return conditional(webRequest, username, () -> postService.getPublicPosts(username));
     }
 
     /**
@@ -181,12 +179,12 @@ public class PublicController {
      */
     @GetMapping("/{username}/categories")
     public ResponseEntity<ApiResponse<List<CategoryResponse>>> getPublicCategories(
-            @PathVariable String username) {
+            @PathVariable String username,
+            WebRequest webRequest) {
 
         log.info("Get public categories request for: {}", username);
 
-        List<CategoryResponse> categories = categoryService.getPublicCategories(username);
-        return ResponseEntity.ok(ApiResponse.success(categories));
+        return conditional(webRequest, username, () -> categoryService.getPublicCategories(username));
     }
 
     /**
@@ -195,12 +193,12 @@ public class PublicController {
      */
     @GetMapping("/{username}/tags")
     public ResponseEntity<ApiResponse<List<TagResponse>>> getPublicTags(
-            @PathVariable String username) {
+            @PathVariable String username,
+            WebRequest webRequest) {
 
         log.info("Get public tags request for: {}", username);
 
-        List<TagResponse> tags = tagService.getPublicTags(username);
-        return ResponseEntity.ok(ApiResponse.success(tags));
+        return conditional(webRequest, username, () -> tagService.getPublicTags(username));
     }
 
     /**
@@ -217,8 +215,8 @@ public class PublicController {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(ApiException::userNotFound);
 
-        // PRO/STUDIO のみ問い合わせフォーム有効
-        if (user.getPlanType() != PlanType.PRO && user.getPlanType() != PlanType.STUDIO) {
+        // 問い合わせフォームは有効なプランで利用可能な場合のみ受け付ける
+        if (!entitlementService.forUser(user.getId()).inquiries()) {
             throw ApiException.badRequest("このユーザーは問い合わせフォームを利用できません");
         }
 
@@ -243,4 +241,41 @@ public class PublicController {
 
         return new ResponseEntity<>(ApiResponse.success("問い合わせを送信しました"), HttpStatus.CREATED);
     }
+
+    /**
+     * 内容バージョンで条件付きGETを処理し、未変更なら読み込みを行わない
+     */
+    private <T> ResponseEntity<ApiResponse<T>> conditional(WebRequest webRequest, String username, Supplier<T> loader) {
+        Optional<PageVersion> version = publicPageService.getPageVersion(username);
+        if (version.isPresent() && isNotModified(webRequest, version.get())) {
+            return null;
+        }
+        return versioned(version, loader.get());
+    }
+
+    /**
+     * If-None-Match / If-Modified-Since を判定（一致時は304とヘッダーが設定される）
+     */
+    private boolean isNotModified(WebRequest webRequest, PageVersion version) {
+        return webRequest.checkNotModified(version.etag(), version.lastModifiedMillis());
+    }
+
+    /**
+     * バージョンヘッダー付きのレスポンスを生成（常に再検証させる）
+     */
+    private <T> ResponseEntity<ApiResponse<T>> versioned(Optional<PageVersion> version, T body) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().cacheControl(CacheControl.noCache());
+        version.ifPresent(v -> {
+            builder.eTag(v.etag());
+            if (v.lastModifiedMillis() > 0) {
+                builder.lastModified(v.lastModifiedMillis());
+            }
+        });
+        return builder.body(ApiResponse.success(body));
+    }
+
+    private void recordPageView(Long userId, String forwardedFor, String referer, String userAgent) {
+        User user = userRepository.getReferenceById(userId);
+        analyticsService.recordPageView(user, forwardedFor, referer, userAgent);
+    }
 }
@@ -3,6 +3,7 @@ package com.picme.backend.controller;
 import com.picme.backend.dto.request.CheckoutRequest;
 import com.picme.backend.dto.response.CheckoutResponse;
 import com.picme.backend.dto.response.SubscriptionResponse;
+import com.picme.backend.service.StripeEventInboxService;
 import com.picme.backend.service.SubscriptionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -22,6 +23,7 @@ import org.springframework.web.bind.annotation.*;
 public class SubscriptionController {
 
     private final SubscriptionService subscriptionService;
+    private final StripeEventInboxService stripeEventInboxService;
 
     /**
      * 現在のサブスクリプション状態を取得
@@ -67,13 +69,14 @@ public class SubscriptionController {
     /**
      * Stripe Webhookエンドポイント
      * 認証不要（Stripe署名で検証）
+     * 受信箱に保存した時点で応答し、反映は非同期で行う（再送されたイベントは無視）
      */
     @PostMapping("/webhook")
     public ResponseEntity<String> handleWebhook(
             @RequestBody String payload,
             @RequestHeader("Stripe-Signature") String signature) {
         log.debug("Received Stripe webhook");
-        subscriptionService.handleWebhookEvent(payload, signature);
+        stripeEventInboxService.receive(payload, signature);
         return ResponseEntity.ok("OK");
     }
 }
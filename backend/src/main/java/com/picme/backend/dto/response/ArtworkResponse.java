@@ -1,12 +1,17 @@
 package com.picme.backend.dto.response;
 
+import com.picme.backend.model.Artwork;
+import com.picme.backend.model.ArtworkStatus;
+import com.picme.backend.model.ImageVariant;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * 作品レスポンスDTO
@@ -22,11 +27,56 @@ public class ArtworkResponse {
     private String description;
     private String imageUrl;
     private String thumbnailUrl;
+    private List<ImageVariant> variants;
+    private String srcset;
     private String category;
     private Long categoryId;
     private List<Long> tagIds;
     private Integer displayOrder;
     private Boolean visible;
+    private ArtworkStatus status;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+
+    /**
+     * エンティティからレスポンスDTOを生成
+     */
+    public static ArtworkResponse fromEntity(Artwork artwork) {
+        Long categoryId = artwork.getCategoryEntity() != null ? artwork.getCategoryEntity().getId() : null;
+        List<Long> tagIds = artwork.getTags() != null
+                ? artwork.getTags().stream().map(tag -> tag.getId()).toList()
+                : Collections.emptyList();
+
+        List<ImageVariant> variants = artwork.getVariants() != null ? artwork.getVariants() : Collections.emptyList();
+
+        return ArtworkResponse.builder()
+                .id(artwork.getId())
+                .title(artwork.getTitle())
+                .description(artwork.getDescription())
+                .imageUrl(artwork.getImageUrl())
+                .thumbnailUrl(artwork.getThumbnailUrl())
+                .variants(variants)
+                .srcset(toSrcset(variants))
+                .category(artwork.getCategory())
+                .categoryId(categoryId)
+                .tagIds(tagIds)
+                .displayOrder(artwork.getDisplayOrder())
+                .visible(artwork.getVisible())
+                .status(artwork.getStatus())
+                .createdAt(artwork.getCreatedAt())
+                .updatedAt(artwork.getUpdatedAt())
+                .build();
+    }
+
+    /**
+     * バリアントから img の srcset 属性値を生成（バリアントがない場合はnull）
+     */
+    private static String toSrcset(List<ImageVariant> variants) {
+        if (variants.isEmpty()) {
+            return null;
+        }
+        return variants.stream()
+                .map(variant -> variant.url() + " " + variant.width() + "w")
+                .collect(Collectors.joining(", "));
+    }
 }
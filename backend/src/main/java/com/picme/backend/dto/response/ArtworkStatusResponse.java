@@ -0,0 +1,41 @@
+package com.picme.backend.dto.response;
+
+import com.picme.backend.model.Artwork;
+import com.picme.backend.model.ArtworkStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 作品画像の処理状態レスポンスDTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArtworkStatusResponse {
+
+    private Long id;
+    private ArtworkStatus status;
+    private String error;
+    private String imageUrl;
+    private String thumbnailUrl;
+    private LocalDateTime updatedAt;
+
+    /**
+     * エンティティからレスポンスDTOを生成
+     */
+    public static ArtworkStatusResponse fromEntity(Artwork artwork) {
+        return ArtworkStatusResponse.builder()
+                .id(artwork.getId())
+                .status(artwork.getStatus())
+                .error(artwork.getProcessingError())
+                .imageUrl(artwork.getImageUrl())
+                .thumbnailUrl(artwork.getThumbnailUrl())
+                .updatedAt(artwork.getUpdatedAt())
+                .build();
+    }
+}
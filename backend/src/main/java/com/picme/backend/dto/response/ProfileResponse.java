@@ -1,5 +1,6 @@
 package com.picme.backend.dto.response;
 
+import com.picme.backend.model.Profile;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -33,4 +34,29 @@ public class ProfileResponse {
     private String planType;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+
+    /**
+     * エンティティからレスポンスDTOを生成
+     */
+    public static ProfileResponse fromEntity(Profile profile) {
+        return ProfileResponse.builder()
+                .id(profile.getId())
+                .userId(profile.getUser().getId())
+                .username(profile.getUser().getUsername())
+                .displayName(profile.getDisplayName())
+                .bio(profile.getBio())
+                .avatarUrl(profile.getAvatarUrl())
+                .headerUrl(profile.getHeaderUrl())
+                .theme(profile.getTheme())
+                .colorPrimary(profile.getColorPrimary())
+                .colorAccent(profile.getColorAccent())
+                .fontFamily(profile.getFontFamily())
+                .layout(profile.getLayout())
+                .customCss(profile.getCustomCss())
+                .contactFormEnabled(profile.getContactFormEnabled())
+                .planType(profile.getUser().getPlanType() != null ? profile.getUser().getPlanType().name() : "FREE")
+                .createdAt(profile.getCreatedAt())
+                .updatedAt(profile.getUpdatedAt())
+                .build();
+    }
 }
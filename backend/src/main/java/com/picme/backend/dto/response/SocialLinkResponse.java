@@ -1,5 +1,6 @@
 package com.picme.backend.dto.response;
 
+import com.picme.backend.model.SocialLink;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -23,4 +24,19 @@ public class SocialLinkResponse {
     private Integer displayOrder;
     private Boolean visible;
     private LocalDateTime createdAt;
+
+    /**
+     * エンティティからレスポンスDTOを生成
+     */
+    public static SocialLinkResponse fromEntity(SocialLink socialLink) {
+        return SocialLinkResponse.builder()
+                .id(socialLink.getId())
+                .platform(socialLink.getPlatform())
+                .url(socialLink.getUrl())
+                .icon(socialLink.getIcon())
+                .displayOrder(socialLink.getDisplayOrder())
+                .visible(socialLink.getVisible())
+                .createdAt(socialLink.getCreatedAt())
+                .build();
+    }
 }
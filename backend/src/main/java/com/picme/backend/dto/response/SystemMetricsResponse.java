@@ -15,10 +15,13 @@ import lombok.NoArgsConstructor;
 public class SystemMetricsResponse {
 
     private ResourceUsage cpu;
+    private ResourceUsage processCpu;
     private ResourceUsage memory;
     private ResourceUsage disk;
 
     private DatabaseMetrics database;
+    private LatencyMetrics requests;
+    private GcMetrics gc;
     private ErrorMetrics errors;
 
     @Data
@@ -36,8 +39,42 @@ public class SystemMetricsResponse {
     @AllArgsConstructor
     public static class DatabaseMetrics {
         private int activeConnections;
+        private int idleConnections;
         private int maxConnections;
+        private int threadsAwaitingConnection;
+        private String status; // normal, warning, critical（プール使用率）
+        private long statements; // 直近の時間窓のSQL実行数
         private double avgResponseTimeMs;
+        private double p95ResponseTimeMs;
+        private double p99ResponseTimeMs;
+        private String period;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LatencyMetrics {
+        private long count;
+        private double avgMs;
+        private double p50Ms;
+        private double p95Ms;
+        private double p99Ms;
+        private double maxMs;
+        private String period;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class GcMetrics {
+        private long collections; // 起動から
+        private long totalTimeMs; // 起動から
+        private long recentPauses;
+        private double p99PauseMs;
+        private double maxPauseMs;
+        private String period;
     }
 
     @Data
@@ -47,6 +84,7 @@ public class SystemMetricsResponse {
     public static class ErrorMetrics {
         private long error5xx;
         private long error4xx;
+        private long totalRequests;
         private String period; // 24h
     }
 }
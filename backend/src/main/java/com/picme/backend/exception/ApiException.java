@@ -132,4 +132,11 @@ public class ApiException extends RuntimeException {
                 message,
                 HttpStatus.BAD_REQUEST);
     }
+
+    public static ApiException serviceUnavailable(String message) {
+        return new ApiException(
+                "SERVICE_UNAVAILABLE",
+                message,
+                HttpStatus.SERVICE_UNAVAILABLE);
+    }
 }
@@ -0,0 +1,34 @@
+package com.picme.backend.metrics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * DataSource を InstrumentedDataSource で包むポストプロセッサー
+ * app.metrics.jdbc.enabled=false の場合は包まない。
+ */
+@Component
+public class DataSourceInstrumentation implements BeanPostProcessor {
+
+    private final ObjectProvider<JdbcMetrics> jdbcMetrics;
+    private final boolean enabled;
+
+    public DataSourceInstrumentation(
+            ObjectProvider<JdbcMetrics> jdbcMetrics,
+            Environment environment) {
+        this.jdbcMetrics = jdbcMetrics;
+        this.enabled = environment.getProperty("app.metrics.jdbc.enabled", Boolean.class, true);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (enabled && bean instanceof DataSource dataSource && !(bean instanceof InstrumentedDataSource)) {
+            return new InstrumentedDataSource(dataSource, jdbcMetrics.getObject());
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,70 @@
+package com.picme.backend.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL実行時間の計測値
+ * InstrumentedDataSource が文の実行（execute / executeQuery / executeUpdate / executeBatch）ごとに記録する。
+ * 結果セットの読み出し時間は含まない。
+ *
+ * リクエストスレッドでは beginRequest から endRequest までの実行数と合計時間も数え、
+ * 遅いリクエストのログに出す（別スレッドで実行されたSQLは含まない）。
+ */
+@Component
+public class JdbcMetrics {
+
+    private final LatencyHistogram statements;
+    private final ThreadLocal<RequestUsage> currentRequest = new ThreadLocal<>();
+
+    public JdbcMetrics(@Value("${app.metrics.latency-window-minutes:5}") long latencyWindowMinutes) {
+        this.statements = new LatencyHistogram(latencyWindowMinutes, TimeUnit.MINUTES, 10);
+    }
+
+    public void recordStatement(long nanos) {
+        statements.record(nanos);
+        RequestUsage usage = currentRequest.get();
+        if (usage != null) {
+            usage.statements++;
+            usage.nanos += nanos;
+        }
+    }
+
+    /**
+     * 現在のスレッドでリクエスト単位の集計を開始
+     */
+    public void beginRequest() {
+        currentRequest.set(new RequestUsage());
+    }
+
+    /**
+     * リクエスト単位の集計を終了して結果を取得
+     */
+    public RequestUsage endRequest() {
+        RequestUsage usage = currentRequest.get();
+        currentRequest.remove();
+        return usage != null ? usage : new RequestUsage();
+    }
+
+    public LatencyHistogram.Snapshot statements() {
+        return statements.snapshot();
+    }
+
+    /**
+     * 1リクエスト中のSQL実行数と合計時間（同じスレッドからのみ更新する）
+     */
+    public static final class RequestUsage {
+        private int statements;
+        private long nanos;
+
+        public int statements() {
+            return statements;
+        }
+
+        public long millis() {
+            return nanos / 1_000_000;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.picme.backend.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 直近の一定時間の所要時間分布を保持するロックフリーのヒストグラム
+ * 値はマイクロ秒単位で、2の冪ごとに16分割した対数線形のバケットに数える（相対誤差は約6%）。
+ *
+ * 時間窓は固定長のスロットのリングで表し、記録時に古いスロットを再利用してリセットする。
+ * リセットと同時に記録された値が失われることはあるが、記録はロックを取らず、
+ * 1スロットあたりのメモリも固定（約4KB）のため、エンドポイントごとに持てる。
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 2^36マイクロ秒（約19時間）以上は最後のバケットに数える
+    private static final int MAX_EXPONENT = 36;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private final Slot[] slots;
+    private final long slotMillis;
+
+    /**
+     * @param window     保持する時間窓
+     * @param slotCount  時間窓の分割数（大きいほど窓の境界が滑らかになる）
+     */
+    public LatencyHistogram(long window, TimeUnit unit, int slotCount) {
+        this.slots = new Slot[slotCount];
+        this.slotMillis = Math.max(1, unit.toMillis(window) / slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    /**
+     * 所要時間を記録
+     */
+    public void record(long nanos) {
+        long micros = Math.min(MAX_VALUE, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)));
+        Slot slot = currentSlot(System.currentTimeMillis());
+        slot.counts.incrementAndGet(bucketIndex(micros));
+        slot.count.incrementAndGet();
+        slot.sum.addAndGet(micros);
+        slot.max.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * 時間窓内の分布を取得
+     */
+    public Snapshot snapshot() {
+        long current = System.currentTimeMillis() / slotMillis;
+        long[] merged = new long[BUCKETS];
+        long count = 0;
+        long sum = 0;
+        long max = 0;
+        for (Slot slot : slots) {
+            if (slot.epoch.get() <= current - slots.length) {
+                continue;
+            }
+            for (int i = 0; i < BUCKETS; i++) {
+                merged[i] += slot.counts.get(i);
+            }
+            count += slot.count.get();
+            sum += slot.sum.get();
+            max = Math.max(max, slot.max.get());
+        }
+
+        if (count == 0) {
+            return Snapshot.EMPTY;
+        }
+        return new Snapshot(
+                count,
+                sum / 1000.0 / count,
+                percentile(merged, count, 0.50, max),
+                percentile(merged, count, 0.95, max),
+                percentile(merged, count, 0.99, max),
+                max / 1000.0);
+    }
+
+    private Slot currentSlot(long nowMillis) {
+        long epoch = nowMillis / slotMillis;
+        Slot slot = slots[(int) (epoch % slots.length)];
+        long previous = slot.epoch.get();
+        if (previous != epoch && slot.epoch.compareAndSet(previous, epoch)) {
+            slot.reset();
+        }
+        return slot;
+    }
+
+    static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) ((micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * バケットに含まれる最大値（マイクロ秒）
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    private static double percentile(long[] counts, long total, double quantile, long max) {
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                // バケットの上限は実測の最大値を超えないようにする
+                return Math.min(bucketUpperBound(i), max) / 1000.0;
+            }
+        }
+        return max / 1000.0;
+    }
+
+    private static final class Slot {
+        private final AtomicLong epoch = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        private void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts.set(i, 0);
+            }
+            count.set(0);
+            sum.set(0);
+            max.set(0);
+        }
+    }
+
+    /**
+     * 分布の要約（時間はミリ秒）
+     */
+    public record Snapshot(
+            long count,
+            double meanMs,
+            double p50Ms,
+            double p95Ms,
+            double p99Ms,
+            double maxMs
+    ) {
+        public static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,115 @@
+package com.picme.backend.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTPリクエストの計測値
+ * 所要時間は直近の時間窓（既定5分）のヒストグラム、ステータス別件数は直近24時間（1時間単位）で保持する。
+ * 所要時間はルート（HTTPメソッド + マッピングのパターン）ごとにも保持する。
+ * ルート数には上限を設け、超えた分とマッピングのないリクエストは1つにまとめる。
+ */
+@Component
+public class RequestMetrics {
+
+    public static final String UNMATCHED_ROUTE = "(unmatched)";
+
+    private final LatencyHistogram latency;
+    private final RollingCounter requests = new RollingCounter(24, TimeUnit.HOURS, 24);
+    private final RollingCounter clientErrors = new RollingCounter(24, TimeUnit.HOURS, 24);
+    private final RollingCounter serverErrors = new RollingCounter(24, TimeUnit.HOURS, 24);
+    private final ConcurrentMap<String, LatencyHistogram> routes = new ConcurrentHashMap<>();
+    private final long latencyWindowMinutes;
+    private final int maxRoutes;
+
+    public RequestMetrics(
+            @Value("${app.metrics.latency-window-minutes:5}") long latencyWindowMinutes,
+            @Value("${app.metrics.max-routes:300}") int maxRoutes) {
+        this.latencyWindowMinutes = latencyWindowMinutes;
+        this.maxRoutes = maxRoutes;
+        this.latency = new LatencyHistogram(latencyWindowMinutes, TimeUnit.MINUTES, 10);
+    }
+
+    /**
+     * @param route HTTPメソッドとマッピングのパターン（マッピングがない場合はnull）
+     */
+    public void record(String route, int status, long nanos) {
+        latency.record(nanos);
+        routeHistogram(route).record(nanos);
+        requests.increment();
+        if (status >= 500) {
+            serverErrors.increment();
+        } else if (status >= 400) {
+            clientErrors.increment();
+        }
+    }
+
+    public LatencyHistogram.Snapshot latency() {
+        return latency.snapshot();
+    }
+
+    /**
+     * ルートごとの所要時間（p95の大きい順）
+     */
+    public List<RouteStats> routes() {
+        List<RouteStats> stats = new ArrayList<>();
+        routes.forEach((route, histogram) -> {
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+            if (snapshot.count() > 0) {
+                stats.add(new RouteStats(route, snapshot.count(), snapshot.meanMs(),
+                        snapshot.p50Ms(), snapshot.p95Ms(), snapshot.p99Ms(), snapshot.maxMs()));
+            }
+        });
+        stats.sort(Comparator.comparingDouble(RouteStats::p95Ms).reversed());
+        return stats;
+    }
+
+    public long latencyWindowMinutes() {
+        return latencyWindowMinutes;
+    }
+
+    public long requests24h() {
+        return requests.sum();
+    }
+
+    public long clientErrors24h() {
+        return clientErrors.sum();
+    }
+
+    public long serverErrors24h() {
+        return serverErrors.sum();
+    }
+
+    private LatencyHistogram routeHistogram(String route) {
+        String key = route != null ? route : UNMATCHED_ROUTE;
+        LatencyHistogram histogram = routes.get(key);
+        if (histogram != null) {
+            return histogram;
+        }
+        if (routes.size() >= maxRoutes) {
+            key = UNMATCHED_ROUTE;
+        }
+        return routes.computeIfAbsent(key,
+                k -> new LatencyHistogram(latencyWindowMinutes, TimeUnit.MINUTES, 10));
+    }
+
+    /**
+     * ルートごとの所要時間の要約（時間はミリ秒）
+     */
+    public record RouteStats(
+            String route,
+            long count,
+            double meanMs,
+            double p50Ms,
+            double p95Ms,
+            double p99Ms,
+            double maxMs
+    ) {}
+}
@@ -0,0 +1,74 @@
+package com.picme.backend.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * リクエスト計測フィルター
+ * 認証を含む全フィルターの外側で所要時間とステータスコードを記録する。
+ * 例外で抜けた場合は500として数える。
+ *
+ * ルートはSpring MVCが設定するマッピングのパターン（/api/artworks/{id} など）を使い、
+ * パス変数の値ごとに分かれないようにする。
+ * 設定した閾値を超えたリクエストは、そのリクエスト中のSQL実行数・合計時間とともにログに出す。
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private final RequestMetrics requestMetrics;
+    private final JdbcMetrics jdbcMetrics;
+    private final long slowRequestNanos;
+
+    public RequestMetricsFilter(
+            RequestMetrics requestMetrics,
+            JdbcMetrics jdbcMetrics,
+            @Value("${app.metrics.slow-request-ms:1000}") long slowRequestMillis) {
+        this.requestMetrics = requestMetrics;
+        this.jdbcMetrics = jdbcMetrics;
+        this.slowRequestNanos = slowRequestMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(slowRequestMillis) : Long.MAX_VALUE;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        jdbcMetrics.beginRequest();
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            JdbcMetrics.RequestUsage sql = jdbcMetrics.endRequest();
+            int status = failed && response.getStatus() < 500 ? 500 : response.getStatus();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String route = pattern != null ? request.getMethod() + " " + pattern : null;
+
+            requestMetrics.record(route, status, elapsed);
+
+            if (elapsed >= slowRequestNanos) {
+                log.warn("Slow request: {} {} route={} status={} time={}ms sql={} sqlTime={}ms",
+                        request.getMethod(), request.getRequestURI(),
+                        route != null ? route : RequestMetrics.UNMATCHED_ROUTE, status,
+                        TimeUnit.NANOSECONDS.toMillis(elapsed), sql.statements(), sql.millis());
+            }
+        }
+    }
+}
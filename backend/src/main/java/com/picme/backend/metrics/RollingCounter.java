@@ -0,0 +1,48 @@
+package com.picme.backend.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 直近の一定時間の件数を数えるロックフリーのカウンター
+ * 時間窓を固定長のスロットに分割し、古いスロットは記録時に再利用する。
+ */
+public class RollingCounter {
+
+    private final AtomicLongArray epochs;
+    private final AtomicLongArray counts;
+    private final long slotMillis;
+
+    public RollingCounter(long window, TimeUnit unit, int slotCount) {
+        this.epochs = new AtomicLongArray(slotCount);
+        this.counts = new AtomicLongArray(slotCount);
+        this.slotMillis = Math.max(1, unit.toMillis(window) / slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            epochs.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    public void increment() {
+        long epoch = System.currentTimeMillis() / slotMillis;
+        int index = (int) (epoch % counts.length());
+        long previous = epochs.get(index);
+        if (previous != epoch && epochs.compareAndSet(index, previous, epoch)) {
+            counts.set(index, 0);
+        }
+        counts.incrementAndGet(index);
+    }
+
+    /**
+     * 時間窓内の合計
+     */
+    public long sum() {
+        long current = System.currentTimeMillis() / slotMillis;
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            if (epochs.get(i) > current - counts.length()) {
+                total += counts.get(i);
+            }
+        }
+        return total;
+    }
+}
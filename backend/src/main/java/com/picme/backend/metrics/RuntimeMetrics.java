@@ -0,0 +1,156 @@
+package com.picme.backend.metrics;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import javax.sql.DataSource;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JVM・接続プールの計測値
+ * GCの停止時間はGC完了通知ごとにヒストグラムへ記録し、
+ * 接続プールはHikariCPの現在値（使用中・待機中・待ちスレッド数）を参照する。
+ */
+@Component
+@Slf4j
+public class RuntimeMetrics {
+
+    private final DataSource dataSource;
+    private final LatencyHistogram gcPauses;
+    private final NotificationListener gcListener = (notification, handback) -> onGcNotification(notification);
+    private final List<NotificationEmitter> gcEmitters = new ArrayList<>();
+
+    public RuntimeMetrics(
+            DataSource dataSource,
+            @Value("${app.metrics.latency-window-minutes:5}") long latencyWindowMinutes) {
+        this.dataSource = dataSource;
+        this.gcPauses = new LatencyHistogram(latencyWindowMinutes, TimeUnit.MINUTES, 10);
+        registerGcListeners();
+    }
+
+    /**
+     * CPU使用率（%）。取得できない環境では負荷平均をコア数で割った値で代用する
+     */
+    public double systemCpuPercent() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean sunOs) {
+            double load = sunOs.getCpuLoad();
+            if (load >= 0) {
+                return load * 100;
+            }
+        }
+        double average = os.getSystemLoadAverage();
+        return average < 0 ? 0 : Math.min(100, average * 100 / os.getAvailableProcessors());
+    }
+
+    /**
+     * このプロセスのCPU使用率（%、取得できない場合は-1）
+     */
+    public double processCpuPercent() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean sunOs) {
+            double load = sunOs.getProcessCpuLoad();
+            return load >= 0 ? load * 100 : -1;
+        }
+        return -1;
+    }
+
+    /**
+     * 直近の時間窓のGC停止時間
+     */
+    public LatencyHistogram.Snapshot gcPauses() {
+        return gcPauses.snapshot();
+    }
+
+    /**
+     * 起動からのGC回数と合計時間（ミリ秒）
+     */
+    public long[] gcTotals() {
+        long count = 0;
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[]{count, time};
+    }
+
+    /**
+     * 接続プールの現在値（HikariCP以外の場合はnull）
+     */
+    public PoolStats pool() {
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                return null;
+            }
+            HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            if (pool == null) {
+                // 初回接続前
+                return new PoolStats(0, 0, 0, 0, hikari.getMaximumPoolSize());
+            }
+            return new PoolStats(
+                    pool.getActiveConnections(),
+                    pool.getIdleConnections(),
+                    pool.getTotalConnections(),
+                    pool.getThreadsAwaitingConnection(),
+                    hikari.getMaximumPoolSize());
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void unregisterGcListeners() {
+        for (NotificationEmitter emitter : gcEmitters) {
+            try {
+                emitter.removeNotificationListener(gcListener);
+            } catch (ListenerNotFoundException e) {
+                // 登録済みでない
+            }
+        }
+        gcEmitters.clear();
+    }
+
+    private void registerGcListeners() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            // 並行GCのサイクル（G1 Concurrent GC, ZGC Cycles など）は停止時間ではないため除外する
+            if (!(gc instanceof NotificationEmitter emitter)
+                    || gc.getName().contains("Concurrent") || gc.getName().endsWith("Cycles")) {
+                continue;
+            }
+            emitter.addNotificationListener(gcListener, null, null);
+            gcEmitters.add(emitter);
+        }
+    }
+
+    private void onGcNotification(Notification notification) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        gcPauses.record(TimeUnit.MILLISECONDS.toNanos(info.getGcInfo().getDuration()));
+    }
+
+    /**
+     * 接続プールの現在値
+     */
+    public record PoolStats(int active, int idle, int total, int waiting, int max) {}
+}
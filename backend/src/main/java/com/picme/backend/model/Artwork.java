@@ -2,8 +2,12 @@ package com.picme.backend.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
 import java.time.LocalDateTime;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -11,7 +15,8 @@ import java.util.Set;
  * ユーザーのギャラリー作品を管理
  */
 @Entity
-@Table(name = "artworks")
+@Table(name = "artworks",
+        indexes = @Index(name = "idx_artworks_user_content_hash", columnList = "user_id, content_hash"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -42,6 +47,13 @@ public class Artwork {
     @Column(name = "cloudinary_public_id", length = 255)
     private String cloudinaryPublicId;
 
+    /**
+     * レスポンシブ表示用の縮小画像（幅の昇順、未生成の場合は空）
+     */
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(columnDefinition = "jsonb")
+    private List<ImageVariant> variants;
+
     @Column(length = 50)
     private String category;
 
@@ -58,6 +70,10 @@ public class Artwork {
     @Builder.Default
     private Set<Tag> tags = new HashSet<>();
 
+    // 画像内容のSHA-256（同じ画像はストレージ使用量を1回分だけ数える）
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @Column(name = "file_size")
     @Builder.Default
     private Long fileSize = 0L;
@@ -69,6 +85,32 @@ public class Artwork {
     @Builder.Default
     private Boolean visible = true;
 
+    /**
+     * 画像の処理状態（アップロード完了までは PROCESSING で公開ページには出さない）
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false, columnDefinition = "varchar(20) default 'READY'")
+    @Builder.Default
+    private ArtworkStatus status = ArtworkStatus.READY;
+
+    @Column(name = "processing_error", length = 500)
+    private String processingError;
+
+    /**
+     * アップロード待ちの一時ファイルのパス（処理完了・失敗時にクリア）
+     */
+    @Column(name = "upload_spool_path", length = 500)
+    private String uploadSpoolPath;
+
+    /**
+     * 一時ファイルを保持するインスタンスの識別子と、そのインスタンスが最後に生存を記録した日時
+     */
+    @Column(name = "upload_spool_owner", length = 100)
+    private String uploadSpoolOwner;
+
+    @Column(name = "upload_spool_seen_at")
+    private LocalDateTime uploadSpoolSeenAt;
+
     @Column(name = "created_at")
     @Builder.Default
     private LocalDateTime createdAt = LocalDateTime.now();
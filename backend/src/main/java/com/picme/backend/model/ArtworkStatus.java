@@ -0,0 +1,10 @@
+package com.picme.backend.model;
+
+/**
+ * 作品画像の処理状態を定義するenum
+ */
+public enum ArtworkStatus {
+    PROCESSING,
+    READY,
+    FAILED
+}
@@ -0,0 +1,11 @@
+package com.picme.backend.model;
+
+/**
+ * メール送信待ちの処理状態
+ */
+public enum EmailOutboxStatus {
+    PENDING,     // 送信待ち（再試行待ちを含む）
+    SENDING,     // ワーカーが送信中（locked_until まで）
+    SENT,        // 送信済み
+    FAILED       // 再試行上限に達した、または宛先不正などで送信不可
+}
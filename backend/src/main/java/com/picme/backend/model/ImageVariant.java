@@ -0,0 +1,14 @@
+package com.picme.backend.model;
+
+/**
+ * 作品画像のレスポンシブ用バリアント（サーバー側で縮小生成した画像）
+ * 作品の variants カラムにJSONとして保持する
+ */
+public record ImageVariant(
+        int width,
+        int height,
+        String format,
+        String url,
+        String publicId,
+        long bytes
+) {}
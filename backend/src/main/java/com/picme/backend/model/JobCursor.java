@@ -0,0 +1,42 @@
+package com.picme.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * バッチ処理の再開位置エンティティ
+ * キーセットで走査するバッチが処理済みの最後のIDを保存し、再起動後は続きから再開する。
+ */
+@Entity
+@Table(name = "job_cursors")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JobCursor {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    // 処理済みの最後のID（0 は先頭から）
+    @Column(name = "last_id", nullable = false)
+    @Builder.Default
+    private Long lastId = 0L;
+
+    @Column(name = "last_completed_at")
+    private LocalDateTime lastCompletedAt;
+
+    // 実行中のインスタンスの識別子と実行権の期限（期限切れは別のインスタンスが引き継ぐ）
+    @Column(name = "locked_by", length = 36)
+    private String lockedBy;
+
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    @Column(name = "updated_at")
+    @Builder.Default
+    private LocalDateTime updatedAt = LocalDateTime.now();
+}
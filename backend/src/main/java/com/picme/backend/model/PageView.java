@@ -7,6 +7,8 @@ import java.time.LocalDateTime;
 /**
  * ページビューエンティティ
  * 公開ページへのアクセスを記録
+ * PostgreSQLでは月次レンジパーティションテーブルとして PageViewPartitionManager が管理する
+ * （主キー・インデックス・パーティションはエンティティ定義ではなく管理クラス側で作成）
  */
 @Entity
 @Table(name = "page_views")
@@ -34,7 +36,7 @@ public class PageView {
     @Column(name = "user_agent", length = 500)
     private String userAgent;
 
-    @Column(name = "viewed_at")
+    @Column(name = "viewed_at", nullable = false)
     @Builder.Default
     private LocalDateTime viewedAt = LocalDateTime.now();
 }
@@ -0,0 +1,50 @@
+package com.picme.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDate;
+
+/**
+ * ページビュー日次集計エンティティ
+ * ユーザー×日ごとの閲覧数とユニーク訪問者数を保持し、解析画面はこのテーブルから応答する
+ * ユニーク訪問者はHyperLogLogスケッチ、リファラーはSpace-Savingスケッチ（上位のみ）で保持し、
+ * 期間をまたぐ場合はスケッチを合成して推定する
+ */
+@Entity
+@Table(name = "page_view_daily",
+        uniqueConstraints = @UniqueConstraint(name = "uk_page_view_daily_user_date", columnNames = {"user_id", "view_date"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PageViewDaily {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "view_date", nullable = false)
+    private LocalDate viewDate;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long views = 0L;
+
+    // visitor_sketch の推定値
+    @Column(name = "unique_visitors", nullable = false)
+    @Builder.Default
+    private Long uniqueVisitors = 0L;
+
+    // HyperLogLog スケッチ（analytics.HyperLogLog の保存形式）
+    @Column(name = "visitor_sketch")
+    private byte[] visitorSketch;
+
+    // Space-Saving スケッチ（analytics.SpaceSaving の保存形式）
+    @Column(name = "referrer_sketch")
+    private byte[] referrerSketch;
+}
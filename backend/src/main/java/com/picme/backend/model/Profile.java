@@ -34,9 +34,17 @@ public class Profile {
     @Column(name = "avatar_url", length = 500)
     private String avatarUrl;
 
+    // アップロードしたアバター画像の publicId（参照の解放用、URLを直接指定した場合はnull）
+    @Column(name = "avatar_public_id", length = 255)
+    private String avatarPublicId;
+
     @Column(name = "header_url", length = 500)
     private String headerUrl;
 
+    // アップロードしたヘッダー画像の publicId（参照の解放用、URLを直接指定した場合はnull）
+    @Column(name = "header_public_id", length = 255)
+    private String headerPublicId;
+
     @Column(length = 50)
     @Builder.Default
     private String theme = "LIGHT";
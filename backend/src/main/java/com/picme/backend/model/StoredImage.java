@@ -0,0 +1,62 @@
+package com.picme.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * アップロード済み画像エンティティ
+ * ユーザーごとに内容のSHA-256で画像を一意にし、同じ画像の再アップロードでは既存の画像を再利用する。
+ * 参照数が0になった時点でストレージから削除する。
+ */
+@Entity
+@Table(name = "stored_images",
+        uniqueConstraints = @UniqueConstraint(name = "uk_stored_images_user_hash", columnNames = {"user_id", "content_hash"}),
+        indexes = @Index(name = "idx_stored_images_public_id", columnList = "public_id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StoredImage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    // 画像内容のSHA-256（16進）
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(name = "public_id", nullable = false, length = 255)
+    private String publicId;
+
+    @Column(name = "secure_url", nullable = false, length = 500)
+    private String secureUrl;
+
+    @Column(name = "thumbnail_url", length = 500)
+    private String thumbnailUrl;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long bytes = 0L;
+
+    @Builder.Default
+    private Integer width = 0;
+
+    @Builder.Default
+    private Integer height = 0;
+
+    // この画像を参照している作品・プロフィール画像などの数
+    @Column(name = "reference_count", nullable = false)
+    @Builder.Default
+    private Integer referenceCount = 1;
+
+    @Column(name = "created_at")
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
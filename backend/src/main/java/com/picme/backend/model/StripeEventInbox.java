@@ -0,0 +1,74 @@
+package com.picme.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Stripeイベント受信箱エンティティ
+ * Webhookで受け取ったイベントを event_id で一意に保存し、ワーカーが非同期に反映する。
+ * 同じ顧客（order_key）のイベントはStripeでの発生順に1件ずつ処理する。
+ */
+@Entity
+@Table(name = "stripe_event_inbox",
+        uniqueConstraints = @UniqueConstraint(name = "uk_stripe_event_inbox_event_id", columnNames = "event_id"),
+        indexes = {
+                @Index(name = "idx_stripe_event_inbox_status_created", columnList = "status, stripe_created_at, id"),
+                // 顧客ごとの先頭イベントの取り出し用
+                @Index(name = "idx_stripe_event_inbox_order_key_created", columnList = "order_key, stripe_created_at, id")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StripeEventInbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false, length = 255)
+    private String eventId;
+
+    @Column(name = "event_type", nullable = false, length = 100)
+    private String eventType;
+
+    // 処理順を保証する単位（Stripe顧客ID、顧客のないイベントはイベントID）
+    @Column(name = "order_key", nullable = false, length = 255)
+    private String orderKey;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private StripeEventStatus status = StripeEventStatus.PENDING;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    // Stripeでのイベント発生時刻
+    @Column(name = "stripe_created_at", nullable = false)
+    private LocalDateTime stripeCreatedAt;
+
+    @Column(name = "received_at", nullable = false)
+    @Builder.Default
+    private LocalDateTime receivedAt = LocalDateTime.now();
+
+    @Column(name = "next_attempt_at", nullable = false)
+    @Builder.Default
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    // 処理中の期限（過ぎた場合は停止したワーカーの分として再処理する）
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+}
@@ -0,0 +1,11 @@
+package com.picme.backend.model;
+
+/**
+ * Stripeイベント受信箱の処理状態
+ */
+public enum StripeEventStatus {
+    PENDING,     // 未処理（再試行待ちを含む）
+    PROCESSING,  // ワーカーが処理中（locked_until まで）
+    PROCESSED,   // 反映済み
+    FAILED       // 再試行の上限に達した
+}
@@ -62,6 +62,19 @@ public class User {
     @Builder.Default
     private LocalDateTime updatedAt = LocalDateTime.now();
 
+    // 公開ページの内容バージョン（ETag用）。エンティティ保存で上書きしないよう更新は専用クエリのみで行う
+    @Column(name = "content_version", insertable = false, updatable = false,
+            columnDefinition = "bigint default 0")
+    private Long contentVersion;
+
+    @Column(name = "content_updated_at", insertable = false, updatable = false)
+    private LocalDateTime contentUpdatedAt;
+
+    // アクセストークンのバージョン。プラン変更・停止等で進め、古いトークンを無効にする
+    @Column(name = "token_version", insertable = false, updatable = false,
+            columnDefinition = "bigint default 0")
+    private Long tokenVersion;
+
     @OneToOne(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Profile profile;
 
@@ -0,0 +1,55 @@
+package com.picme.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * ユーザー使用量エンティティ
+ * 作品数・ストレージ使用量・投稿数・SNSリンク数・カテゴリー数を事前集計して保持し、
+ * プラン制限の判定と管理画面の表示で COUNT / SUM を実行しないようにする。
+ * 各値は作成・削除と同じトランザクションで加減算する（UserUsageService）。
+ */
+@Entity
+@Table(name = "user_usage")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserUsage {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @MapsId
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    @Column(name = "artwork_count", nullable = false)
+    @Builder.Default
+    private Long artworkCount = 0L;
+
+    // 同じ内容の画像は1回分として数える（内容ハッシュのない作品は個別に数える）
+    @Column(name = "storage_bytes", nullable = false)
+    @Builder.Default
+    private Long storageBytes = 0L;
+
+    @Column(name = "post_count", nullable = false)
+    @Builder.Default
+    private Long postCount = 0L;
+
+    @Column(name = "social_link_count", nullable = false)
+    @Builder.Default
+    private Long socialLinkCount = 0L;
+
+    @Column(name = "category_count", nullable = false)
+    @Builder.Default
+    private Long categoryCount = 0L;
+
+    @Column(name = "updated_at")
+    @Builder.Default
+    private LocalDateTime updatedAt = LocalDateTime.now();
+}
@@ -1,12 +1,14 @@
 package com.picme.backend.repository;
 
 import com.picme.backend.model.Artwork;
+import com.picme.backend.model.ArtworkStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -39,9 +41,43 @@ public interface ArtworkRepository extends JpaRepository<Artwork, Long> {
     /**
      * ユーザー名で表示可能な作品を取得
      */
-    @Query("SELECT a FROM Artwork a WHERE a.user.username = :username AND a.visible = true ORDER BY a.displayOrder ASC")
+    @Query("SELECT a FROM Artwork a WHERE a.user.username = :username AND a.visible = true " +
+           "AND a.status = com.picme.backend.model.ArtworkStatus.READY ORDER BY a.displayOrder ASC")
     List<Artwork> findPublicArtworksByUsername(@Param("username") String username);
 
+    /**
+     * ユーザーIDで表示可能な作品をカテゴリー・タグごと取得（公開ページ用）
+     */
+    @Query("SELECT DISTINCT a FROM Artwork a LEFT JOIN FETCH a.categoryEntity LEFT JOIN FETCH a.tags " +
+           "WHERE a.user.id = :userId AND a.visible = true " +
+           "AND a.status = com.picme.backend.model.ArtworkStatus.READY ORDER BY a.displayOrder ASC")
+    List<Artwork> findPublicArtworksWithAssociationsByUserId(@Param("userId") Long userId);
+
+    /**
+     * 処理状態で作品を取得（アップロードの再開・失敗判定用）
+     */
+    List<Artwork> findByStatus(ArtworkStatus status);
+
+    /**
+     * 自インスタンスが一時ファイルを保持する処理中の作品に生存を記録
+     */
+    @Modifying
+    @Query("UPDATE Artwork a SET a.uploadSpoolSeenAt = :now " +
+           "WHERE a.status = com.picme.backend.model.ArtworkStatus.PROCESSING AND a.uploadSpoolOwner = :owner")
+    int touchUploadSpools(@Param("owner") String owner, @Param("now") LocalDateTime now);
+
+    /**
+     * 停止したインスタンスの処理中の作品を引き継ぐ（所有者が変わっていない場合のみ）
+     *
+     * @return 引き継いだ場合は1
+     */
+    @Modifying
+    @Query("UPDATE Artwork a SET a.uploadSpoolOwner = :owner, a.uploadSpoolSeenAt = :now " +
+           "WHERE a.id = :id AND a.status = com.picme.backend.model.ArtworkStatus.PROCESSING " +
+           "AND COALESCE(a.uploadSpoolOwner, '') = :previousOwner")
+    int claimUploadSpool(@Param("id") Long id, @Param("previousOwner") String previousOwner,
+                         @Param("owner") String owner, @Param("now") LocalDateTime now);
+
     /**
      * 表示順を更新
      */
@@ -50,8 +86,13 @@ public interface ArtworkRepository extends JpaRepository<Artwork, Long> {
     int updateDisplayOrder(@Param("id") Long id, @Param("userId") Long userId, @Param("order") int order);
 
     /**
-     * ユーザーの合計ファイルサイズを取得（ストレージ使用量）
+     * 同じ内容の画像の作品が既にあるか（ストレージ使用量に含まれている作品のみ）
+     */
+    boolean existsByUserIdAndContentHashAndFileSizeGreaterThan(Long userId, String contentHash, Long fileSize);
+
+    /**
+     * 指定の作品以外に同じ内容の画像の作品があるか（ストレージ使用量の解放判定用）
      */
-    @Query("SELECT COALESCE(SUM(a.fileSize), 0) FROM Artwork a WHERE a.user.id = :userId")
-    long sumFileSizeByUserId(@Param("userId") Long userId);
+    boolean existsByUserIdAndContentHashAndIdNotAndFileSizeGreaterThan(Long userId, String contentHash,
+                                                                       Long id, Long fileSize);
 }
@@ -0,0 +1,23 @@
+package com.picme.backend.repository;
+
+import com.picme.backend.model.PageViewDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface PageViewDailyRepository extends JpaRepository<PageViewDaily, Long> {
+
+    @Query("SELECT COALESCE(SUM(d.views), 0) FROM PageViewDaily d WHERE d.user.id = :userId")
+    long sumViewsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT COALESCE(SUM(d.views), 0) FROM PageViewDaily d " +
+           "WHERE d.user.id = :userId AND d.viewDate >= :from")
+    long sumViewsByUserIdSince(@Param("userId") Long userId, @Param("from") LocalDate from);
+
+    List<PageViewDaily> findByUserIdAndViewDateGreaterThanEqualOrderByViewDateAsc(Long userId, LocalDate from);
+}
@@ -1,7 +1,11 @@
 package com.picme.backend.repository;
 
 import com.picme.backend.model.Profile;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -17,8 +21,21 @@ public interface ProfileRepository extends JpaRepository<Profile, Long> {
      */
     Optional<Profile> findByUserId(Long userId);
 
+    /**
+     * ユーザーIDでプロフィールを行ロック付きで取得（画像の差し替え用）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Profile p WHERE p.user.id = :userId")
+    Optional<Profile> findForUpdateByUserId(@Param("userId") Long userId);
+
     /**
      * ユーザー名でプロフィールを検索（公開ページ用）
      */
     Optional<Profile> findByUserUsername(String username);
+
+    /**
+     * ユーザー名でプロフィールをユーザーごと取得（公開ページ用）
+     */
+    @Query("SELECT p FROM Profile p JOIN FETCH p.user u WHERE u.username = :username")
+    Optional<Profile> findWithUserByUsername(@Param("username") String username);
 }
@@ -0,0 +1,38 @@
+package com.picme.backend.repository;
+
+import com.picme.backend.model.StoredImage;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * アップロード済み画像リポジトリ
+ */
+@Repository
+public interface StoredImageRepository extends JpaRepository<StoredImage, Long> {
+
+    /**
+     * ユーザーと内容ハッシュで画像を取得
+     */
+    Optional<StoredImage> findByUserIdAndContentHash(Long userId, String contentHash);
+
+    /**
+     * publicIdで画像を行ロック付きで取得（参照の解放用）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM StoredImage s WHERE s.publicId = :publicId")
+    Optional<StoredImage> findForUpdateByPublicId(@Param("publicId") String publicId);
+
+    /**
+     * 参照数を加算
+     */
+    @Modifying
+    @Query("UPDATE StoredImage s SET s.referenceCount = s.referenceCount + 1 WHERE s.id = :id")
+    int incrementReferenceCount(@Param("id") Long id);
+}
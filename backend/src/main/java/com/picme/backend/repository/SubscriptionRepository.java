@@ -2,9 +2,16 @@ package com.picme.backend.repository;
 
 import com.picme.backend.model.Subscription;
 import com.picme.backend.model.SubscriptionStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -22,4 +29,39 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
     boolean existsByUserId(Long userId);
 
     long countByStatus(SubscriptionStatus status);
+
+    /**
+     * 現在の請求期間の開始が新しい順にユーザーごと取得（管理画面用）
+     */
+    @Query("SELECT s FROM Subscription s LEFT JOIN FETCH s.user " +
+           "ORDER BY s.currentPeriodStart DESC NULLS LAST, s.id DESC")
+    List<Subscription> findRecentWithUser(Pageable pageable);
+
+    /**
+     * 照合対象（Stripe連携済み・未キャンセル）をIDの昇順にキーセットで取得
+     * 受信箱に未反映のイベントがある顧客は、反映後の次回照合に回す
+     */
+    @Query("SELECT s.id AS id, s.stripeSubscriptionId AS stripeSubscriptionId FROM Subscription s " +
+           "WHERE s.id > :afterId AND s.stripeSubscriptionId IS NOT NULL " +
+           "AND s.status <> com.picme.backend.model.SubscriptionStatus.CANCELED " +
+           "AND NOT EXISTS (SELECT 1 FROM StripeEventInbox e WHERE e.orderKey = s.stripeCustomerId " +
+           "  AND e.status IN (com.picme.backend.model.StripeEventStatus.PENDING, " +
+           "                   com.picme.backend.model.StripeEventStatus.PROCESSING)) " +
+           "ORDER BY s.id")
+    List<StripeLinkView> findReconcileTargetsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * 行ロック付きで取得（照合中にWebhookの更新が割り込まないようにする。デッドロックを避けるためIDの昇順）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Subscription s JOIN FETCH s.user WHERE s.id IN :ids ORDER BY s.id")
+    List<Subscription> findAllForUpdateWithUserByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Stripe連携情報の射影
+     */
+    interface StripeLinkView {
+        Long getId();
+        String getStripeSubscriptionId();
+    }
 }
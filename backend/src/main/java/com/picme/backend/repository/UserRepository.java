@@ -5,10 +5,13 @@ import com.picme.backend.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -58,6 +61,22 @@ public interface UserRepository extends JpaRepository<User, Long> {
                           @Param("planType") PlanType planType,
                           Pageable pageable);
 
+    /**
+     * プランタイプ別ユーザー数を1回の集計で取得
+     */
+    @Query("SELECT u.planType AS planType, COUNT(u) AS count FROM User u GROUP BY u.planType")
+    List<PlanCountView> countGroupByPlanType();
+
+    /**
+     * 有効なプランを1回のクエリで取得
+     * 有効（ACTIVE / TRIALING）なサブスクリプションがあればそのプラン、なければユーザーのプラン
+     */
+    @Query("SELECT CASE WHEN s.status IN (com.picme.backend.model.SubscriptionStatus.ACTIVE, " +
+           "                              com.picme.backend.model.SubscriptionStatus.TRIALING) " +
+           "THEN s.planType ELSE u.planType END " +
+           "FROM User u LEFT JOIN Subscription s ON s.user = u WHERE u.id = :userId")
+    Optional<PlanType> findEffectivePlanType(@Param("userId") Long userId);
+
     /**
      * 最近登録されたユーザーを取得
      */
@@ -68,4 +87,60 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     @Query("SELECT u.username, u.updatedAt FROM User u WHERE u.isActive = true")
     List<Object[]> findAllActiveUsernamesAndUpdatedAt();
+
+    /**
+     * 公開ページの内容バージョンを取得（条件付きGET用の軽量クエリ）
+     * お知らせの閲覧数は内容バージョンでは進まないため、公開中のお知らせの合計閲覧数と最終更新日時も返す
+     */
+    @Query("SELECT u.id AS id, u.isActive AS active, u.contentVersion AS contentVersion, " +
+           "COALESCE(u.contentUpdatedAt, u.updatedAt) AS contentUpdatedAt, " +
+           "(SELECT COALESCE(SUM(p.viewCount), 0) FROM Post p WHERE p.user = u AND p.visible = true) AS postViews, " +
+           "(SELECT MAX(p.updatedAt) FROM Post p WHERE p.user = u AND p.visible = true) AS postsUpdatedAt " +
+           "FROM User u WHERE u.username = :username")
+    Optional<ContentVersionView> findContentVersionByUsername(@Param("username") String username);
+
+    /**
+     * 公開ページの内容バージョンを進める
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.contentVersion = COALESCE(u.contentVersion, 0) + 1, " +
+           "u.contentUpdatedAt = CURRENT_TIMESTAMP WHERE u.id = :userId")
+    void incrementContentVersion(@Param("userId") Long userId);
+
+    /**
+     * パスワードハッシュを更新（ハッシュのコスト変更に伴う再ハッシュ用。トークンは無効化しない）
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.passwordHash = :passwordHash WHERE u.email = :email")
+    int updatePasswordHash(@Param("email") String email, @Param("passwordHash") String passwordHash);
+
+    /**
+     * アクセストークンのバージョンを進める（発行済みのアクセストークンを無効化）
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.tokenVersion = COALESCE(u.tokenVersion, 0) + 1 WHERE u.id = :userId")
+    void incrementTokenVersion(@Param("userId") Long userId);
+
+    /**
+     * プラン別ユーザー数の射影
+     */
+    interface PlanCountView {
+        PlanType getPlanType();
+        long getCount();
+    }
+
+    /**
+     * 内容バージョンの射影
+     */
+    interface ContentVersionView {
+        Long getId();
+        Boolean getActive();
+        Long getContentVersion();
+        LocalDateTime getContentUpdatedAt();
+        Long getPostViews();
+        LocalDateTime getPostsUpdatedAt();
+    }
 }
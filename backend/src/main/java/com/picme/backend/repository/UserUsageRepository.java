@@ -0,0 +1,13 @@
+package com.picme.backend.repository;
+
+import com.picme.backend.model.UserUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * ユーザー使用量リポジトリ
+ * 加算・減算は UserUsageService から条件付きUPDATEで行う
+ */
+@Repository
+public interface UserUsageRepository extends JpaRepository<UserUsage, Long> {
+}
@@ -0,0 +1,111 @@
+package com.picme.backend.security;
+
+import com.picme.backend.model.PlanType;
+import com.picme.backend.model.Role;
+import com.picme.backend.model.User;
+import io.jsonwebtoken.Claims;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * 認証済みユーザー（リクエスト単位のプリンシパル）
+ * アクセストークンのクレーム、またはユーザーエンティティから生成する。
+ * サービスはユーザーを再取得せずに、ID・プラン・ロールをここから参照できる。
+ *
+ * UserDetails の規約に合わせ getUsername() はメールアドレスを返す。
+ * 公開ページのユーザー名は getPublicUsername() で取得する。
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class AuthenticatedUser implements UserDetails {
+
+    private final Long id;
+    private final String email;
+    private final String publicUsername;
+    private final Role role;
+    private final PlanType planType;
+    private final long tokenVersion;
+    private final boolean active;
+
+    // ログイン認証時のみ保持（トークンから生成した場合はnull）
+    private final String passwordHash;
+
+    /**
+     * ユーザーエンティティから生成
+     */
+    public static AuthenticatedUser from(User user) {
+        return AuthenticatedUser.builder()
+                .id(user.getId())
+                .email(user.getEmail())
+                .publicUsername(user.getUsername())
+                .role(user.getRole())
+                .planType(user.getPlanType())
+                .tokenVersion(user.getTokenVersion() != null ? user.getTokenVersion() : 0L)
+                .active(Boolean.TRUE.equals(user.getIsActive()))
+                .passwordHash(user.getPasswordHash())
+                .build();
+    }
+
+    /**
+     * アクセストークンのクレームから生成（ユーザーIDクレームがない旧形式のトークンはnull）
+     */
+    public static AuthenticatedUser fromClaims(Claims claims) {
+        Long id = claims.get(JwtTokenProvider.CLAIM_USER_ID, Long.class);
+        if (id == null) {
+            return null;
+        }
+        Long version = claims.get(JwtTokenProvider.CLAIM_VERSION, Long.class);
+        return AuthenticatedUser.builder()
+                .id(id)
+                .email(claims.getSubject())
+                .publicUsername(claims.get(JwtTokenProvider.CLAIM_USERNAME, String.class))
+                .role(Role.valueOf(claims.get(JwtTokenProvider.CLAIM_ROLE, String.class)))
+                .planType(PlanType.valueOf(claims.get(JwtTokenProvider.CLAIM_PLAN, String.class)))
+                .tokenVersion(version != null ? version : 0L)
+                .active(true)
+                .build();
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.singletonList(new SimpleGrantedAuthority(role.name()));
+    }
+
+    @Override
+    public String getPassword() {
+        return passwordHash != null ? passwordHash : "";
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return active;
+    }
+}
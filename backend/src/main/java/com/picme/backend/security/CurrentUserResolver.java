@@ -0,0 +1,44 @@
+package com.picme.backend.security;
+
+import com.picme.backend.exception.ApiException;
+import com.picme.backend.model.User;
+import com.picme.backend.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * 現在のリクエストの認証済みユーザーを解決する
+ * SecurityContext のプリンシパルが対象ユーザーであればDBを参照せずに返し、
+ * それ以外（非同期処理など）の場合のみユーザーを読み込む。
+ */
+@Component
+@RequiredArgsConstructor
+public class CurrentUserResolver {
+
+    private final UserRepository userRepository;
+
+    /**
+     * メールアドレスに対応する認証済みユーザーを取得
+     */
+    public AuthenticatedUser resolve(String email) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null
+                && authentication.getPrincipal() instanceof AuthenticatedUser principal
+                && principal.getEmail().equals(email)) {
+            return principal;
+        }
+
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(ApiException::userNotFound);
+        return AuthenticatedUser.from(user);
+    }
+
+    /**
+     * 関連付け用のユーザー参照を取得（DBアクセスなし）
+     */
+    public User reference(AuthenticatedUser principal) {
+        return userRepository.getReferenceById(principal.getId());
+    }
+}
@@ -1,5 +1,6 @@
 package com.picme.backend.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -28,6 +29,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtTokenProvider jwtTokenProvider;
     private final CustomUserDetailsService userDetailsService;
     private final AdminUserDetailsService adminUserDetailsService;
+    private final PrincipalCache principalCache;
 
     @Override
     protected void doFilterInternal(
@@ -38,15 +40,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && jwtTokenProvider.validateToken(jwt)) {
-                String email = jwtTokenProvider.getEmailFromToken(jwt);
+            // 署名検証とクレーム取得は1回で行う
+            Claims claims = StringUtils.hasText(jwt) ? jwtTokenProvider.parseClaims(jwt) : null;
 
-                // 管理者トークンかどうかを判定
+            if (claims != null) {
+                String email = claims.getSubject();
+
+                // 管理者トークンかどうかを判定（プリンシパルはキャッシュから取得）
                 UserDetails userDetails;
-                if (jwtTokenProvider.isAdminToken(jwt)) {
-                    userDetails = adminUserDetailsService.loadUserByUsername(email);
+                if (jwtTokenProvider.isAdminClaims(claims)) {
+                    userDetails = principalCache.getAdmin(email, () -> adminUserDetailsService.loadUserByUsername(email));
                 } else {
-                    userDetails = userDetailsService.loadUserByUsername(email);
+                    userDetails = resolveUser(claims, email);
+                }
+
+                if (userDetails == null) {
+                    // 古いバージョンのトークン。未認証として扱い、クライアントにトークン更新させる
+                    filterChain.doFilter(request, response);
+                    return;
                 }
 
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
@@ -66,6 +77,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * 一般ユーザーのプリンシパルを解決
+     * クレームにユーザー情報があればそれを使い、キャッシュ済みの現在のトークンバージョンと照合する。
+     * 旧形式のトークンはユーザー情報をキャッシュ（なければDB）から取得する。
+     */
+    private AuthenticatedUser resolveUser(Claims claims, String email) {
+        AuthenticatedUser current = principalCache.getUser(email, () -> userDetailsService.loadUserByUsername(email));
+
+        AuthenticatedUser fromToken = AuthenticatedUser.fromClaims(claims);
+        if (fromToken == null) {
+            return current;
+        }
+
+        // トークンの方が新しい場合は、このインスタンスのキャッシュが古いので読み直す
+        if (fromToken.getTokenVersion() > current.getTokenVersion()) {
+            principalCache.invalidate(email);
+            current = principalCache.getUser(email, () -> userDetailsService.loadUserByUsername(email));
+        }
+
+        if (fromToken.getTokenVersion() != current.getTokenVersion()) {
+            log.debug("Rejected stale access token for: {}", email);
+            return null;
+        }
+        return fromToken;
+    }
+
     /**
      * リクエストヘッダーからJWTトークンを取得
      */
@@ -1,5 +1,6 @@
 package com.picme.backend.security;
 
+import com.picme.backend.model.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
@@ -19,7 +20,15 @@ import java.util.Date;
 @Slf4j
 public class JwtTokenProvider {
 
+    // アクセストークンのクレーム名
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_USERNAME = "username";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_PLAN = "plan";
+    public static final String CLAIM_VERSION = "ver";
+
     private final SecretKey secretKey;
+    private final JwtParser parser;
     private final long accessTokenExpiration;
     private final long refreshTokenExpiration;
 
@@ -29,6 +38,8 @@ public class JwtTokenProvider {
             @Value("${jwt.refresh-expiration}") long refreshTokenExpiration) {
 
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        // パーサーはスレッドセーフなため1つを使い回す
+        this.parser = Jwts.parser().verifyWith(secretKey).build();
         this.accessTokenExpiration = accessTokenExpiration;
         this.refreshTokenExpiration = refreshTokenExpiration;
     }
@@ -57,6 +68,28 @@ public class JwtTokenProvider {
                 .compact();
     }
 
+    /**
+     * アクセストークンを生成（ユーザーID・ロール・プラン・バージョンを含む）
+     * 認可判定にDBを参照せずに済むよう、サービスが必要とする情報をクレームに持たせる
+     */
+    public String generateAccessToken(User user) {
+        Date now = new Date();
+        Date expiryDate = new Date(now.getTime() + accessTokenExpiration);
+
+        return Jwts.builder()
+                .subject(user.getEmail())
+                .issuedAt(now)
+                .expiration(expiryDate)
+                .claim("type", "access")
+                .claim(CLAIM_USER_ID, user.getId())
+                .claim(CLAIM_USERNAME, user.getUsername())
+                .claim(CLAIM_ROLE, user.getRole().name())
+                .claim(CLAIM_PLAN, user.getPlanType().name())
+                .claim(CLAIM_VERSION, user.getTokenVersion() != null ? user.getTokenVersion() : 0L)
+                .signWith(secretKey)
+                .compact();
+    }
+
     /**
      * 管理者用アクセストークンを生成
      */
@@ -78,17 +111,15 @@ public class JwtTokenProvider {
      * トークンが管理者トークンかどうかを確認
      */
     public boolean isAdminToken(String token) {
-        try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(secretKey)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+        Claims claims = parseClaims(token);
+        return claims != null && isAdminClaims(claims);
+    }
 
-            return Boolean.TRUE.equals(claims.get("admin", Boolean.class));
-        } catch (Exception ex) {
-            return false;
-        }
+    /**
+     * クレームが管理者トークンのものかどうかを確認
+     */
+    public boolean isAdminClaims(Claims claims) {
+        return Boolean.TRUE.equals(claims.get("admin", Boolean.class));
     }
 
     /**
@@ -111,25 +142,16 @@ public class JwtTokenProvider {
      * トークンからメールアドレスを取得
      */
     public String getEmailFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(secretKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-
-        return claims.getSubject();
+        return parser.parseSignedClaims(token).getPayload().getSubject();
     }
 
     /**
-     * トークンの検証
+     * トークンを検証してクレームを取得（署名検証は1回のみ）
+     * 無効なトークンの場合はnull
      */
-    public boolean validateToken(String token) {
+    public Claims parseClaims(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(secretKey)
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            return parser.parseSignedClaims(token).getPayload();
         } catch (MalformedJwtException ex) {
             log.error("Invalid JWT token: {}", ex.getMessage());
         } catch (ExpiredJwtException ex) {
@@ -141,7 +163,14 @@ public class JwtTokenProvider {
         } catch (SecurityException ex) {
             log.error("JWT signature validation failed: {}", ex.getMessage());
         }
-        return false;
+        return null;
+    }
+
+    /**
+     * トークンの検証
+     */
+    public boolean validateToken(String token) {
+        return parseClaims(token) != null;
     }
 
     /**
@@ -149,12 +178,7 @@ public class JwtTokenProvider {
      */
     public boolean isRefreshToken(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(secretKey)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-
+            Claims claims = parser.parseSignedClaims(token).getPayload();
             return "refresh".equals(claims.get("type", String.class));
         } catch (Exception ex) {
             return false;
@@ -0,0 +1,218 @@
+package com.picme.backend.security;
+
+import com.picme.backend.exception.ApiException;
+import com.picme.backend.metrics.LatencyHistogram;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 専用スレッドプールで実行するBCryptパスワードエンコーダー
+ * ハッシュ計算（1回数百ミリ秒のCPU処理）をリクエストスレッドから切り離し、同時実行数を workers に抑える。
+ * ログインが集中しても他のエンドポイントのCPUを奪わない。
+ * 待ち行列が満杯の場合や max-wait-ms 以内に終わらない場合は 503 を返す。
+ *
+ * コストは起動時に計測し、1回のハッシュが target-ms 以内に収まる最大値にする（cost を指定した場合は固定）。
+ * 計測値はインスタンスごとに変わり得るため、min-cost は本番のコスト（12）を下限とする。
+ * 保存済みハッシュのコストが現在より低い場合だけ upgradeEncoding() が true を返し、ログイン成功時に再ハッシュされる。
+ * 高いコストのハッシュは下げない（インスタンス間でコストが往復しないようにする）。
+ */
+@Component
+@Slf4j
+public class PooledPasswordEncoder implements PasswordEncoder {
+
+    private final BCryptPasswordEncoder delegate;
+    private final int cost;
+    private final long targetMillis;
+    private final long maxWaitMillis;
+    private final int workers;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor executor;
+
+    private final LatencyHistogram queueWait;
+    private final LatencyHistogram hashTime;
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public PooledPasswordEncoder(
+            @Value("${app.password-hashing.cost:0}") int fixedCost,
+            @Value("${app.password-hashing.target-ms:250}") long targetMillis,
+            @Value("${app.password-hashing.min-cost:12}") int minCost,
+            @Value("${app.password-hashing.max-cost:14}") int maxCost,
+            @Value("${app.password-hashing.workers:2}") int workers,
+            @Value("${app.password-hashing.queue-capacity:50}") int queueCapacity,
+            @Value("${app.password-hashing.max-wait-ms:5000}") long maxWaitMillis,
+            @Value("${app.metrics.latency-window-minutes:5}") long latencyWindowMinutes) {
+        this.targetMillis = targetMillis;
+        this.cost = fixedCost > 0 ? fixedCost : calibrate(targetMillis, minCost, maxCost);
+        this.delegate = new BCryptPasswordEncoder(cost);
+        this.maxWaitMillis = maxWaitMillis;
+        this.workers = Math.max(1, workers);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.executor = new ThreadPoolExecutor(this.workers, this.workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.queueCapacity), namedThreads("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.queueWait = new LatencyHistogram(latencyWindowMinutes, TimeUnit.MINUTES, 10);
+        this.hashTime = new LatencyHistogram(latencyWindowMinutes, TimeUnit.MINUTES, 10);
+        log.info("Password hashing: bcrypt cost={}, workers={}, queueCapacity={}", cost, this.workers, this.queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * 保存済みハッシュのコストが現在のコストより低い場合はtrue
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int stored = costOf(encodedPassword);
+        return stored > 0 && stored < cost;
+    }
+
+    public Stats stats() {
+        return new Stats(
+                cost,
+                targetMillis,
+                workers,
+                executor.getActiveCount(),
+                executor.getQueue().size(),
+                queueCapacity,
+                completed.get(),
+                rejected.get(),
+                queueWait.snapshot(),
+                hashTime.snapshot());
+    }
+
+    private <T> T execute(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                queueWait.record(startedAt - submittedAt);
+                try {
+                    return task.call();
+                } finally {
+                    hashTime.record(System.nanoTime() - startedAt);
+                    completed.incrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw busy();
+        }
+
+        try {
+            return future.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.incrementAndGet();
+            throw busy();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw busy();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static ApiException busy() {
+        return ApiException.serviceUnavailable("ただいま混み合っています。しばらくしてから再度お試しください");
+    }
+
+    /**
+     * 1回のハッシュが目標時間以内に収まる最大のコストを求める
+     * 最小コストで数回計測し、コストを1上げるごとに2倍になるとして推定する。
+     */
+    private static int calibrate(long targetMillis, int minCost, int maxCost) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", BCrypt.gensalt(minCost));
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        double estimatedMillis = best / 1_000_000.0;
+        int cost = minCost;
+        while (cost < maxCost && estimatedMillis * 2 <= targetMillis) {
+            cost++;
+            estimatedMillis *= 2;
+        }
+        log.info("Calibrated bcrypt cost {} (~{}ms per hash, target {}ms)", cost, Math.round(estimatedMillis), targetMillis);
+        return cost;
+    }
+
+    /**
+     * BCryptハッシュ（$2a$12$...）からコストを取得（形式が異なる場合は0）
+     */
+    private static int costOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$'
+                || encodedPassword.charAt(3) != '$' || encodedPassword.charAt(6) != '$') {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * パスワードハッシュ処理の統計
+     *
+     * @param rejected 待ち行列が満杯、または待ち時間の上限を超えて断った数
+     */
+    public record Stats(
+            int cost,
+            long targetMs,
+            int workers,
+            int active,
+            int queued,
+            int queueCapacity,
+            long completed,
+            long rejected,
+            LatencyHistogram.Snapshot queueWait,
+            LatencyHistogram.Snapshot hashTime
+    ) {}
+}
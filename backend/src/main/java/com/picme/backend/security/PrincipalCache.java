@@ -0,0 +1,70 @@
+package com.picme.backend.security;
+
+import com.picme.backend.util.LruTtlCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * 認証済みプリンシパルのキャッシュ
+ * JWTの subject（メールアドレス）をキーに UserDetails を短時間保持し、
+ * 認証済みリクエストごとのユーザー検索を省く。
+ * 停止・再開・プラン変更時は invalidate() で即時に破棄する。
+ */
+@Component
+public class PrincipalCache {
+
+    private static final String USER_PREFIX = "user:";
+    private static final String ADMIN_PREFIX = "admin:";
+
+    private final LruTtlCache<String, UserDetails> cache;
+
+    public PrincipalCache(
+            @Value("${app.principal-cache.max-size:10000}") int maxSize,
+            @Value("${app.principal-cache.ttl-seconds:30}") long ttlSeconds) {
+        this.cache = new LruTtlCache<>(maxSize, ttlSeconds * 1000);
+    }
+
+    /**
+     * ユーザーのプリンシパルを取得（未キャッシュならloaderで読み込む）
+     */
+    public AuthenticatedUser getUser(String email, Supplier<AuthenticatedUser> loader) {
+        return (AuthenticatedUser) cache.getOrLoad(USER_PREFIX + email, key -> loader.get());
+    }
+
+    /**
+     * 管理者のプリンシパルを取得（未キャッシュならloaderで読み込む）
+     */
+    public UserDetails getAdmin(String email, Supplier<UserDetails> loader) {
+        return cache.getOrLoad(ADMIN_PREFIX + email, key -> loader.get());
+    }
+
+    /**
+     * ユーザーのプリンシパルを破棄
+     */
+    public void invalidate(String email) {
+        String key = USER_PREFIX + email;
+        cache.invalidate(key);
+
+        // コミット前に別リクエストが旧データを再キャッシュする可能性があるため、コミット後にも破棄する
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(key);
+                }
+            });
+        }
+    }
+
+    /**
+     * キャッシュ統計を取得
+     */
+    public LruTtlCache.Stats stats() {
+        return cache.stats();
+    }
+}
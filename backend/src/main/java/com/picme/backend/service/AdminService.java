@@ -2,10 +2,17 @@ package com.picme.backend.service;
 
 import com.picme.backend.dto.request.AdminCreateUserRequest;
 import com.picme.backend.dto.request.InquiryStatusUpdateRequest;
+import com.picme.backend.analytics.PageViewBuffer;
 import com.picme.backend.dto.response.*;
+import com.picme.backend.metrics.RequestMetrics;
+import com.picme.backend.security.PooledPasswordEncoder;
+import com.picme.backend.util.LruTtlCache;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * 管理者サービスインターフェース
  */
@@ -31,4 +38,16 @@ public interface AdminService {
 
     // システムメトリクス
     SystemMetricsResponse getSystemMetrics();
+    Map<String, LruTtlCache.Stats> getCacheStats();
+    PageViewBuffer.Stats getPageViewBufferStats();
+    ArtworkUploadService.Stats getArtworkUploadStats();
+    ImageVariantService.Stats getImageVariantStats();
+    List<RequestMetrics.RouteStats> getRouteStats();
+    StripeEventInboxService.Stats getStripeEventStats();
+    EmailService.Stats getEmailOutboxStats();
+    PooledPasswordEncoder.Stats getPasswordHashingStats();
+
+    // サブスクリプション照合
+    SubscriptionReconcileService.Stats getSubscriptionReconcileStats();
+    void startSubscriptionReconcile();
 }
@@ -3,6 +3,7 @@ package com.picme.backend.service;
 import com.picme.backend.dto.request.ArtworkReorderRequest;
 import com.picme.backend.dto.request.ArtworkRequest;
 import com.picme.backend.dto.response.ArtworkResponse;
+import com.picme.backend.dto.response.ArtworkStatusResponse;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -28,12 +29,18 @@ public interface ArtworkService {
     ArtworkResponse createArtwork(String email, ArtworkRequest request);
 
     /**
-     * 画像ファイルをアップロードして作品を作成
+     * 画像ファイルを受け付けて作品を作成
+     * 作品は PROCESSING 状態で登録し、画像のアップロードは非同期で行う
      */
     ArtworkResponse createArtworkWithUpload(String email, MultipartFile file,
                                             String title, String description,
                                             Long categoryId, java.util.List<Long> tagIds);
 
+    /**
+     * 作品画像の処理状態を取得
+     */
+    ArtworkStatusResponse getArtworkStatus(String email, Long artworkId);
+
     /**
      * 作品を更新
      */
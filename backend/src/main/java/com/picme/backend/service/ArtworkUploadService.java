@@ -0,0 +1,57 @@
+package com.picme.backend.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Path;
+
+/**
+ * 作品画像の非同期アップロードサービスインターフェース
+ * リクエストスレッドではファイルを一時領域に書き出して作品を PROCESSING で登録するだけにし、
+ * 外部ストレージへのアップロードはワーカーで行う。
+ */
+public interface ArtworkUploadService {
+
+    /**
+     * アップロードされたファイルを一時ファイルへ書き出す
+     *
+     * @return 一時ファイルのパス
+     */
+    Path spool(MultipartFile file);
+
+    /**
+     * 一時ファイルを保持するインスタンスの識別子（作品に記録し、再投入・失敗判定の所有者とする）
+     */
+    String getInstanceId();
+
+    /**
+     * 一時ファイルを削除
+     */
+    void discard(Path spool);
+
+    /**
+     * PROCESSING の作品をアップロード処理に投入（コミット後に呼び出すこと）
+     *
+     * @return キューが満杯で受け付けられなかった場合はfalse
+     */
+    boolean submit(Long artworkId);
+
+    /**
+     * ワーカーの統計を取得
+     */
+    Stats getStats();
+
+    /**
+     * アップロードワーカーの統計
+     */
+    record Stats(
+            int workers,
+            int active,
+            int queued,
+            int queueCapacity,
+            long submitted,
+            long rejected,
+            long completed,
+            long failed,
+            long retries
+    ) {}
+}
@@ -2,6 +2,8 @@ package com.picme.backend.service;
 
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
+
 /**
  * Cloudinary画像アップロードサービスインターフェース
  */
@@ -9,6 +11,7 @@ public interface CloudinaryService {
 
     /**
      * 画像をアップロード
+     * ファイル内容はヒープに読み込まず、一時ファイル経由でストリーム送信する
      *
      * @param file   アップロードするファイル
      * @param folder Cloudinary上のフォルダ（例: "avatars", "headers", "artworks"）
@@ -17,6 +20,23 @@ public interface CloudinaryService {
      */
     CloudinaryUploadResult uploadImage(MultipartFile file, String folder, Long userId);
 
+    /**
+     * 一時ファイルから画像をアップロード（非同期アップロード用）
+     * ファイル内容はヒープに読み込まず、ファイルとしてアップローダーに渡す
+     *
+     * @param file   アップロードするファイルのパス（validateUpload で検証済みであること）
+     * @param folder Cloudinary上のフォルダ
+     * @param userId ユーザーID（フォルダ分けに使用）
+     * @return アップロード結果
+     */
+    CloudinaryUploadResult uploadImage(Path file, String folder, Long userId);
+
+    /**
+     * アップロード前のファイル検証（形式・サイズ・Cloudinary設定）
+     * 受付時点で不正なファイルを弾き、非同期処理で失敗させないために使う
+     */
+    void validateUpload(MultipartFile file);
+
     /**
      * 画像を削除
      *
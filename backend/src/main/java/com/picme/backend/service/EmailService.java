@@ -2,6 +2,8 @@ package com.picme.backend.service;
 
 /**
  * メール送信サービスインターフェース
+ * 各メソッドは送信依頼を email_outbox に保存するだけで、送信はバックグラウンドで行う。
+ * 呼び出し元のトランザクション内で呼ぶと同じトランザクションで保存され、ロールバック時は送信されない。
  */
 public interface EmailService {
 
@@ -31,4 +33,23 @@ public interface EmailService {
      * @param message     メッセージ本文
      */
     void sendInquiryNotification(String to, String senderName, String senderEmail, String subject, String message);
+
+    /**
+     * 送信処理の統計を取得
+     */
+    Stats getStats();
+
+    /**
+     * メール送信の統計（件数は起動後の累計、pending は未送信の件数）
+     */
+    record Stats(
+            int workers,
+            int active,
+            long enqueued,
+            long sent,
+            long retries,
+            long failed,
+            long pending,
+            long oldestPendingSeconds
+    ) {}
 }
@@ -0,0 +1,76 @@
+package com.picme.backend.service;
+
+import com.picme.backend.model.PlanType;
+import com.picme.backend.util.LruTtlCache;
+import lombok.Builder;
+
+/**
+ * プランの利用権限サービスインターフェース
+ * プランごとの上限と利用可能な機能を1か所で定義し、各サービスの判定はここを参照する
+ * 機能・上限の判定は forUser() でユーザーの有効なプランから行い、トークンに含まれるプランは使わない
+ */
+public interface EntitlementService {
+
+    /**
+     * プランの利用権限を取得（事前に構築した表から返すためDBアクセスなし）
+     * 料金の集計や表示など、特定のプランの定義を参照する場合に使う
+     */
+    PlanEntitlements forPlan(PlanType planType);
+
+    /**
+     * ユーザーの有効なプランの利用権限を取得（機能・上限の判定用）
+     */
+    PlanEntitlements forUser(Long userId);
+
+    /**
+     * ユーザーの有効なプランを取得
+     * 有効（ACTIVE / TRIALING）なサブスクリプションがあればそのプラン、なければユーザーのプラン。
+     * 短時間キャッシュし、プラン・サブスクリプション変更時に invalidate() で破棄する。
+     */
+    PlanType getEffectivePlan(Long userId);
+
+    /**
+     * ユーザーの有効なプランのキャッシュを破棄
+     */
+    void invalidate(Long userId);
+
+    /**
+     * キャッシュ統計を取得
+     */
+    LruTtlCache.Stats getCacheStats();
+
+    /**
+     * プランの利用権限
+     *
+     * @param maxCategories 0 の場合はカテゴリー機能を利用できない
+     * @param customCssMaxLines 0 の場合はカスタムCSSを利用できない
+     */
+    @Builder
+    record PlanEntitlements(
+            PlanType planType,
+            long monthlyPrice,
+            int maxArtworks,
+            long maxStorageBytes,
+            int maxPosts,
+            int maxSocialLinks,
+            int maxCategories,
+            boolean tags,
+            boolean markdown,
+            boolean analytics,
+            boolean inquiries,
+            int customCssMaxLines,
+            boolean hasAds
+    ) {
+        public long maxStorageMb() {
+            return maxStorageBytes / (1024 * 1024);
+        }
+
+        public boolean categories() {
+            return maxCategories > 0;
+        }
+
+        public boolean customCss() {
+            return customCssMaxLines > 0;
+        }
+    }
+}
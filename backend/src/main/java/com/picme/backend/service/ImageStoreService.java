@@ -0,0 +1,32 @@
+package com.picme.backend.service;
+
+import com.picme.backend.service.CloudinaryService.CloudinaryUploadResult;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Path;
+
+/**
+ * 重複排除付きの画像保存サービスインターフェース
+ * ユーザーごとに内容のSHA-256で画像を識別し、同じ画像は既存の publicId / URL を再利用して
+ * ストレージへのアップロードを省略する。削除は参照数で管理する。
+ */
+public interface ImageStoreService {
+
+    /**
+     * アップロードファイルを保存（同じ内容の画像があれば再利用）
+     */
+    CloudinaryUploadResult store(MultipartFile file, String folder, Long userId);
+
+    /**
+     * ファイルを保存（同じ内容の画像があれば再利用）
+     *
+     * @param contentHash 計算済みの内容ハッシュ（nullの場合はファイルから計算）
+     */
+    CloudinaryUploadResult store(Path file, String contentHash, String folder, Long userId);
+
+    /**
+     * 画像の参照を1つ解放し、参照がなくなればストレージから削除
+     * トランザクション内で呼ばれた場合、ストレージからの削除はコミット後に行う
+     */
+    void release(String publicId);
+}
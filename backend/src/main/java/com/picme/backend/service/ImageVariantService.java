@@ -0,0 +1,52 @@
+package com.picme.backend.service;
+
+import com.picme.backend.model.ImageVariant;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * レスポンシブ画像バリアント生成サービスインターフェース
+ * アップロード済みの作品画像から複数幅の縮小画像を生成し、作品に保存する
+ */
+public interface ImageVariantService {
+
+    /**
+     * 作品のバリアント生成を投入
+     * 受け付けた場合は元画像ファイルの所有権を引き継ぎ、処理後に削除する
+     *
+     * @return キューが満杯などで受け付けなかった場合はfalse（ファイルは呼び出し側で削除する）
+     */
+    boolean submit(Long artworkId, Long userId, Path source);
+
+    /**
+     * 受け付け済みで処理が終わっていない元画像ファイル（一時ファイルの掃除で削除しないため）
+     */
+    Set<Path> pendingSources();
+
+    /**
+     * バリアント画像をストレージから削除
+     */
+    void deleteVariants(List<ImageVariant> variants);
+
+    /**
+     * 生成処理の統計を取得
+     */
+    Stats getStats();
+
+    /**
+     * バリアント生成の統計
+     */
+    record Stats(
+            int workers,
+            int active,
+            int queued,
+            int queueCapacity,
+            long submitted,
+            long rejected,
+            long completed,
+            long skipped,
+            long failed
+    ) {}
+}
@@ -0,0 +1,48 @@
+package com.picme.backend.service;
+
+import com.picme.backend.dto.response.PublicPageResponse;
+import com.picme.backend.model.User;
+import com.picme.backend.util.LruTtlCache;
+
+import java.util.Optional;
+
+/**
+ * 公開ページサービスインターフェース
+ * 公開ページ全体を一括で組み立てる読み取り専用の経路
+ */
+public interface PublicPageService {
+
+    /**
+     * ユーザー名で公開ページデータを取得
+     */
+    PublicPageResponse getPublicPage(String username);
+
+    /**
+     * 公開ページの内容バージョンを取得（存在しない・非アクティブの場合は空）
+     * ページ本体を組み立てずにETag / Last-Modifiedを判定するために使う
+     */
+    Optional<PageVersion> getPageVersion(String username);
+
+    /**
+     * ユーザーの公開ページを更新済みとして扱う（内容バージョンを進め、キャッシュを破棄）
+     * 公開データの書き込み時に呼び出す。トランザクション内ではコミット後にユーザーごとに1回だけバージョンを進める
+     */
+    void invalidate(Long userId, String username);
+
+    /**
+     * ユーザーの公開ページを更新済みとして扱う
+     */
+    default void invalidate(User user) {
+        invalidate(user.getId(), user.getUsername());
+    }
+
+    /**
+     * 公開ページキャッシュの統計を取得
+     */
+    LruTtlCache.Stats getCacheStats();
+
+    /**
+     * 公開ページの内容バージョン
+     */
+    record PageVersion(Long userId, String etag, long lastModifiedMillis) {}
+}
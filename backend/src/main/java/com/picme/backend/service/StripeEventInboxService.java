@@ -0,0 +1,39 @@
+package com.picme.backend.service;
+
+/**
+ * Stripeイベント受信箱サービスインターフェース
+ * Webhookは署名を検証して受信箱に保存するだけで応答し、反映はワーカーが非同期に行う。
+ * 同じイベントの再送は event_id で無視する。
+ */
+public interface StripeEventInboxService {
+
+    /**
+     * Webhookのイベントを検証して受信箱に保存
+     *
+     * @return 新規に保存した場合true（再送・Stripe未設定の場合false）
+     */
+    boolean receive(String payload, String signature);
+
+    /**
+     * 受信箱・ワーカーの統計
+     */
+    Stats getStats();
+
+    /**
+     * @param pending            未処理（処理中・再試行待ちを含む）の件数
+     * @param oldestPendingSeconds 最も古い未処理イベントの受信からの経過秒数
+     * @param lastLagMillis      直近に反映したイベントの受信から反映までの時間
+     */
+    record Stats(
+            int workers,
+            int active,
+            long received,
+            long duplicates,
+            long processed,
+            long retries,
+            long failed,
+            long pending,
+            long oldestPendingSeconds,
+            long lastLagMillis
+    ) {}
+}
@@ -0,0 +1,40 @@
+package com.picme.backend.service;
+
+import com.stripe.exception.StripeException;
+
+import java.util.Optional;
+
+/**
+ * Stripe API の呼び出し口（サブスクリプション照合用）
+ * app.stripe-gateway.type で実装を切り替える（stripe: Stripe API / fake: ローカルのスタブ）
+ */
+public interface StripeGateway {
+
+    /**
+     * 呼び出し可能か（Stripe未設定の場合はfalse）
+     */
+    boolean isAvailable();
+
+    /**
+     * サブスクリプションを取得
+     * Stripe側に存在しない場合は空を返す。レート制限時は StripeException（ステータス429）を投げる。
+     */
+    Optional<RemoteSubscription> getSubscription(String subscriptionId) throws StripeException;
+
+    /**
+     * Stripe側のサブスクリプション状態
+     *
+     * @param status Stripeのステータス文字列（active / past_due / canceled など）
+     * @param currentPeriodStart エポック秒
+     * @param currentPeriodEnd エポック秒
+     */
+    record RemoteSubscription(
+            String id,
+            String customerId,
+            String status,
+            String priceId,
+            boolean cancelAtPeriodEnd,
+            Long currentPeriodStart,
+            Long currentPeriodEnd
+    ) {}
+}
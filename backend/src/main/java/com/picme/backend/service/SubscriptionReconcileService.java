@@ -0,0 +1,42 @@
+package com.picme.backend.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * サブスクリプション照合サービスインターフェース
+ * ローカルのサブスクリプションをStripe側の状態と突き合わせ、Webhookの取りこぼしを補正する
+ */
+public interface SubscriptionReconcileService {
+
+    /**
+     * 照合をバックグラウンドで開始
+     *
+     * @return このインスタンスで実行中・Stripe未設定などで開始しなかった場合はfalse
+     *         （他のインスタンスが実行中の場合は開始後に何もせず終わる）
+     */
+    boolean trigger();
+
+    /**
+     * 照合の統計を取得
+     */
+    Stats getStats();
+
+    /**
+     * 照合の統計（件数は起動後の累計）
+     *
+     * @param cursor 処理済みの最後のサブスクリプションID（0 は次回先頭から）
+     */
+    record Stats(
+            boolean running,
+            long cursor,
+            LocalDateTime lastRunStartedAt,
+            LocalDateTime lastRunFinishedAt,
+            LocalDateTime lastCompletedAt,
+            long checked,
+            long corrected,
+            long skipped,
+            long missing,
+            long errors,
+            long rateLimited
+    ) {}
+}
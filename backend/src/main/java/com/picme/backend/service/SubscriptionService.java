@@ -4,6 +4,10 @@ import com.picme.backend.dto.request.CheckoutRequest;
 import com.picme.backend.dto.response.CheckoutResponse;
 import com.picme.backend.dto.response.SubscriptionResponse;
 import com.picme.backend.model.PlanType;
+import com.picme.backend.model.Subscription;
+import com.stripe.model.Event;
+
+import java.util.Optional;
 
 /**
  * サブスクリプションサービスインターフェース
@@ -31,12 +35,22 @@ public interface SubscriptionService {
     SubscriptionResponse resumeSubscription(String email);
 
     /**
-     * Stripe Webhookイベントを処理
+     * 署名検証済みのStripeイベントをサブスクリプションへ反映
+     * 受信箱のワーカーから呼ばれる（呼び出し側のトランザクションに参加）
+     */
+    void applyWebhookEvent(Event event);
+
+    /**
+     * Stripe側の状態に合わせてサブスクリプションとユーザーのプランを補正
+     * 照合バッチから呼ばれる（呼び出し側のトランザクションに参加）
+     *
+     * @param remote Stripe側の状態（Stripe側に存在しない場合は空）
+     * @return 補正した場合はtrue
      */
-    void handleWebhookEvent(String payload, String signature);
+    boolean reconcileWithStripe(Subscription subscription, Optional<StripeGateway.RemoteSubscription> remote);
 
     /**
-     * ユーザーのプランタイプを取得
+     * ユーザーの有効なプランタイプを取得（EntitlementService のキャッシュから）
      */
     PlanType getUserPlanType(Long userId);
 }
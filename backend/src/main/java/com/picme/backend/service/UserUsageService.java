@@ -0,0 +1,73 @@
+package com.picme.backend.service;
+
+import com.picme.backend.model.Artwork;
+import com.picme.backend.model.UserUsage;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * ユーザー使用量サービスインターフェース
+ * user_usage の事前集計値でプラン制限を判定する。
+ * 加算・減算は呼び出し側のトランザクション内で行い、作成・削除と一緒にコミット・ロールバックされる。
+ */
+public interface UserUsageService {
+
+    /**
+     * 上限を超えない場合のみ使用量を加算
+     * 判定と加算を1つのUPDATEで行うため、同時に作成されても上限を超えない
+     *
+     * @return 加算後の値（上限を超える場合は空）
+     */
+    OptionalLong tryIncrement(Long userId, Counter counter, long amount, long limit);
+
+    /**
+     * 使用量を減算（0未満にはしない）
+     */
+    void decrement(Long userId, Counter counter, long amount);
+
+    /**
+     * 作品の画像分のストレージ使用量を解放
+     * 同じ内容の画像を持つ他の作品が残っている場合は解放しない
+     */
+    void releaseArtworkStorage(Artwork artwork);
+
+    /**
+     * ユーザーの使用量を取得（未集計の場合は実データから集計した値）
+     */
+    UserUsage getUsage(Long userId);
+
+    /**
+     * 複数ユーザーの使用量をまとめて取得（一覧表示用、ユーザー数によらず最大2クエリ）
+     *
+     * @return ユーザーIDごとの使用量（存在しないユーザーは含まない）
+     */
+    Map<Long, UserUsage> getUsages(Collection<Long> userIds);
+
+    /**
+     * 全ユーザーの使用量を実データから再集計（ずれの補正）
+     */
+    void reconcile();
+
+    /**
+     * 使用量の種類と user_usage の列
+     */
+    enum Counter {
+        ARTWORKS("artwork_count"),
+        STORAGE_BYTES("storage_bytes"),
+        POSTS("post_count"),
+        SOCIAL_LINKS("social_link_count"),
+        CATEGORIES("category_count");
+
+        private final String column;
+
+        Counter(String column) {
+            this.column = column;
+        }
+
+        public String column() {
+            return column;
+        }
+    }
+}
@@ -42,6 +42,11 @@ public class AdminAuthServiceImpl implements AdminAuthService {
             throw ApiException.unauthorized("メールアドレスまたはパスワードが正しくありません");
         }
 
+        // ハッシュのコストが現在の設定より低い場合は再ハッシュ
+        if (passwordEncoder.upgradeEncoding(admin.getPasswordHash())) {
+            admin.setPasswordHash(passwordEncoder.encode(request.getPassword()));
+        }
+
         // 最終ログイン日時を更新
         admin.setLastLoginAt(LocalDateTime.now());
         adminUserRepository.save(admin);
@@ -1,15 +1,33 @@
 package com.picme.backend.service.impl;
 
+import com.picme.backend.analytics.PageViewBuffer;
 import com.picme.backend.dto.request.AdminCreateUserRequest;
 import com.picme.backend.dto.request.InquiryStatusUpdateRequest;
 import com.picme.backend.dto.response.*;
 import com.picme.backend.exception.ApiException;
 import com.picme.backend.model.*;
 import com.picme.backend.repository.*;
+import com.picme.backend.metrics.JdbcMetrics;
+import com.picme.backend.metrics.LatencyHistogram;
+import com.picme.backend.metrics.RequestMetrics;
+import com.picme.backend.metrics.RuntimeMetrics;
+import com.picme.backend.security.PooledPasswordEncoder;
+import com.picme.backend.security.PrincipalCache;
 import com.picme.backend.service.AdminService;
+import com.picme.backend.service.ArtworkUploadService;
+import com.picme.backend.service.EmailService;
+import com.picme.backend.service.EntitlementService;
+import com.picme.backend.service.ImageVariantService;
+import com.picme.backend.service.PublicPageService;
+import com.picme.backend.service.StripeEventInboxService;
+import com.picme.backend.service.SubscriptionReconcileService;
+import com.picme.backend.service.UserUsageService;
+import com.picme.backend.util.LruTtlCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -17,9 +35,10 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
-import java.lang.management.OperatingSystemMXBean;
 import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -35,47 +54,37 @@ public class AdminServiceImpl implements AdminService {
     private final UserRepository userRepository;
     private final ProfileRepository profileRepository;
     private final SubscriptionRepository subscriptionRepository;
-    private final ArtworkRepository artworkRepository;
-    private final SocialLinkRepository socialLinkRepository;
-    private final PostRepository postRepository;
     private final InquiryRepository inquiryRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PublicPageService publicPageService;
+    private final PrincipalCache principalCache;
+    private final PageViewBuffer pageViewBuffer;
+    private final ArtworkUploadService artworkUploadService;
+    private final ImageVariantService imageVariantService;
+    private final UserUsageService userUsageService;
+    private final EntitlementService entitlementService;
+    private final StripeEventInboxService stripeEventInboxService;
+    private final EmailService emailService;
+    private final PooledPasswordEncoder pooledPasswordEncoder;
+    private final SubscriptionReconcileService subscriptionReconcileService;
+    private final RequestMetrics requestMetrics;
+    private final JdbcMetrics jdbcMetrics;
+    private final RuntimeMetrics runtimeMetrics;
+
+    // プラン別ユーザー数の集計結果の保持期間（ダッシュボードと課金統計で共有）
+    @Value("${app.admin-dashboard.snapshot-ttl-ms:5000}")
+    private long planSnapshotTtlMillis;
+
+    private volatile PlanSnapshot planSnapshot;
+
+    private static final int RECENT_SUBSCRIPTION_LIMIT = 10;
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
-    // プラン別月額料金
-    private static final Map<PlanType, Long> PLAN_PRICES = Map.of(
-            PlanType.FREE, 0L,
-            PlanType.STARTER, 480L,
-            PlanType.PRO, 680L,
-            PlanType.STUDIO, 1980L
-    );
-
-    // プラン別制限
-    private static final Map<PlanType, Integer> ARTWORK_LIMITS = Map.of(
-            PlanType.FREE, 5,
-            PlanType.STARTER, 20,
-            PlanType.PRO, 50,
-            PlanType.STUDIO, 200
-    );
-
-    private static final Map<PlanType, Integer> SOCIAL_LINK_LIMITS = Map.of(
-            PlanType.FREE, 2,
-            PlanType.STARTER, 5,
-            PlanType.PRO, 10,
-            PlanType.STUDIO, Integer.MAX_VALUE
-    );
-
-    private static final Map<PlanType, Integer> POST_LIMITS = Map.of(
-            PlanType.FREE, 1,
-            PlanType.STARTER, 5,
-            PlanType.PRO, 20,
-            PlanType.STUDIO, Integer.MAX_VALUE
-    );
-
     @Override
     public AdminDashboardResponse getDashboard() {
-        long totalUsers = userRepository.count();
+        PlanSnapshot snapshot = getPlanSnapshot();
+        long totalUsers = snapshot.totalUsers();
 
         // プラン別ユーザー数
         Map<String, Long> usersByPlan = new HashMap<>();
@@ -84,13 +93,13 @@ public class AdminServiceImpl implements AdminService {
         long monthlyRevenue = 0;
 
         for (PlanType planType : PlanType.values()) {
-            long count = userRepository.countByPlanType(planType);
+            long count = snapshot.count(planType);
             usersByPlan.put(planType.name(), count);
             usersByPlanPercentage.put(planType.name(), totalUsers > 0 ? (count * 100.0 / totalUsers) : 0);
 
             if (planType != PlanType.FREE) {
                 paidUsers += count;
-                monthlyRevenue += count * PLAN_PRICES.get(planType);
+                monthlyRevenue += count * entitlementService.forPlan(planType).monthlyPrice();
             }
         }
 
@@ -150,6 +159,8 @@ public class AdminServiceImpl implements AdminService {
 
         profileRepository.save(profile);
 
+        planSnapshot = null;
+
         log.info("管理者によるユーザー作成: username={}, planType={}", user.getUsername(), user.getPlanType());
 
         return toAdminUserResponse(user);
@@ -172,7 +183,11 @@ public class AdminServiceImpl implements AdminService {
                 pageable
         );
 
-        return users.map(this::toAdminUserResponse);
+        // ページ内のユーザーの使用量をまとめて取得する
+        Map<Long, UserUsage> usages = userUsageService.getUsages(
+                users.getContent().stream().map(User::getId).toList());
+
+        return users.map(user -> toAdminUserResponse(user, usages.get(user.getId())));
     }
 
     @Override
@@ -189,6 +204,9 @@ public class AdminServiceImpl implements AdminService {
                 .orElseThrow(() -> ApiException.notFound("ユーザーが見つかりません"));
         user.setIsActive(false);
         userRepository.save(user);
+        publicPageService.invalidate(user);
+        userRepository.incrementTokenVersion(user.getId());
+        principalCache.invalidate(user.getEmail());
         log.info("ユーザーアカウント停止: userId={}", userId);
     }
 
@@ -199,19 +217,23 @@ public class AdminServiceImpl implements AdminService {
                 .orElseThrow(() -> ApiException.notFound("ユーザーが見つかりません"));
         user.setIsActive(true);
         userRepository.save(user);
+        publicPageService.invalidate(user);
+        userRepository.incrementTokenVersion(user.getId());
+        principalCache.invalidate(user.getEmail());
         log.info("ユーザーアカウント有効化: userId={}", userId);
     }
 
     @Override
     public AdminSubscriptionStatsResponse getSubscriptionStats() {
-        long totalUsers = userRepository.count();
+        PlanSnapshot snapshot = getPlanSnapshot();
+        long totalUsers = snapshot.totalUsers();
 
         Map<String, AdminSubscriptionStatsResponse.PlanStatsDto> planStats = new HashMap<>();
         long mrr = 0;
 
         for (PlanType planType : PlanType.values()) {
-            long count = userRepository.countByPlanType(planType);
-            long revenue = count * PLAN_PRICES.get(planType);
+            long count = snapshot.count(planType);
+            long revenue = count * entitlementService.forPlan(planType).monthlyPrice();
             mrr += revenue;
 
             planStats.put(planType.name(), AdminSubscriptionStatsResponse.PlanStatsDto.builder()
@@ -221,10 +243,9 @@ public class AdminServiceImpl implements AdminService {
                     .build());
         }
 
-        // 最近のサブスクリプション（アクティブなサブスクリプションを持つユーザー）
+        // 最近のサブスクリプション（請求期間の開始が新しい順、ユーザーも同じクエリで取得）
         List<AdminSubscriptionStatsResponse.RecentSubscriptionDto> recentSubscriptions =
-                subscriptionRepository.findAll().stream()
-                        .limit(10)
+                subscriptionRepository.findRecentWithUser(PageRequest.of(0, RECENT_SUBSCRIPTION_LIMIT)).stream()
                         .map(sub -> {
                             User user = sub.getUser();
                             return AdminSubscriptionStatsResponse.RecentSubscriptionDto.builder()
@@ -289,12 +310,11 @@ public class AdminServiceImpl implements AdminService {
 
     @Override
     public SystemMetricsResponse getSystemMetrics() {
-        OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
         MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
 
-        // CPU使用率（システム負荷平均）
-        double cpuLoad = osBean.getSystemLoadAverage();
-        if (cpuLoad < 0) cpuLoad = 0; // Windowsでは-1が返される場合がある
+        // CPU使用率（システム全体・このプロセス）
+        double cpuPercent = runtimeMetrics.systemCpuPercent();
+        double processCpuPercent = Math.max(0, runtimeMetrics.processCpuPercent());
 
         // メモリ使用率
         long usedMemory = memoryBean.getHeapMemoryUsage().getUsed();
@@ -306,10 +326,26 @@ public class AdminServiceImpl implements AdminService {
         double diskPercent = root.getTotalSpace() > 0 ?
                 ((root.getTotalSpace() - root.getFreeSpace()) * 100.0 / root.getTotalSpace()) : 0;
 
+        // 直近の時間窓の計測値
+        String window = requestMetrics.latencyWindowMinutes() + "m";
+        LatencyHistogram.Snapshot requestLatency = requestMetrics.latency();
+        LatencyHistogram.Snapshot statementLatency = jdbcMetrics.statements();
+        LatencyHistogram.Snapshot gcPauses = runtimeMetrics.gcPauses();
+        long[] gcTotals = runtimeMetrics.gcTotals();
+
+        // 接続プール（待ちスレッドがあれば飽和とみなす）
+        RuntimeMetrics.PoolStats pool = runtimeMetrics.pool();
+        double poolPercent = pool != null && pool.max() > 0 ? pool.active() * 100.0 / pool.max() : 0;
+        String poolStatus = pool != null && pool.waiting() > 0 ? "critical" : getResourceStatus(poolPercent);
+
         return SystemMetricsResponse.builder()
                 .cpu(SystemMetricsResponse.ResourceUsage.builder()
-                        .usagePercent(Math.min(cpuLoad * 10, 100)) // 簡易的な変換
-                        .status(getResourceStatus(cpuLoad * 10))
+                        .usagePercent(cpuPercent)
+                        .status(getResourceStatus(cpuPercent))
+                        .build())
+                .processCpu(SystemMetricsResponse.ResourceUsage.builder()
+                        .usagePercent(processCpuPercent)
+                        .status(getResourceStatus(processCpuPercent))
                         .build())
                 .memory(SystemMetricsResponse.ResourceUsage.builder()
                         .usagePercent(memoryPercent)
@@ -320,18 +356,123 @@ public class AdminServiceImpl implements AdminService {
                         .status(getResourceStatus(diskPercent))
                         .build())
                 .database(SystemMetricsResponse.DatabaseMetrics.builder()
-                        .activeConnections(10) // 実際はDataSourceから取得
-                        .maxConnections(100)
-                        .avgResponseTimeMs(25.0)
+                        .activeConnections(pool != null ? pool.active() : 0)
+                        .idleConnections(pool != null ? pool.idle() : 0)
+                        .maxConnections(pool != null ? pool.max() : 0)
+                        .threadsAwaitingConnection(pool != null ? pool.waiting() : 0)
+                        .status(poolStatus)
+                        .statements(statementLatency.count())
+                        .avgResponseTimeMs(statementLatency.meanMs())
+                        .p95ResponseTimeMs(statementLatency.p95Ms())
+                        .p99ResponseTimeMs(statementLatency.p99Ms())
+                        .period(window)
+                        .build())
+                .requests(SystemMetricsResponse.LatencyMetrics.builder()
+                        .count(requestLatency.count())
+                        .avgMs(requestLatency.meanMs())
+                        .p50Ms(requestLatency.p50Ms())
+                        .p95Ms(requestLatency.p95Ms())
+                        .p99Ms(requestLatency.p99Ms())
+                        .maxMs(requestLatency.maxMs())
+                        .period(window)
+                        .build())
+                .gc(SystemMetricsResponse.GcMetrics.builder()
+                        .collections(gcTotals[0])
+                        .totalTimeMs(gcTotals[1])
+                        .recentPauses(gcPauses.count())
+                        .p99PauseMs(gcPauses.p99Ms())
+                        .maxPauseMs(gcPauses.maxMs())
+                        .period(window)
                         .build())
                 .errors(SystemMetricsResponse.ErrorMetrics.builder()
-                        .error5xx(0) // 実際はログから集計
-                        .error4xx(0)
+                        .error5xx(requestMetrics.serverErrors24h())
+                        .error4xx(requestMetrics.clientErrors24h())
+                        .totalRequests(requestMetrics.requests24h())
                         .period("24h")
                         .build())
                 .build();
     }
 
+    @Override
+    public Map<String, LruTtlCache.Stats> getCacheStats() {
+        Map<String, LruTtlCache.Stats> stats = new LinkedHashMap<>();
+        stats.put("publicPage", publicPageService.getCacheStats());
+        stats.put("principal", principalCache.stats());
+        stats.put("effectivePlan", entitlementService.getCacheStats());
+        return stats;
+    }
+
+    @Override
+    public PageViewBuffer.Stats getPageViewBufferStats() {
+        return pageViewBuffer.stats();
+    }
+
+    @Override
+    public ArtworkUploadService.Stats getArtworkUploadStats() {
+        return artworkUploadService.getStats();
+    }
+
+    @Override
+    public ImageVariantService.Stats getImageVariantStats() {
+        return imageVariantService.getStats();
+    }
+
+    @Override
+    public List<RequestMetrics.RouteStats> getRouteStats() {
+        return requestMetrics.routes();
+    }
+
+    @Override
+    public StripeEventInboxService.Stats getStripeEventStats() {
+        return stripeEventInboxService.getStats();
+    }
+
+    @Override
+    public EmailService.Stats getEmailOutboxStats() {
+        return emailService.getStats();
+    }
+
+    @Override
+    public PooledPasswordEncoder.Stats getPasswordHashingStats() {
+        return pooledPasswordEncoder.stats();
+    }
+
+    @Override
+    public SubscriptionReconcileService.Stats getSubscriptionReconcileStats() {
+        return subscriptionReconcileService.getStats();
+    }
+
+    @Override
+    public void startSubscriptionReconcile() {
+        if (!subscriptionReconcileService.trigger()) {
+            throw ApiException.conflict("照合は実行中か、Stripeが設定されていません");
+        }
+    }
+
+    /**
+     * プラン別ユーザー数を取得（保持期間内は前回の集計結果を返す）
+     */
+    private PlanSnapshot getPlanSnapshot() {
+        PlanSnapshot snapshot = planSnapshot;
+        long now = System.currentTimeMillis();
+        if (snapshot != null && now - snapshot.loadedAt() < planSnapshotTtlMillis) {
+            return snapshot;
+        }
+
+        Map<PlanType, Long> counts = new EnumMap<>(PlanType.class);
+        long totalUsers = 0;
+        for (UserRepository.PlanCountView row : userRepository.countGroupByPlanType()) {
+            if (row.getPlanType() != null) {
+                counts.put(row.getPlanType(), row.getCount());
+            }
+            totalUsers += row.getCount();
+        }
+
+        snapshot = new PlanSnapshot(totalUsers, counts, now);
+        planSnapshot = snapshot;
+        return snapshot;
+    }
+
     private String getResourceStatus(double percent) {
         if (percent >= 90) return "critical";
         if (percent >= 70) return "warning";
@@ -339,9 +480,11 @@ public class AdminServiceImpl implements AdminService {
     }
 
     private AdminUserResponse toAdminUserResponse(User user) {
-        long artworkCount = artworkRepository.countByUserId(user.getId());
-        long socialLinkCount = socialLinkRepository.countByUserId(user.getId());
-        long postCount = postRepository.countByUser(user);
+        return toAdminUserResponse(user, userUsageService.getUsage(user.getId()));
+    }
+
+    private AdminUserResponse toAdminUserResponse(User user, UserUsage usage) {
+        EntitlementService.PlanEntitlements plan = entitlementService.forPlan(user.getPlanType());
 
         return AdminUserResponse.builder()
                 .id(user.getId())
@@ -353,12 +496,12 @@ public class AdminServiceImpl implements AdminService {
                 .createdAt(user.getCreatedAt())
                 .updatedAt(user.getUpdatedAt())
                 .usage(AdminUserResponse.UsageDto.builder()
-                        .artworkCount(artworkCount)
-                        .artworkLimit(ARTWORK_LIMITS.get(user.getPlanType()))
-                        .socialLinkCount(socialLinkCount)
-                        .socialLinkLimit(SOCIAL_LINK_LIMITS.get(user.getPlanType()))
-                        .postCount(postCount)
-                        .postLimit(POST_LIMITS.get(user.getPlanType()))
+                        .artworkCount(usage.getArtworkCount())
+                        .artworkLimit(plan.maxArtworks())
+                        .socialLinkCount(usage.getSocialLinkCount())
+                        .socialLinkLimit(plan.maxSocialLinks())
+                        .postCount(usage.getPostCount())
+                        .postLimit(plan.maxPosts())
                         .build())
                 .build();
     }
@@ -378,4 +521,13 @@ public class AdminServiceImpl implements AdminService {
                 .updatedAt(inquiry.getUpdatedAt())
                 .build();
     }
+
+    /**
+     * プラン別ユーザー数の集計結果
+     */
+    private record PlanSnapshot(long totalUsers, Map<PlanType, Long> counts, long loadedAt) {
+        long count(PlanType planType) {
+            return counts.getOrDefault(planType, 0L);
+        }
+    }
 }
@@ -1,15 +1,19 @@
 package com.picme.backend.service.impl;
 
+import com.picme.backend.analytics.HyperLogLog;
+import com.picme.backend.analytics.PageViewBuffer;
+import com.picme.backend.analytics.PageViewEvent;
+import com.picme.backend.analytics.SpaceSaving;
 import com.picme.backend.exception.ApiException;
-import com.picme.backend.model.PageView;
-import com.picme.backend.model.PlanType;
+import com.picme.backend.model.PageViewDaily;
 import com.picme.backend.model.User;
-import com.picme.backend.repository.PageViewRepository;
-import com.picme.backend.repository.UserRepository;
+import com.picme.backend.repository.PageViewDailyRepository;
+import com.picme.backend.security.AuthenticatedUser;
+import com.picme.backend.security.CurrentUserResolver;
+import com.picme.backend.service.EntitlementService;
 import com.picme.backend.service.AnalyticsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,56 +21,63 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 
+/**
+ * アクセス解析サービス実装
+ * 集計は生データ（page_views）ではなく日次集計テーブルから応答する
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AnalyticsServiceImpl implements AnalyticsService {
 
-    private final PageViewRepository pageViewRepository;
-    private final UserRepository userRepository;
+    private final PageViewDailyRepository pageViewDailyRepository;
+    private final CurrentUserResolver currentUserResolver;
+    private final EntitlementService entitlementService;
+    private final PageViewBuffer pageViewBuffer;
 
     @Override
-    @Async
-    @Transactional
     public void recordPageView(User user, String visitorIp, String referrer, String userAgent) {
-        PageView pageView = PageView.builder()
-                .user(user)
-                .visitorIp(visitorIp)
-                .referrer(referrer)
-                .userAgent(userAgent)
-                .build();
-        pageViewRepository.save(pageView);
+        // バッファに積むだけで、書き込みはバッファ側でまとめて行う
+        pageViewBuffer.offer(new PageViewEvent(
+                user.getId(), visitorIp, referrer, userAgent, LocalDateTime.now()));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Map<String, Object> getSummary(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(ApiException::userNotFound);
+        AuthenticatedUser user = currentUserResolver.resolve(email);
 
         checkAnalyticsPlanAccess(user);
 
-        long totalViews = pageViewRepository.countByUserId(user.getId());
-        long todayViews = pageViewRepository.countByUserIdAndViewedAtAfter(
-                user.getId(), LocalDate.now().atStartOfDay());
-        long weekViews = pageViewRepository.countByUserIdAndViewedAtAfter(
-                user.getId(), LocalDateTime.now().minusDays(7));
-        long monthViews = pageViewRepository.countByUserIdAndViewedAtAfter(
-                user.getId(), LocalDateTime.now().minusDays(30));
+        // 週間・月間は当日を含む暦日単位（7日・30日）
+        LocalDate today = LocalDate.now();
+        long totalViews = pageViewDailyRepository.sumViewsByUserId(user.getId());
+        long todayViews = pageViewDailyRepository.sumViewsByUserIdSince(user.getId(), today);
+        long weekViews = pageViewDailyRepository.sumViewsByUserIdSince(user.getId(), today.minusDays(6));
+        long monthViews = pageViewDailyRepository.sumViewsByUserIdSince(user.getId(), today.minusDays(29));
 
-        List<Object[]> topReferrers = pageViewRepository.getTopReferrers(user.getId());
-        List<Map<String, Object>> referrers = new ArrayList<>();
-        for (int i = 0; i < Math.min(topReferrers.size(), 10); i++) {
-            Object[] row = topReferrers.get(i);
-            referrers.add(Map.of("referrer", row[0], "count", row[1]));
-        }
+        // ユニーク訪問者・上位リファラーは直近30日分のスケッチを合成して推定（行数ではなくスケッチ数に比例）
+        List<PageViewDaily> monthRows = pageViewDailyRepository
+                .findByUserIdAndViewDateGreaterThanEqualOrderByViewDateAsc(user.getId(), today.minusDays(29));
+        long todayUniqueVisitors = estimateUniqueVisitors(monthRows, today);
+        long weekUniqueVisitors = estimateUniqueVisitors(monthRows, today.minusDays(6));
+        long monthUniqueVisitors = estimateUniqueVisitors(monthRows, today.minusDays(29));
+
+        List<Map<String, Object>> todayReferrers = topReferrers(monthRows, today);
+        List<Map<String, Object>> weekReferrers = topReferrers(monthRows, today.minusDays(6));
+        List<Map<String, Object>> monthReferrers = topReferrers(monthRows, today.minusDays(29));
 
         Map<String, Object> summary = new LinkedHashMap<>();
         summary.put("totalViews", totalViews);
         summary.put("todayViews", todayViews);
         summary.put("weekViews", weekViews);
         summary.put("monthViews", monthViews);
-        summary.put("topReferrers", referrers);
+        summary.put("todayUniqueVisitors", todayUniqueVisitors);
+        summary.put("weekUniqueVisitors", weekUniqueVisitors);
+        summary.put("monthUniqueVisitors", monthUniqueVisitors);
+        summary.put("topReferrers", monthReferrers);
+        summary.put("todayTopReferrers", todayReferrers);
+        summary.put("weekTopReferrers", weekReferrers);
 
         return summary;
     }
@@ -74,24 +85,18 @@ public class AnalyticsServiceImpl implements AnalyticsService {
     @Override
     @Transactional(readOnly = true)
     public List<Map<String, Object>> getTimeline(String email, int days) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(ApiException::userNotFound);
+        AuthenticatedUser user = currentUserResolver.resolve(email);
 
         checkAnalyticsPlanAccess(user);
 
-        LocalDateTime since = LocalDateTime.now().minusDays(days);
-        List<Object[]> rawData = pageViewRepository.getDailyViewCounts(user.getId(), since);
+        LocalDate from = LocalDate.now().minusDays(days - 1);
+        List<PageViewDaily> rows = pageViewDailyRepository
+                .findByUserIdAndViewDateGreaterThanEqualOrderByViewDateAsc(user.getId(), from);
 
         // 日付マップに変換
         Map<LocalDate, Long> dataMap = new LinkedHashMap<>();
-        for (Object[] row : rawData) {
-            LocalDate date;
-            if (row[0] instanceof java.sql.Date) {
-                date = ((java.sql.Date) row[0]).toLocalDate();
-            } else {
-                date = (LocalDate) row[0];
-            }
-            dataMap.put(date, (Long) row[1]);
+        for (PageViewDaily row : rows) {
+            dataMap.put(row.getViewDate(), row.getViews());
         }
 
         // 欠損日を0で埋める
@@ -107,9 +112,33 @@ public class AnalyticsServiceImpl implements AnalyticsService {
         return timeline;
     }
 
-    private void checkAnalyticsPlanAccess(User user) {
-        PlanType plan = user.getPlanType();
-        if (plan != PlanType.PRO && plan != PlanType.STUDIO) {
+    private long estimateUniqueVisitors(List<PageViewDaily> rows, LocalDate from) {
+        HyperLogLog merged = new HyperLogLog();
+        for (PageViewDaily row : rows) {
+            if (!row.getViewDate().isBefore(from)) {
+                merged.merge(HyperLogLog.fromBytes(row.getVisitorSketch()));
+            }
+        }
+        return merged.estimate();
+    }
+
+    private List<Map<String, Object>> topReferrers(List<PageViewDaily> rows, LocalDate from) {
+        SpaceSaving merged = new SpaceSaving();
+        for (PageViewDaily row : rows) {
+            if (!row.getViewDate().isBefore(from)) {
+                merged.merge(SpaceSaving.fromBytes(row.getReferrerSketch()));
+            }
+        }
+
+        List<Map<String, Object>> referrers = new ArrayList<>();
+        for (SpaceSaving.Entry entry : merged.top(10)) {
+            referrers.add(Map.of("referrer", entry.item(), "count", entry.count()));
+        }
+        return referrers;
+    }
+
+    private void checkAnalyticsPlanAccess(AuthenticatedUser user) {
+        if (!entitlementService.forUser(user.getId()).analytics()) {
             throw ApiException.forbidden("アクセス解析はPRO以上のプランで利用できます");
         }
     }
@@ -3,26 +3,38 @@ package com.picme.backend.service.impl;
 import com.picme.backend.dto.request.ArtworkReorderRequest;
 import com.picme.backend.dto.request.ArtworkRequest;
 import com.picme.backend.dto.response.ArtworkResponse;
+import com.picme.backend.dto.response.ArtworkStatusResponse;
 import com.picme.backend.exception.ApiException;
 import com.picme.backend.model.Artwork;
+import com.picme.backend.model.ArtworkStatus;
 import com.picme.backend.model.Category;
-import com.picme.backend.model.PlanType;
 import com.picme.backend.model.Tag;
 import com.picme.backend.model.User;
 import com.picme.backend.repository.ArtworkRepository;
 import com.picme.backend.repository.CategoryRepository;
 import com.picme.backend.repository.TagRepository;
-import com.picme.backend.repository.UserRepository;
+import com.picme.backend.security.AuthenticatedUser;
+import com.picme.backend.security.CurrentUserResolver;
+import com.picme.backend.service.EntitlementService;
 import com.picme.backend.service.ArtworkService;
+import com.picme.backend.service.ArtworkUploadService;
 import com.picme.backend.service.CloudinaryService;
-import com.picme.backend.service.CloudinaryService.CloudinaryUploadResult;
+import com.picme.backend.service.ImageStoreService;
+import com.picme.backend.service.ImageVariantService;
+import com.picme.backend.service.PublicPageService;
+import com.picme.backend.service.UserUsageService;
+import com.picme.backend.util.ImageFiles;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.Collections;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -37,15 +49,23 @@ import java.util.stream.Collectors;
 public class ArtworkServiceImpl implements ArtworkService {
 
     private final ArtworkRepository artworkRepository;
-    private final UserRepository userRepository;
+    private final CurrentUserResolver currentUserResolver;
     private final CloudinaryService cloudinaryService;
     private final CategoryRepository categoryRepository;
     private final TagRepository tagRepository;
+    private final PublicPageService publicPageService;
+    private final ArtworkUploadService artworkUploadService;
+    private final ImageVariantService imageVariantService;
+    private final ImageStoreService imageStoreService;
+    private final UserUsageService userUsageService;
+    private final EntitlementService entitlementService;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     @Transactional(readOnly = true)
     public List<ArtworkResponse> getArtworks(String email) {
-        User user = getUserByEmail(email);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
 
         return artworkRepository.findByUserIdOrderByDisplayOrderAsc(user.getId())
                 .stream()
@@ -56,7 +76,8 @@ public class ArtworkServiceImpl implements ArtworkService {
     @Override
     @Transactional(readOnly = true)
     public ArtworkResponse getArtwork(String email, Long artworkId) {
-        User user = getUserByEmail(email);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
 
         Artwork artwork = artworkRepository.findByIdAndUserId(artworkId, user.getId())
                 .orElseThrow(() -> ApiException.notFound("作品"));
@@ -67,13 +88,11 @@ public class ArtworkServiceImpl implements ArtworkService {
     @Override
     @Transactional
     public ArtworkResponse createArtwork(String email, ArtworkRequest request) {
-        User user = getUserByEmail(email);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
 
-        // プラン制限チェック
-        checkArtworkLimit(user);
-
-        // 現在の作品数から表示順を決定
-        long currentCount = artworkRepository.countByUserId(user.getId());
+        // プラン制限チェック（作品数を加算し、加算後の作品数から表示順を決定）
+        long artworkCount = reserveArtwork(principal);
 
         Artwork artwork = Artwork.builder()
                 .user(user)
@@ -82,12 +101,14 @@ public class ArtworkServiceImpl implements ArtworkService {
                 .imageUrl(request.getImageUrl())
                 .thumbnailUrl(request.getThumbnailUrl())
                 .category(request.getCategory())
-                .displayOrder((int) currentCount)
+                .displayOrder((int) artworkCount - 1)
                 .visible(request.getVisible() != null ? request.getVisible() : true)
                 .build();
 
         artwork = artworkRepository.save(artwork);
 
+        publicPageService.invalidate(principal.getId(), principal.getPublicUsername());
+
         log.info("Artwork created: {} for user: {}", artwork.getId(), email);
 
         return mapToResponse(artwork);
@@ -96,11 +117,17 @@ public class ArtworkServiceImpl implements ArtworkService {
     @Override
     @Transactional
     public ArtworkResponse updateArtwork(String email, Long artworkId, ArtworkRequest request) {
-        User user = getUserByEmail(email);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
 
         Artwork artwork = artworkRepository.findByIdAndUserId(artworkId, user.getId())
                 .orElseThrow(() -> ApiException.notFound("作品"));
 
+        // 画像の処理が終わるまでは画像URLが未確定で、処理完了時の書き込みと競合するため更新させない
+        if (artwork.getStatus() != ArtworkStatus.READY) {
+            throw ApiException.conflict("画像の処理が完了していない作品は編集できません");
+        }
+
         // 更新可能なフィールドを更新
         if (request.getTitle() != null) {
             artwork.setTitle(request.getTitle());
@@ -123,78 +150,77 @@ public class ArtworkServiceImpl implements ArtworkService {
 
         artwork = artworkRepository.save(artwork);
 
+        publicPageService.invalidate(principal.getId(), principal.getPublicUsername());
+
         log.info("Artwork updated: {} for user: {}", artwork.getId(), email);
 
         return mapToResponse(artwork);
     }
 
     @Override
-    @Transactional
     public ArtworkResponse createArtworkWithUpload(String email, MultipartFile file,
                                                     String title, String description,
                                                     Long categoryId, List<Long> tagIds) {
-        User user = getUserByEmail(email);
-
-        // プラン制限チェック（作品数）
-        checkArtworkLimit(user);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
 
-        // ストレージ制限チェック
-        checkStorageLimit(user, file.getSize());
+        // 形式・サイズは受け付け時点で検証する
+        cloudinaryService.validateUpload(file);
 
-        // Cloudinaryにアップロード
-        CloudinaryUploadResult uploadResult = cloudinaryService.uploadImage(file, "artworks", user.getId());
+        // 一時ファイルへ書き出す（DB接続は保持しない）
+        Path spool = artworkUploadService.spool(file);
 
-        // カテゴリーの取得
-        Category category = null;
-        if (categoryId != null) {
-            category = categoryRepository.findByIdAndUser(categoryId, user)
-                    .orElse(null);
+        ArtworkResponse response;
+        try {
+            response = transactionTemplate.execute(status -> mapToResponse(
+                    createPendingArtwork(principal, spool, title, description, categoryId, tagIds)));
+        } catch (RuntimeException e) {
+            artworkUploadService.discard(spool);
+            throw e;
         }
 
-        // タグの取得
-        Set<Tag> tags = new HashSet<>();
-        if (tagIds != null && !tagIds.isEmpty()) {
-            tags = new HashSet<>(tagRepository.findAllById(tagIds));
+        // コミット後にアップロードワーカーへ渡す
+        Long artworkId = response.getId();
+        if (!artworkUploadService.submit(artworkId)) {
+            transactionTemplate.executeWithoutResult(status -> artworkRepository.findById(artworkId)
+                    .ifPresent(this::deleteWithUsage));
+            artworkUploadService.discard(spool);
+            throw ApiException.serviceUnavailable("アップロードが混み合っています。しばらくしてから再度お試しください");
         }
 
-        // 現在の作品数から表示順を決定
-        long currentCount = artworkRepository.countByUserId(user.getId());
+        log.info("Artwork upload accepted: {} for user: {}", artworkId, email);
 
-        Artwork artwork = Artwork.builder()
-                .user(user)
-                .title(title)
-                .description(description)
-                .imageUrl(uploadResult.secureUrl())
-                .thumbnailUrl(uploadResult.thumbnailUrl())
-                .cloudinaryPublicId(uploadResult.publicId())
-                .fileSize(uploadResult.bytes())
-                .categoryEntity(category)
-                .tags(tags)
-                .displayOrder((int) currentCount)
-                .visible(true)
-                .build();
+        return response;
+    }
 
-        artwork = artworkRepository.save(artwork);
+    @Override
+    @Transactional(readOnly = true)
+    public ArtworkStatusResponse getArtworkStatus(String email, Long artworkId) {
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
 
-        log.info("Artwork created with upload: {} for user: {}", artwork.getId(), email);
+        Artwork artwork = artworkRepository.findByIdAndUserId(artworkId, principal.getId())
+                .orElseThrow(() -> ApiException.notFound("作品"));
 
-        return mapToResponse(artwork);
+        return ArtworkStatusResponse.fromEntity(artwork);
     }
 
     @Override
     @Transactional
     public void deleteArtwork(String email, Long artworkId) {
-        User user = getUserByEmail(email);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
 
         Artwork artwork = artworkRepository.findByIdAndUserId(artworkId, user.getId())
                 .orElseThrow(() -> ApiException.notFound("作品"));
 
         // Cloudinaryから画像を削除
         if (artwork.getCloudinaryPublicId() != null) {
-            cloudinaryService.deleteImage(artwork.getCloudinaryPublicId());
+            imageStoreService.release(artwork.getCloudinaryPublicId());
         }
+        imageVariantService.deleteVariants(artwork.getVariants());
 
-        artworkRepository.delete(artwork);
+        deleteWithUsage(artwork);
+
+        publicPageService.invalidate(principal.getId(), principal.getPublicUsername());
 
         log.info("Artwork deleted: {} for user: {}", artworkId, email);
     }
@@ -202,12 +228,15 @@ public class ArtworkServiceImpl implements ArtworkService {
     @Override
     @Transactional
     public void reorderArtworks(String email, ArtworkReorderRequest request) {
-        User user = getUserByEmail(email);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
 
         for (ArtworkReorderRequest.OrderItem item : request.getOrders()) {
             artworkRepository.updateDisplayOrder(item.getId(), user.getId(), item.getOrder());
         }
 
+        publicPageService.invalidate(principal.getId(), principal.getPublicUsername());
+
         log.info("Artworks reordered for user: {}", email);
     }
 
@@ -221,86 +250,114 @@ public class ArtworkServiceImpl implements ArtworkService {
     }
 
     /**
-     * メールアドレスでユーザーを取得
+     * 画像アップロード待ちの作品を登録
+     * 受け付けたファイルサイズでストレージ制限を判定し、処理中の作品も使用量に含める
      */
-    private User getUserByEmail(String email) {
-        return userRepository.findByEmail(email)
-                .orElseThrow(ApiException::userNotFound);
+    private Artwork createPendingArtwork(AuthenticatedUser principal, Path spool,
+                                         String title, String description,
+                                         Long categoryId, List<Long> tagIds) {
+        User user = currentUserResolver.reference(principal);
+        long fileSize = spoolSize(spool);
+        String contentHash = spoolHash(spool);
+
+        // プラン制限チェック（作品数）
+        long artworkCount = reserveArtwork(principal);
+
+        // ストレージ制限チェック（同じ画像の作品が既にあれば使用量は増えない）
+        boolean duplicate = artworkRepository.existsByUserIdAndContentHashAndFileSizeGreaterThan(
+                user.getId(), contentHash, 0L);
+        if (!duplicate) {
+            reserveStorage(principal, fileSize);
+        }
+
+        // カテゴリーの取得
+        Category category = null;
+        if (categoryId != null) {
+            category = categoryRepository.findByIdAndUser(categoryId, user)
+                    .orElse(null);
+        }
+
+        // タグの取得
+        Set<Tag> tags = new HashSet<>();
+        if (tagIds != null && !tagIds.isEmpty()) {
+            tags = new HashSet<>(tagRepository.findAllById(tagIds));
+        }
+
+        Artwork artwork = Artwork.builder()
+                .user(user)
+                .title(title)
+                .description(description)
+                .imageUrl("")
+                .fileSize(fileSize)
+                .contentHash(contentHash)
+                .categoryEntity(category)
+                .tags(tags)
+                .displayOrder((int) artworkCount - 1)
+                .visible(true)
+                .status(ArtworkStatus.PROCESSING)
+                .uploadSpoolPath(spool.toString())
+                .uploadSpoolOwner(artworkUploadService.getInstanceId())
+                .uploadSpoolSeenAt(LocalDateTime.now())
+                .build();
+
+        return artworkRepository.save(artwork);
     }
 
-    /**
-     * 作品数の制限をチェック
-     */
-    private void checkArtworkLimit(User user) {
-        long currentCount = artworkRepository.countByUserId(user.getId());
-        int limit = getArtworkLimit(user.getPlanType());
+    private String spoolHash(Path spool) {
+        try {
+            return ImageFiles.sha256Hex(spool);
+        } catch (IOException e) {
+            throw ApiException.badRequest("画像の受け付けに失敗しました");
+        }
+    }
 
-        if (currentCount >= limit) {
-            throw ApiException.limitExceeded(
-                    String.format("作品数の上限（%d枚）に達しています。プランをアップグレードしてください。", limit));
+    private long spoolSize(Path spool) {
+        try {
+            return Files.size(spool);
+        } catch (IOException e) {
+            throw ApiException.badRequest("画像の受け付けに失敗しました");
         }
     }
 
     /**
-     * プランごとの作品数上限を取得
+     * 作品数の制限をチェックして使用量に加算
+     *
+     * @return 加算後の作品数
      */
-    private int getArtworkLimit(PlanType planType) {
-        return switch (planType) {
-            case FREE -> 5;
-            case STARTER -> 20;
-            case PRO -> 50;
-            case STUDIO -> 200;
-        };
+    private long reserveArtwork(AuthenticatedUser principal) {
+        int limit = entitlementService.forUser(principal.getId()).maxArtworks();
+
+        return userUsageService.tryIncrement(principal.getId(), UserUsageService.Counter.ARTWORKS, 1, limit)
+                .orElseThrow(() -> ApiException.limitExceeded(
+                        String.format("作品数の上限（%d枚）に達しています。プランをアップグレードしてください。", limit)));
     }
 
     /**
-     * ストレージ使用量の制限をチェック
+     * ストレージ使用量の制限をチェックして使用量に加算
      */
-    private void checkStorageLimit(User user, long additionalBytes) {
-        long currentUsage = artworkRepository.sumFileSizeByUserId(user.getId());
-        long limitBytes = getStorageLimitBytes(user.getPlanType());
+    private void reserveStorage(AuthenticatedUser principal, long additionalBytes) {
+        EntitlementService.PlanEntitlements plan = entitlementService.forUser(principal.getId());
 
-        if (currentUsage + additionalBytes > limitBytes) {
-            long limitMb = limitBytes / (1024 * 1024);
+        if (userUsageService.tryIncrement(principal.getId(), UserUsageService.Counter.STORAGE_BYTES,
+                additionalBytes, plan.maxStorageBytes()).isEmpty()) {
             throw ApiException.limitExceeded(
-                    String.format("ストレージの上限（%dMB）に達しています。プランをアップグレードしてください。", limitMb));
+                    String.format("ストレージの上限（%dMB）に達しています。プランをアップグレードしてください。", plan.maxStorageMb()));
         }
     }
 
     /**
-     * プランごとのストレージ上限（バイト）を取得
+     * 作品を削除し、作品数とストレージ使用量から差し引く
      */
-    private long getStorageLimitBytes(PlanType planType) {
-        return switch (planType) {
-            case FREE -> 300L * 1024 * 1024;     // 300MB
-            case STARTER -> 1024L * 1024 * 1024;  // 1GB
-            case PRO -> 2048L * 1024 * 1024;      // 2GB
-            case STUDIO -> 10240L * 1024 * 1024;   // 10GB
-        };
+    private void deleteWithUsage(Artwork artwork) {
+        userUsageService.decrement(artwork.getUser().getId(), UserUsageService.Counter.ARTWORKS, 1);
+        userUsageService.releaseArtworkStorage(artwork);
+        artworkRepository.delete(artwork);
     }
 
     /**
      * ArtworkエンティティをArtworkResponseにマッピング
      */
     private ArtworkResponse mapToResponse(Artwork artwork) {
-        Long categoryId = artwork.getCategoryEntity() != null ? artwork.getCategoryEntity().getId() : null;
-        List<Long> tagIds = artwork.getTags() != null
-                ? artwork.getTags().stream().map(tag -> tag.getId()).collect(Collectors.toList())
-                : Collections.emptyList();
-
-        return ArtworkResponse.builder()
-                .id(artwork.getId())
-                .title(artwork.getTitle())
-                .description(artwork.getDescription())
-                .imageUrl(artwork.getImageUrl())
-                .thumbnailUrl(artwork.getThumbnailUrl())
-                .category(artwork.getCategory())
-                .categoryId(categoryId)
-                .tagIds(tagIds)
-                .displayOrder(artwork.getDisplayOrder())
-                .visible(artwork.getVisible())
-                .createdAt(artwork.getCreatedAt())
-                .updatedAt(artwork.getUpdatedAt())
-                .build();
+        return ArtworkResponse.fromEntity(artwork);
     }
 }
@@ -0,0 +1,444 @@
+package com.picme.backend.service.impl;
+
+import com.picme.backend.exception.ApiException;
+import com.picme.backend.model.Artwork;
+import com.picme.backend.model.ArtworkStatus;
+import com.picme.backend.repository.ArtworkRepository;
+import com.picme.backend.service.ArtworkUploadService;
+import com.picme.backend.service.CloudinaryService.CloudinaryUploadResult;
+import com.picme.backend.service.ImageStoreService;
+import com.picme.backend.service.ImageVariantService;
+import com.picme.backend.service.PublicPageService;
+import com.picme.backend.service.UserUsageService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 作品画像の非同期アップロードサービス実装
+ * 固定数のワーカーと有界キューでCloudinaryへのアップロードを行う。
+ * アップロード中はDB接続を保持せず、状態の読み書きのみ短いトランザクションで行う。
+ *
+ * 失敗時は指数バックオフで再試行し、上限に達したら作品を FAILED にする。
+ * 公開後は一時ファイルを ImageVariantService に渡し、レスポンシブ用の縮小画像を生成する。
+ * 一時ファイルのパスと保持するインスタンスは作品に保存し、定期スイープで自インスタンスの PROCESSING の作品を
+ * 再投入する（一時ファイルが失われたものは FAILED にする）。スイープごとに所有する作品へ生存を記録し、
+ * 他インスタンスの作品は生存記録が一定時間更新されていない場合のみ引き継ぐ。
+ * 不要な一時ファイルの削除は自インスタンスが作成したファイルのみを対象とする。
+ */
+@Service
+@Slf4j
+public class ArtworkUploadServiceImpl implements ArtworkUploadService {
+
+    private static final String FOLDER = "artworks";
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final int MAX_INSTANCE_ID_LENGTH = 100;
+
+    private final ArtworkRepository artworkRepository;
+    private final ImageStoreService imageStoreService;
+    private final PublicPageService publicPageService;
+    private final ImageVariantService imageVariantService;
+    private final UserUsageService userUsageService;
+    private final TransactionTemplate transactionTemplate;
+    private final Path spoolDir;
+    private final String instanceId;
+    private final String spoolPrefix;
+    private final int workers;
+    private final int queueCapacity;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final long staleAfterMinutes;
+
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService retryScheduler;
+
+    // キュー投入済み・処理中・再試行待ちの作品ID（スイープでの二重投入防止）
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    // ワーカーが使用中の一時ファイル（バリアント生成に引き渡すまで削除しない）
+    private final Set<Path> activeSpools = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+
+    public ArtworkUploadServiceImpl(
+            ArtworkRepository artworkRepository,
+            ImageStoreService imageStoreService,
+            PublicPageService publicPageService,
+            ImageVariantService imageVariantService,
+            UserUsageService userUsageService,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.artwork-upload.spool-dir:${java.io.tmpdir}/picme-uploads}") String spoolDir,
+            @Value("${app.artwork-upload.instance-id:${HOSTNAME:}}") String instanceId,
+            @Value("${app.artwork-upload.workers:4}") int workers,
+            @Value("${app.artwork-upload.queue-capacity:100}") int queueCapacity,
+            @Value("${app.artwork-upload.max-attempts:3}") int maxAttempts,
+            @Value("${app.artwork-upload.retry-backoff-ms:2000}") long retryBackoffMillis,
+            @Value("${app.artwork-upload.stale-after-minutes:30}") long staleAfterMinutes) throws IOException {
+        this.artworkRepository = artworkRepository;
+        this.imageStoreService = imageStoreService;
+        this.publicPageService = publicPageService;
+        this.imageVariantService = imageVariantService;
+        this.userUsageService = userUsageService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.spoolDir = Files.createDirectories(Paths.get(spoolDir).toAbsolutePath());
+        this.instanceId = resolveInstanceId(instanceId);
+        this.spoolPrefix = "artwork-" + this.instanceId + "-";
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.staleAfterMinutes = staleAfterMinutes;
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), namedThreads("artwork-upload-"));
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(namedThreads("artwork-upload-retry-"));
+    }
+
+    @Override
+    public Path spool(MultipartFile file) {
+        Path spool = null;
+        try {
+            spool = Files.createTempFile(spoolDir, spoolPrefix, ".upload");
+            file.transferTo(spool.toFile());
+            return spool;
+        } catch (IOException e) {
+            log.error("アップロードの一時保存に失敗: {}", e.getMessage());
+            discard(spool);
+            throw ApiException.badRequest("画像の受け付けに失敗しました");
+        }
+    }
+
+    @Override
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    @Override
+    public void discard(Path spool) {
+        if (spool == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(spool);
+        } catch (IOException e) {
+            log.warn("Failed to delete upload spool {}: {}", spool, e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean submit(Long artworkId) {
+        if (!inFlight.add(artworkId)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> process(artworkId, 1));
+            submitted.incrementAndGet();
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(artworkId);
+            rejected.incrementAndGet();
+            return false;
+        }
+    }
+
+    @Override
+    public Stats getStats() {
+        return new Stats(
+                workers,
+                executor.getActiveCount(),
+                executor.getQueue().size(),
+                queueCapacity,
+                submitted.get(),
+                rejected.get(),
+                completed.get(),
+                failed.get(),
+                retries.get());
+    }
+
+    /**
+     * PROCESSING のまま残った作品の再投入と、不要になった一時ファイルの削除
+     * 起動直後と以降一定間隔で実行する
+     */
+    @Scheduled(initialDelayString = "${app.artwork-upload.recovery-initial-delay-ms:10000}",
+               fixedDelayString = "${app.artwork-upload.recovery-interval-ms:300000}")
+    public void recover() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleBefore = now.minusMinutes(staleAfterMinutes);
+        List<Artwork> pending = transactionTemplate.execute(status -> {
+            // 自インスタンスが一時ファイルを保持している作品に生存を記録する
+            artworkRepository.touchUploadSpools(instanceId, now);
+            return artworkRepository.findByStatus(ArtworkStatus.PROCESSING);
+        });
+
+        Set<Path> referenced = new HashSet<>();
+        int resubmitted = 0;
+        for (Artwork artwork : pending) {
+            Path spool = artwork.getUploadSpoolPath() != null ? Paths.get(artwork.getUploadSpoolPath()) : null;
+            if (spool != null) {
+                referenced.add(spool);
+            }
+            if (inFlight.contains(artwork.getId())) {
+                continue;
+            }
+
+            if (!instanceId.equals(artwork.getUploadSpoolOwner())) {
+                // 所有インスタンスが稼働中の作品には触れず、停止したものだけを1インスタンスが引き継ぐ
+                LocalDateTime lastSeen = artwork.getUploadSpoolSeenAt() != null
+                        ? artwork.getUploadSpoolSeenAt()
+                        : artwork.getUpdatedAt();
+                if (lastSeen != null && !lastSeen.isBefore(staleBefore)) {
+                    continue;
+                }
+                if (!claim(artwork, now)) {
+                    continue;
+                }
+            }
+
+            if (spool != null && Files.exists(spool)) {
+                if (submit(artwork.getId())) {
+                    resubmitted++;
+                }
+            } else {
+                markFailed(artwork.getId(), "アップロード待ちのファイルが見つかりません");
+            }
+        }
+        if (resubmitted > 0) {
+            log.info("Resubmitted {} pending artwork uploads", resubmitted);
+        }
+
+        deleteOrphanSpools(referenced, staleBefore);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 未処理分は PROCESSING のまま残り、次回起動時のスイープで再投入される
+        retryScheduler.shutdownNow();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void process(Long artworkId, int attempt) {
+        PendingUpload pending = transactionTemplate.execute(status -> artworkRepository.findById(artworkId)
+                .filter(artwork -> artwork.getStatus() == ArtworkStatus.PROCESSING)
+                .map(artwork -> new PendingUpload(
+                        artwork.getUser().getId(), artwork.getUploadSpoolPath(), artwork.getContentHash()))
+                .orElse(null));
+
+        // 処理前に削除された作品（一時ファイルはスイープで削除される）
+        if (pending == null) {
+            inFlight.remove(artworkId);
+            return;
+        }
+
+        Path spool = pending.spoolPath() != null ? Paths.get(pending.spoolPath()) : null;
+        if (spool == null || !Files.exists(spool)) {
+            markFailed(artworkId, "アップロード待ちのファイルが見つかりません");
+            inFlight.remove(artworkId);
+            return;
+        }
+
+        activeSpools.add(spool);
+        try {
+            // 同じ画像が保存済みの場合はアップロードせずに再利用する
+            CloudinaryUploadResult result = imageStoreService.store(
+                    spool, pending.contentHash(), FOLDER, pending.userId());
+            // 公開後は一時ファイルをバリアント生成に引き渡す（受け付けられなければ削除）
+            if (!complete(artworkId, result) || !imageVariantService.submit(artworkId, pending.userId(), spool)) {
+                discard(spool);
+            }
+            completed.incrementAndGet();
+            inFlight.remove(artworkId);
+        } catch (RuntimeException e) {
+            if (attempt < maxAttempts) {
+                long delay = retryBackoffMillis << (attempt - 1);
+                log.warn("Artwork upload failed (attempt {}/{}), retrying in {}ms: artwork={}, error={}",
+                        attempt, maxAttempts, delay, artworkId, e.getMessage());
+                retries.incrementAndGet();
+                scheduleRetry(artworkId, attempt + 1, delay);
+            } else {
+                log.error("Artwork upload failed after {} attempts: artwork={}, error={}",
+                        attempt, artworkId, e.getMessage());
+                markFailed(artworkId, e.getMessage());
+                discard(spool);
+                failed.incrementAndGet();
+                inFlight.remove(artworkId);
+            }
+        } finally {
+            activeSpools.remove(spool);
+        }
+    }
+
+    private void scheduleRetry(Long artworkId, int attempt, long delayMillis) {
+        try {
+            retryScheduler.schedule(() -> {
+                try {
+                    executor.execute(() -> process(artworkId, attempt));
+                } catch (RejectedExecutionException e) {
+                    // キューが満杯の場合は同じ試行回数のまま待ち直す
+                    scheduleRetry(artworkId, attempt, delayMillis);
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // シャットダウン中。PROCESSING のまま次回起動時に再投入する
+            inFlight.remove(artworkId);
+        }
+    }
+
+    /**
+     * アップロード結果を作品に反映して公開する
+     */
+    private boolean complete(Long artworkId, CloudinaryUploadResult result) {
+        Boolean stored = transactionTemplate.execute(status -> {
+            Artwork artwork = artworkRepository.findById(artworkId).orElse(null);
+            if (artwork == null || artwork.getStatus() != ArtworkStatus.PROCESSING) {
+                return false;
+            }
+
+            artwork.setImageUrl(result.secureUrl());
+            artwork.setThumbnailUrl(result.thumbnailUrl());
+            artwork.setCloudinaryPublicId(result.publicId());
+            // fileSize は受け付け時のサイズのまま（ストレージ使用量はそのサイズで計上済み）
+            artwork.setStatus(ArtworkStatus.READY);
+            artwork.setProcessingError(null);
+            artwork.setUploadSpoolPath(null);
+            artwork.setUploadSpoolOwner(null);
+            artwork.setUploadSpoolSeenAt(null);
+            artworkRepository.save(artwork);
+
+            publicPageService.invalidate(artwork.getUser());
+            return true;
+        });
+
+        // アップロード中に作品が削除された場合は画像も残さない
+        if (!Boolean.TRUE.equals(stored)) {
+            imageStoreService.release(result.publicId());
+            return false;
+        }
+
+        log.info("Artwork upload completed: {}", artworkId);
+        return true;
+    }
+
+    private void markFailed(Long artworkId, String error) {
+        String message = error != null && error.length() > MAX_ERROR_LENGTH
+                ? error.substring(0, MAX_ERROR_LENGTH)
+                : error;
+
+        transactionTemplate.executeWithoutResult(status -> artworkRepository.findById(artworkId)
+                .filter(artwork -> artwork.getStatus() == ArtworkStatus.PROCESSING)
+                .ifPresent(artwork -> {
+                    artwork.setStatus(ArtworkStatus.FAILED);
+                    artwork.setProcessingError(message);
+                    artwork.setUploadSpoolPath(null);
+                    artwork.setUploadSpoolOwner(null);
+                    artwork.setUploadSpoolSeenAt(null);
+                    // 失敗した作品はストレージ使用量に含めない
+                    userUsageService.releaseArtworkStorage(artwork);
+                    artwork.setFileSize(0L);
+                    artworkRepository.save(artwork);
+                }));
+    }
+
+    /**
+     * 停止したインスタンスの作品を引き継ぐ（同時に引き継ごうとした他のインスタンスがあれば一方のみ成功）
+     */
+    private boolean claim(Artwork artwork, LocalDateTime now) {
+        String previousOwner = artwork.getUploadSpoolOwner() != null ? artwork.getUploadSpoolOwner() : "";
+        Integer claimed = transactionTemplate.execute(status ->
+                artworkRepository.claimUploadSpool(artwork.getId(), previousOwner, instanceId, now));
+        if (claimed == null || claimed == 0) {
+            return false;
+        }
+        log.info("Took over pending artwork upload {} from instance '{}'", artwork.getId(), previousOwner);
+        return true;
+    }
+
+    private void deleteOrphanSpools(Set<Path> referenced, LocalDateTime staleBefore) {
+        long cutoff = staleBefore.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            // 他インスタンスのファイル（共有ディレクトリの場合）はそのインスタンスのバリアント生成中の可能性があるため対象外。
+            // 使用中のファイルはバリアント生成への引き渡し後に使用中から外すため、使用中→引き渡し済みの順に確認する
+            files.filter(path -> path.getFileName().toString().startsWith(spoolPrefix))
+                    .filter(path -> !referenced.contains(path))
+                    .filter(path -> !activeSpools.contains(path))
+                    .filter(path -> !imageVariantService.pendingSources().contains(path))
+                    .filter(path -> {
+                        try {
+                            return Files.getLastModifiedTime(path).toMillis() < cutoff;
+                        } catch (IOException e) {
+                            return false;
+                        }
+                    })
+                    .forEach(this::discard);
+        } catch (IOException e) {
+            log.warn("Failed to list upload spool directory {}: {}", spoolDir, e.getMessage());
+        }
+    }
+
+    /**
+     * インスタンスの識別子を決める（設定値、ホスト名の順。どちらもなければ起動ごとに異なる値）
+     * 一時ファイル名に含めるため、ファイル名に使えない文字は置き換える
+     */
+    private static String resolveInstanceId(String configured) {
+        String id = configured;
+        if (id == null || id.isBlank()) {
+            try {
+                id = InetAddress.getLocalHost().getHostName();
+            } catch (IOException e) {
+                id = UUID.randomUUID().toString();
+                log.warn("Could not resolve host name, using random upload instance id {}", id);
+            }
+        }
+        id = id.replaceAll("[^A-Za-z0-9._-]", "_");
+        return id.length() > MAX_INSTANCE_ID_LENGTH ? id.substring(0, MAX_INSTANCE_ID_LENGTH) : id;
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record PendingUpload(Long userId, String spoolPath, String contentHash) {}
+}
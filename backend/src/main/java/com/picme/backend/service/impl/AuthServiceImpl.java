@@ -14,6 +14,7 @@ import com.picme.backend.repository.ProfileRepository;
 import com.picme.backend.repository.UserRepository;
 import com.picme.backend.repository.VerificationTokenRepository;
 import com.picme.backend.security.JwtTokenProvider;
+import com.picme.backend.security.PrincipalCache;
 import com.picme.backend.service.AuthService;
 import com.picme.backend.service.EmailService;
 import lombok.RequiredArgsConstructor;
@@ -43,6 +44,7 @@ public class AuthServiceImpl implements AuthService {
     private final EmailService emailService;
     private final VerificationTokenRepository verificationTokenRepository;
     private final PasswordResetTokenRepository passwordResetTokenRepository;
+    private final PrincipalCache principalCache;
 
     @Override
     @Transactional
@@ -80,7 +82,7 @@ public class AuthServiceImpl implements AuthService {
         sendVerificationToken(user);
 
         // トークン生成
-        String accessToken = jwtTokenProvider.generateAccessToken(user.getEmail());
+        String accessToken = jwtTokenProvider.generateAccessToken(user);
         String refreshToken = jwtTokenProvider.generateRefreshToken(user.getEmail());
 
         log.info("User registered successfully: {}", user.getEmail());
@@ -109,7 +111,7 @@ public class AuthServiceImpl implements AuthService {
         }
 
         // トークン生成
-        String accessToken = jwtTokenProvider.generateAccessToken(user.getEmail());
+        String accessToken = jwtTokenProvider.generateAccessToken(user);
         String refreshToken = jwtTokenProvider.generateRefreshToken(user.getEmail());
 
         log.info("User logged in successfully: {}", user.getEmail());
@@ -136,8 +138,13 @@ public class AuthServiceImpl implements AuthService {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(ApiException::userNotFound);
 
+        // 停止中のアカウントにはトークンを再発行しない
+        if (!user.getIsActive()) {
+            throw ApiException.accountDisabled();
+        }
+
         // 新しいトークン生成
-        String newAccessToken = jwtTokenProvider.generateAccessToken(user.getEmail());
+        String newAccessToken = jwtTokenProvider.generateAccessToken(user);
         String newRefreshToken = jwtTokenProvider.generateRefreshToken(user.getEmail());
 
         log.info("Token refreshed for user: {}", user.getEmail());
@@ -205,6 +212,10 @@ public class AuthServiceImpl implements AuthService {
         user.setPasswordHash(passwordEncoder.encode(newPassword));
         userRepository.save(user);
 
+        // 発行済みのアクセストークンを無効化
+        userRepository.incrementTokenVersion(user.getId());
+        principalCache.invalidate(user.getEmail());
+
         resetToken.setUsed(true);
         passwordResetTokenRepository.save(resetToken);
 
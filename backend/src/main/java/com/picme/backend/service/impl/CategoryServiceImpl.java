@@ -4,11 +4,14 @@ import com.picme.backend.dto.request.CategoryRequest;
 import com.picme.backend.dto.response.CategoryResponse;
 import com.picme.backend.exception.ApiException;
 import com.picme.backend.model.Category;
-import com.picme.backend.model.PlanType;
 import com.picme.backend.model.User;
 import com.picme.backend.repository.CategoryRepository;
-import com.picme.backend.repository.UserRepository;
+import com.picme.backend.security.AuthenticatedUser;
+import com.picme.backend.security.CurrentUserResolver;
+import com.picme.backend.service.EntitlementService;
 import com.picme.backend.service.CategoryService;
+import com.picme.backend.service.PublicPageService;
+import com.picme.backend.service.UserUsageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -26,13 +29,17 @@ import java.util.stream.Collectors;
 public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
-    private final UserRepository userRepository;
+    private final CurrentUserResolver currentUserResolver;
+    private final PublicPageService publicPageService;
+    private final UserUsageService userUsageService;
+    private final EntitlementService entitlementService;
 
     @Override
     @Transactional(readOnly = true)
     public List<CategoryResponse> getCategories(String email) {
-        User user = getUserByEmail(email);
-        checkCategoryFeatureAvailable(user);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
+        checkCategoryFeatureAvailable(principal);
 
         return categoryRepository.findByUserOrderByDisplayOrderAsc(user)
                 .stream()
@@ -43,8 +50,9 @@ public class CategoryServiceImpl implements CategoryService {
     @Override
     @Transactional(readOnly = true)
     public CategoryResponse getCategory(String email, Long categoryId) {
-        User user = getUserByEmail(email);
-        checkCategoryFeatureAvailable(user);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
+        checkCategoryFeatureAvailable(principal);
 
         Category category = categoryRepository.findByIdAndUser(categoryId, user)
                 .orElseThrow(() -> ApiException.notFound("カテゴリー"));
@@ -55,21 +63,22 @@ public class CategoryServiceImpl implements CategoryService {
     @Override
     @Transactional
     public CategoryResponse createCategory(String email, CategoryRequest request) {
-        User user = getUserByEmail(email);
-        checkCategoryFeatureAvailable(user);
-        checkCategoryLimit(user);
-
-        // 現在のカテゴリー数から表示順を決定
-        long currentCount = categoryRepository.countByUser(user);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
+        checkCategoryFeatureAvailable(principal);
+        // 加算後のカテゴリー数から表示順を決定
+        long categoryCount = reserveCategory(principal);
 
         Category category = Category.builder()
                 .user(user)
                 .name(request.getName())
-                .displayOrder(request.getDisplayOrder() != null ? request.getDisplayOrder() : (int) currentCount)
+                .displayOrder(request.getDisplayOrder() != null ? request.getDisplayOrder() : (int) categoryCount - 1)
                 .build();
 
         category = categoryRepository.save(category);
 
+        publicPageService.invalidate(principal.getId(), principal.getPublicUsername());
+
         log.info("Category created: {} for user: {}", category.getId(), email);
 
         return CategoryResponse.fromEntity(category);
@@ -78,8 +87,9 @@ public class CategoryServiceImpl implements CategoryService {
     @Override
     @Transactional
     public CategoryResponse updateCategory(String email, Long categoryId, CategoryRequest request) {
-        User user = getUserByEmail(email);
-        checkCategoryFeatureAvailable(user);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
+        checkCategoryFeatureAvailable(principal);
 
         Category category = categoryRepository.findByIdAndUser(categoryId, user)
                 .orElseThrow(() -> ApiException.notFound("カテゴリー"));
@@ -93,6 +103,8 @@ public class CategoryServiceImpl implements CategoryService {
 
         category = categoryRepository.save(category);
 
+        publicPageService.invalidate(principal.getId(), principal.getPublicUsername());
+
         log.info("Category updated: {} for user: {}", category.getId(), email);
 
         return CategoryResponse.fromEntity(category);
@@ -101,13 +113,17 @@ public class CategoryServiceImpl implements CategoryService {
     @Override
     @Transactional
     public void deleteCategory(String email, Long categoryId) {
-        User user = getUserByEmail(email);
-        checkCategoryFeatureAvailable(user);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
+        checkCategoryFeatureAvailable(principal);
 
         Category category = categoryRepository.findByIdAndUser(categoryId, user)
                 .orElseThrow(() -> ApiException.notFound("カテゴリー"));
 
         categoryRepository.delete(category);
+        userUsageService.decrement(principal.getId(), UserUsageService.Counter.CATEGORIES, 1);
+
+        publicPageService.invalidate(principal.getId(), principal.getPublicUsername());
 
         log.info("Category deleted: {} for user: {}", categoryId, email);
     }
@@ -121,44 +137,25 @@ public class CategoryServiceImpl implements CategoryService {
                 .collect(Collectors.toList());
     }
 
-    /**
-     * メールアドレスでユーザーを取得
-     */
-    private User getUserByEmail(String email) {
-        return userRepository.findByEmail(email)
-                .orElseThrow(ApiException::userNotFound);
-    }
-
     /**
      * カテゴリー機能が利用可能かチェック（Pro以上）
      */
-    private void checkCategoryFeatureAvailable(User user) {
-        if (user.getPlanType() != PlanType.PRO && user.getPlanType() != PlanType.STUDIO) {
+    private void checkCategoryFeatureAvailable(AuthenticatedUser principal) {
+        if (!entitlementService.forUser(principal.getId()).categories()) {
             throw ApiException.forbidden("カテゴリー機能はProプラン以上でご利用いただけます");
         }
     }
 
     /**
-     * カテゴリー数の制限をチェック
+     * カテゴリー数の制限をチェックして使用量に加算
+     *
+     * @return 加算後のカテゴリー数
      */
-    private void checkCategoryLimit(User user) {
-        long currentCount = categoryRepository.countByUser(user);
-        int limit = getCategoryLimit(user.getPlanType());
-
-        if (currentCount >= limit) {
-            throw ApiException.limitExceeded(
-                    String.format("カテゴリーの上限（%d個）に達しています。プランをアップグレードしてください。", limit));
-        }
-    }
+    private long reserveCategory(AuthenticatedUser principal) {
+        int limit = entitlementService.forUser(principal.getId()).maxCategories();
 
-    /**
-     * プランごとのカテゴリー数上限を取得
-     */
-    private int getCategoryLimit(PlanType planType) {
-        return switch (planType) {
-            case FREE, STARTER -> 0;
-            case PRO -> 5;
-            case STUDIO -> Integer.MAX_VALUE;
-        };
+        return userUsageService.tryIncrement(principal.getId(), UserUsageService.Counter.CATEGORIES, 1, limit)
+                .orElseThrow(() -> ApiException.limitExceeded(
+                        String.format("カテゴリーの上限（%d個）に達しています。プランをアップグレードしてください。", limit)));
     }
 }
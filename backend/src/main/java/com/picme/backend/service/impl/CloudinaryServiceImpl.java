@@ -6,19 +6,25 @@ import com.cloudinary.utils.ObjectUtils;
 import com.picme.backend.config.CloudinaryConfig;
 import com.picme.backend.exception.ApiException;
 import com.picme.backend.service.CloudinaryService;
+import com.picme.backend.util.ImageFiles;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
 import java.io.IOException;
-import java.util.List;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
 
 /**
  * Cloudinary画像アップロードサービス実装
+ * app.image-storage.type が cloudinary（既定）の場合に有効
  */
 @Service
+@ConditionalOnProperty(name = "app.image-storage.type", havingValue = "cloudinary", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 public class CloudinaryServiceImpl implements CloudinaryService {
@@ -26,50 +32,42 @@ public class CloudinaryServiceImpl implements CloudinaryService {
     private final Cloudinary cloudinary;
     private final CloudinaryConfig cloudinaryConfig;
 
-    private static final List<String> ALLOWED_MIME_TYPES = List.of(
-            "image/jpeg", "image/png", "image/gif", "image/webp"
-    );
-
-    private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
-
     @Override
     public CloudinaryUploadResult uploadImage(MultipartFile file, String folder, Long userId) {
-        validateFile(file);
-
-        if (!cloudinaryConfig.isConfigured()) {
-            log.warn("Cloudinaryが未設定のため、アップロードをスキップします");
-            throw ApiException.badRequest("画像アップロード機能が設定されていません");
-        }
+        validateUpload(file);
 
+        // ディスク上のパートは移動のみで一時ファイルになり、内容をヒープに読み込まない
+        Path spool = null;
         try {
-            String uploadFolder = "picme/" + userId + "/" + folder;
-
-            @SuppressWarnings("unchecked")
-            Map<String, Object> uploadResult = cloudinary.uploader().upload(file.getBytes(), ObjectUtils.asMap(
-                    "folder", uploadFolder,
-                    "resource_type", "image",
-                    "quality", "auto:good",
-                    "fetch_format", "auto"
-            ));
-
-            String publicId = (String) uploadResult.get("public_id");
-            String secureUrl = (String) uploadResult.get("secure_url");
-            long bytes = ((Number) uploadResult.get("bytes")).longValue();
-            int width = ((Number) uploadResult.get("width")).intValue();
-            int height = ((Number) uploadResult.get("height")).intValue();
-
-            String thumbnailUrl = getThumbnailUrl(publicId, 400);
-
-            log.info("画像アップロード成功: publicId={}, size={}bytes, user={}", publicId, bytes, userId);
+            spool = Files.createTempFile("picme-upload-", ".tmp");
+            file.transferTo(spool.toFile());
+            return upload(spool.toFile(), folder, userId);
+        } catch (IOException e) {
+            log.error("画像アップロード失敗: {}", e.getMessage(), e);
+            throw ApiException.badRequest("画像のアップロードに失敗しました");
+        } finally {
+            deleteQuietly(spool);
+        }
+    }
 
-            return new CloudinaryUploadResult(publicId, secureUrl, thumbnailUrl, bytes, width, height);
+    @Override
+    public CloudinaryUploadResult uploadImage(Path file, String folder, Long userId) {
+        checkConfigured();
 
+        try {
+            return upload(file.toFile(), folder, userId);
         } catch (IOException e) {
-            log.error("画像アップロード失敗: {}", e.getMessage(), e);
+            log.error("画像アップロード失敗: file={}, error={}", file, e.getMessage());
             throw ApiException.badRequest("画像のアップロードに失敗しました");
         }
     }
 
+    @Override
+    public void validateUpload(MultipartFile file) {
+        ImageFiles.validate(file);
+        checkConfigured();
+    }
+
     @Override
     public void deleteImage(String publicId) {
         if (publicId == null || publicId.isEmpty()) {
@@ -116,21 +114,48 @@ public class CloudinaryServiceImpl implements CloudinaryService {
     }
 
     /**
-     * ファイルのバリデーション
+     * Cloudinaryへアップロード
+     * source はファイルで渡し、アップローダーがディスクから読みながら送信する
      */
-    private void validateFile(MultipartFile file) {
-        if (file == null || file.isEmpty()) {
-            throw ApiException.badRequest("ファイルが選択されていません");
-        }
+    private CloudinaryUploadResult upload(File source, String folder, Long userId) throws IOException {
+        String uploadFolder = "picme/" + userId + "/" + folder;
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> uploadResult = cloudinary.uploader().upload(source, ObjectUtils.asMap(
+                "folder", uploadFolder,
+                "resource_type", "image",
+                "quality", "auto:good",
+                "fetch_format", "auto"
+        ));
+
+        String publicId = (String) uploadResult.get("public_id");
+        String secureUrl = (String) uploadResult.get("secure_url");
+        long bytes = ((Number) uploadResult.get("bytes")).longValue();
+        int width = ((Number) uploadResult.get("width")).intValue();
+        int height = ((Number) uploadResult.get("height")).intValue();
+
+        String thumbnailUrl = getThumbnailUrl(publicId, 400);
+
+        log.info("画像アップロード成功: publicId={}, size={}bytes, user={}", publicId, bytes, userId);
+
+        return new CloudinaryUploadResult(publicId, secureUrl, thumbnailUrl, bytes, width, height);
+    }
 
-        if (file.getSize() > MAX_FILE_SIZE) {
-            throw ApiException.badRequest(
-                    String.format("ファイルサイズが上限（%dMB）を超えています", MAX_FILE_SIZE / (1024 * 1024)));
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("一時ファイルの削除に失敗: file={}, error={}", path, e.getMessage());
         }
+    }
 
-        String contentType = file.getContentType();
-        if (contentType == null || !ALLOWED_MIME_TYPES.contains(contentType)) {
-            throw ApiException.badRequest("対応していないファイル形式です。JPG, PNG, GIF, WebPが使用できます");
+    private void checkConfigured() {
+        if (!cloudinaryConfig.isConfigured()) {
+            log.warn("Cloudinaryが未設定のため、アップロードをスキップします");
+            throw ApiException.badRequest("画像アップロード機能が設定されていません");
         }
     }
 }
@@ -2,6 +2,7 @@ package com.picme.backend.service.impl;
 
 import com.picme.backend.config.SendGridConfig;
 import com.picme.backend.service.EmailService;
+import com.sendgrid.Client;
 import com.sendgrid.Method;
 import com.sendgrid.Request;
 import com.sendgrid.Response;
@@ -9,22 +10,162 @@ import com.sendgrid.SendGrid;
 import com.sendgrid.helpers.mail.Mail;
 import com.sendgrid.helpers.mail.objects.Content;
 import com.sendgrid.helpers.mail.objects.Email;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * メール送信サービス実装
- * SendGrid未設定時はコンソールにURL出力（開発用フォールバック）
+ * 送信依頼は email_outbox に1行INSERTするだけで返し、コミット後にディスパッチャーを起こす。
+ *
+ * ディスパッチャーは空いているワーカー数までの行を FOR UPDATE SKIP LOCKED で期限付きで取り出し、
+ * 共有のSendGridクライアント（接続プール付き）で並列に送信する。
+ * 429・5xx・通信エラーは指数バックオフで再試行し、それ以外の4xxは送信不可として FAILED にする。
+ * SendGrid未設定時はコンソールに出力する（開発用フォールバック）。
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class EmailServiceImpl implements EmailService {
 
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO email_outbox (to_address, subject, body, status, attempts, next_attempt_at, created_at) " +
+            "VALUES (?, ?, ?, 'PENDING', 0, now(), now())";
+
+    private static final String CLAIM_SQL =
+            "UPDATE email_outbox SET status = 'SENDING', attempts = attempts + 1, " +
+            "  locked_until = now() + ? * interval '1 second' " +
+            "WHERE id IN (SELECT id FROM email_outbox " +
+            "  WHERE (status = 'PENDING' AND next_attempt_at <= now()) " +
+            "     OR (status = 'SENDING' AND locked_until <= now()) " +
+            "  ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, to_address, subject, body, attempts";
+
+    private static final String MARK_SENT_SQL =
+            "UPDATE email_outbox SET status = 'SENT', sent_at = now(), locked_until = NULL, last_error = NULL " +
+            "WHERE id = ?";
+
+    private static final String MARK_RETRY_SQL =
+            "UPDATE email_outbox SET status = 'PENDING', locked_until = NULL, last_error = ?, " +
+            "  next_attempt_at = now() + ? * interval '1 millisecond' WHERE id = ?";
+
+    private static final String MARK_FAILED_SQL =
+            "UPDATE email_outbox SET status = 'FAILED', locked_until = NULL, last_error = ? WHERE id = ?";
+
+    private static final String PENDING_STATS_SQL =
+            "SELECT COUNT(*), COALESCE(EXTRACT(EPOCH FROM now() - MIN(created_at)), 0) " +
+            "FROM email_outbox WHERE status IN ('PENDING', 'SENDING')";
+
+    // 本文に認証・リセット用のトークンを含むため、送信済みの行は短期間で削除する
+    private static final String PURGE_SQL =
+            "DELETE FROM email_outbox WHERE status = 'SENT' AND sent_at < now() - ? * interval '1 day'";
+
     private final SendGridConfig sendGridConfig;
+    private final JdbcTemplate jdbcTemplate;
+    private final int workers;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long leaseSeconds;
+    private final long pollIntervalMillis;
+    private final int retentionDays;
+
+    private final CloseableHttpClient httpClient;
+    private final SendGrid sendGrid;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService dispatcher;
+    private final AtomicBoolean dispatchRequested = new AtomicBoolean();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public EmailServiceImpl(
+            SendGridConfig sendGridConfig,
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.email-outbox.workers:4}") int workers,
+            @Value("${app.email-outbox.max-attempts:6}") int maxAttempts,
+            @Value("${app.email-outbox.retry-backoff-ms:10000}") long retryBackoffMillis,
+            @Value("${app.email-outbox.max-backoff-ms:1800000}") long maxBackoffMillis,
+            @Value("${app.email-outbox.lease-seconds:120}") long leaseSeconds,
+            @Value("${app.email-outbox.poll-interval-ms:5000}") long pollIntervalMillis,
+            @Value("${app.email-outbox.retention-days:7}") int retentionDays,
+            @Value("${app.email-outbox.connect-timeout-ms:10000}") int connectTimeoutMillis,
+            @Value("${app.email-outbox.socket-timeout-ms:30000}") int socketTimeoutMillis,
+            @Value("${app.email-outbox.connection-request-timeout-ms:5000}") int connectionRequestTimeoutMillis) {
+        this.sendGridConfig = sendGridConfig;
+        this.jdbcTemplate = jdbcTemplate;
+        this.workers = Math.max(1, workers);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.leaseSeconds = leaseSeconds;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.retentionDays = retentionDays;
+
+        // 送信ごとにクライアントを作らず、ワーカー数分の接続を使い回す
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(this.workers);
+        connectionManager.setDefaultMaxPerRoute(this.workers);
+        // 応答しない送信が期限（lease-seconds）を超えて残ると別のディスパッチャーが再送信するため、期限より十分短く打ち切る
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMillis)
+                .setSocketTimeout(socketTimeoutMillis)
+                .setConnectionRequestTimeout(connectionRequestTimeoutMillis)
+                .build();
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+        this.sendGrid = sendGridConfig.isConfigured()
+                ? new SendGrid(sendGridConfig.getApiKey(), new Client(httpClient))
+                : null;
+
+        // ディスパッチャーは空いているワーカー数までしか渡さないため、キューは溢れない
+        this.executor = new ThreadPoolExecutor(this.workers, this.workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(this.workers), namedThreads("email-sender-"));
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(namedThreads("email-dispatcher-"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        dispatcher.scheduleWithFixedDelay(this::dispatch, 0, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException, IOException {
+        dispatcher.shutdownNow();
+        executor.shutdown();
+        // 終わらなかった分は送信中の期限切れ後に再送信される
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        httpClient.close();
+    }
 
     @Override
     public void sendVerificationEmail(String to, String token) {
@@ -37,7 +178,7 @@ public class EmailServiceImpl implements EmailService {
                 + "このリンクは24時間有効です。\n\n"
                 + "心当たりがない場合は、このメールを無視してください。";
 
-        sendEmail(to, subject, body);
+        enqueue(to, subject, body);
     }
 
     @Override
@@ -51,7 +192,7 @@ public class EmailServiceImpl implements EmailService {
                 + "このリンクは1時間有効です。\n\n"
                 + "心当たりがない場合は、このメールを無視してください。";
 
-        sendEmail(to, subject, body);
+        enqueue(to, subject, body);
     }
 
     @Override
@@ -62,41 +203,200 @@ public class EmailServiceImpl implements EmailService {
                 + "件名: " + subject + "\n\n"
                 + "メッセージ:\n" + message;
 
-        sendEmail(to, emailSubject, body);
+        enqueue(to, emailSubject, body);
+    }
+
+    @Override
+    public Stats getStats() {
+        long[] pending = jdbcTemplate.queryForObject(PENDING_STATS_SQL,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+        return new Stats(
+                workers,
+                executor.getActiveCount(),
+                enqueued.get(),
+                sent.get(),
+                retries.get(),
+                failed.get(),
+                pending != null ? pending[0] : 0,
+                pending != null ? pending[1] : 0);
+    }
+
+    /**
+     * 送信済みの行を保持期間後に削除（FAILED は調査用に残す）
+     */
+    @Scheduled(cron = "${app.email-outbox.purge-cron:0 40 3 * * *}")
+    public void purge() {
+        try {
+            int deleted = jdbcTemplate.update(PURGE_SQL, retentionDays);
+            if (deleted > 0) {
+                log.info("送信済みメールを削除: {}件", deleted);
+            }
+        } catch (Exception e) {
+            log.error("送信済みメールの削除に失敗: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 送信依頼を保存（呼び出し元のトランザクションに参加し、コミット後に送信を開始する）
+     */
+    private void enqueue(String to, String subject, String body) {
+        jdbcTemplate.update(INSERT_SQL, to, subject, body);
+        enqueued.incrementAndGet();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    requestDispatch();
+                }
+            });
+        } else {
+            requestDispatch();
+        }
     }
 
-    private void sendEmail(String to, String subject, String body) {
-        if (!sendGridConfig.isConfigured()) {
+    private void requestDispatch() {
+        if (dispatchRequested.compareAndSet(false, true)) {
+            try {
+                dispatcher.execute(this::dispatch);
+            } catch (RuntimeException e) {
+                // 停止中（次回の定期実行で処理される）
+                dispatchRequested.set(false);
+            }
+        }
+    }
+
+    /**
+     * 送信待ちを空いているワーカー数まで取り出して送信を依頼
+     */
+    private void dispatch() {
+        dispatchRequested.set(false);
+        try {
+            int capacity = workers - inFlight.get();
+            while (capacity > 0) {
+                List<Claimed> claimed = jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new Claimed(
+                        rs.getLong("id"), rs.getString("to_address"), rs.getString("subject"),
+                        rs.getString("body"), rs.getInt("attempts")),
+                        leaseSeconds, capacity);
+                for (Claimed message : claimed) {
+                    inFlight.incrementAndGet();
+                    executor.execute(() -> deliver(message));
+                }
+                if (claimed.size() < capacity) {
+                    break;
+                }
+                capacity = workers - inFlight.get();
+            }
+        } catch (Exception e) {
+            log.error("メール送信待ちの取り出しに失敗: {}", e.getMessage());
+        }
+    }
+
+    private void deliver(Claimed message) {
+        try {
+            try {
+                send(message);
+            } catch (DeliveryException e) {
+                fail(message, e.getMessage(), e.retryable());
+                return;
+            } catch (IOException | RuntimeException e) {
+                fail(message, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName(), true);
+                return;
+            }
+
+            try {
+                jdbcTemplate.update(MARK_SENT_SQL, message.id());
+                sent.incrementAndGet();
+            } catch (Exception e) {
+                log.error("メール送信結果の保存に失敗: id={}, error={}", message.id(), e.getMessage());
+            }
+        } finally {
+            inFlight.decrementAndGet();
+            requestDispatch();
+        }
+    }
+
+    private void send(Claimed message) throws IOException {
+        if (sendGrid == null) {
             // 開発用フォールバック: コンソールに出力
             log.info("=== メール送信（開発モード） ===");
-            log.info("To: {}", to);
-            log.info("Subject: {}", subject);
-            log.info("Body:\n{}", body);
+            log.info("To: {}", message.to());
+            log.info("Subject: {}", message.subject());
+            log.info("Body:\n{}", message.body());
             log.info("=== メール送信終了 ===");
             return;
         }
 
+        Email from = new Email(sendGridConfig.getFromEmail(), sendGridConfig.getFromName());
+        Email toEmail = new Email(message.to());
+        Content content = new Content("text/plain", message.body());
+        Mail mail = new Mail(from, message.subject(), toEmail, content);
+
+        Request request = new Request();
+        request.setMethod(Method.POST);
+        request.setEndpoint("mail/send");
+        request.setBody(mail.build());
+
+        Response response = sendGrid.api(request);
+
+        int status = response.getStatusCode();
+        if (status >= 400) {
+            throw new DeliveryException("status=" + status + ", body=" + response.getBody(),
+                    status == 429 || status >= 500);
+        }
+        log.info("メール送信成功: to={}, subject={}", message.to(), message.subject());
+    }
+
+    private void fail(Claimed message, String error, boolean retryable) {
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+
         try {
-            Email from = new Email(sendGridConfig.getFromEmail(), sendGridConfig.getFromName());
-            Email toEmail = new Email(to);
-            Content content = new Content("text/plain", body);
-            Mail mail = new Mail(from, subject, toEmail, content);
-
-            SendGrid sg = new SendGrid(sendGridConfig.getApiKey());
-            Request request = new Request();
-            request.setMethod(Method.POST);
-            request.setEndpoint("mail/send");
-            request.setBody(mail.build());
-
-            Response response = sg.api(request);
-
-            if (response.getStatusCode() >= 400) {
-                log.error("SendGridメール送信失敗: status={}, body={}", response.getStatusCode(), response.getBody());
-            } else {
-                log.info("メール送信成功: to={}, subject={}", to, subject);
+            if (!retryable || message.attempts() >= maxAttempts) {
+                failed.incrementAndGet();
+                jdbcTemplate.update(MARK_FAILED_SQL, error, message.id());
+                log.error("メール送信失敗: to={}, subject={}, attempts={}, error={}",
+                        message.to(), message.subject(), message.attempts(), error);
+                return;
             }
-        } catch (IOException e) {
-            log.error("メール送信エラー: to={}, subject={}", to, subject, e);
+
+            long delay = Math.min(maxBackoffMillis, retryBackoffMillis << Math.min(20, message.attempts() - 1));
+            retries.incrementAndGet();
+            jdbcTemplate.update(MARK_RETRY_SQL, error, delay, message.id());
+            log.warn("メール送信エラー（{}ms後に再試行 {}/{}）: to={}, error={}",
+                    delay, message.attempts(), maxAttempts, message.to(), error);
+        } catch (Exception e) {
+            // 状態を更新できなかった場合は送信中の期限切れ後に再送信される
+            log.error("メール送信結果の保存に失敗: id={}, error={}", message.id(), e.getMessage());
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Claimed(long id, String to, String subject, String body, int attempts) {}
+
+    /**
+     * SendGridがエラーを返した場合の例外（再試行可否を持つ）
+     */
+    private static final class DeliveryException extends IOException {
+
+        private final boolean retryable;
+
+        DeliveryException(String message, boolean retryable) {
+            super(message);
+            this.retryable = retryable;
+        }
+
+        boolean retryable() {
+            return retryable;
         }
     }
 }
@@ -0,0 +1,127 @@
+package com.picme.backend.service.impl;
+
+import com.picme.backend.model.PlanType;
+import com.picme.backend.repository.UserRepository;
+import com.picme.backend.service.EntitlementService;
+import com.picme.backend.util.LruTtlCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * プランの利用権限サービス実装
+ * プランごとの利用権限は起動時に構築した表から返す。
+ * ユーザーの有効なプランはユーザーIDをキーに短時間キャッシュする（1クエリで解決）。
+ */
+@Service
+public class EntitlementServiceImpl implements EntitlementService {
+
+    private static final long MB = 1024L * 1024;
+
+    private static final Map<PlanType, PlanEntitlements> PLANS;
+
+    static {
+        Map<PlanType, PlanEntitlements> plans = new EnumMap<>(PlanType.class);
+        plans.put(PlanType.FREE, PlanEntitlements.builder()
+                .planType(PlanType.FREE)
+                .monthlyPrice(0)
+                .maxArtworks(5)
+                .maxStorageBytes(300 * MB)
+                .maxPosts(1)
+                .maxSocialLinks(2)
+                .maxCategories(0)
+                .hasAds(true)
+                .build());
+        plans.put(PlanType.STARTER, PlanEntitlements.builder()
+                .planType(PlanType.STARTER)
+                .monthlyPrice(480)
+                .maxArtworks(20)
+                .maxStorageBytes(1024 * MB)
+                .maxPosts(5)
+                .maxSocialLinks(5)
+                .maxCategories(0)
+                .build());
+        plans.put(PlanType.PRO, PlanEntitlements.builder()
+                .planType(PlanType.PRO)
+                .monthlyPrice(680)
+                .maxArtworks(50)
+                .maxStorageBytes(2048 * MB)
+                .maxPosts(20)
+                .maxSocialLinks(10)
+                .maxCategories(5)
+                .tags(true)
+                .markdown(true)
+                .analytics(true)
+                .inquiries(true)
+                .customCssMaxLines(100)
+                .build());
+        plans.put(PlanType.STUDIO, PlanEntitlements.builder()
+                .planType(PlanType.STUDIO)
+                .monthlyPrice(1980)
+                .maxArtworks(200)
+                .maxStorageBytes(10240 * MB)
+                .maxPosts(Integer.MAX_VALUE)
+                .maxSocialLinks(Integer.MAX_VALUE)
+                .maxCategories(Integer.MAX_VALUE)
+                .tags(true)
+                .markdown(true)
+                .analytics(true)
+                .inquiries(true)
+                .customCssMaxLines(500)
+                .build());
+        PLANS = Collections.unmodifiableMap(plans);
+    }
+
+    private final UserRepository userRepository;
+    private final LruTtlCache<Long, PlanType> effectivePlans;
+
+    public EntitlementServiceImpl(
+            UserRepository userRepository,
+            @Value("${app.entitlement-cache.max-size:10000}") int maxSize,
+            @Value("${app.entitlement-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.effectivePlans = new LruTtlCache<>(maxSize, ttlSeconds * 1000);
+    }
+
+    @Override
+    public PlanEntitlements forPlan(PlanType planType) {
+        return PLANS.get(planType != null ? planType : PlanType.FREE);
+    }
+
+    @Override
+    public PlanEntitlements forUser(Long userId) {
+        return forPlan(getEffectivePlan(userId));
+    }
+
+    @Override
+    public PlanType getEffectivePlan(Long userId) {
+        PlanType planType = effectivePlans.getOrLoad(userId,
+                id -> userRepository.findEffectivePlanType(id).orElse(PlanType.FREE));
+        return planType != null ? planType : PlanType.FREE;
+    }
+
+    @Override
+    public void invalidate(Long userId) {
+        effectivePlans.invalidate(userId);
+
+        // コミット前に別リクエストが旧データを再キャッシュする可能性があるため、コミット後にも破棄する
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    effectivePlans.invalidate(userId);
+                }
+            });
+        }
+    }
+
+    @Override
+    public LruTtlCache.Stats getCacheStats() {
+        return effectivePlans.stats();
+    }
+}
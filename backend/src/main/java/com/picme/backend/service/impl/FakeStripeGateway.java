@@ -0,0 +1,48 @@
+package com.picme.backend.service.impl;
+
+import com.picme.backend.service.StripeGateway;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ローカルのスタブ実装（検証環境向け）
+ * app.stripe-gateway.type が fake の場合に有効になり、Stripe API を呼び出さない。
+ *
+ * 登録したサブスクリプションだけを返す。登録のないIDはStripe側に存在しない扱いになり、
+ * 照合バッチはローカルのサブスクリプションをキャンセル済みに直す点に注意。
+ */
+@Service
+@ConditionalOnProperty(name = "app.stripe-gateway.type", havingValue = "fake")
+public class FakeStripeGateway implements StripeGateway {
+
+    private final Map<String, RemoteSubscription> subscriptions = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public Optional<RemoteSubscription> getSubscription(String subscriptionId) {
+        return Optional.ofNullable(subscriptions.get(subscriptionId));
+    }
+
+    /**
+     * サブスクリプションを登録（同じIDは上書き）
+     */
+    public void put(RemoteSubscription subscription) {
+        subscriptions.put(subscription.id(), subscription);
+    }
+
+    public void remove(String subscriptionId) {
+        subscriptions.remove(subscriptionId);
+    }
+
+    public void clear() {
+        subscriptions.clear();
+    }
+}
@@ -0,0 +1,166 @@
+package com.picme.backend.service.impl;
+
+import com.picme.backend.exception.ApiException;
+import com.picme.backend.model.StoredImage;
+import com.picme.backend.repository.StoredImageRepository;
+import com.picme.backend.repository.UserRepository;
+import com.picme.backend.service.CloudinaryService;
+import com.picme.backend.service.CloudinaryService.CloudinaryUploadResult;
+import com.picme.backend.service.ImageStoreService;
+import com.picme.backend.util.ImageFiles;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 重複排除付きの画像保存サービス実装
+ * ストレージへのアップロード前に (ユーザー, 内容ハッシュ) で既存の画像を探し、
+ * 見つかれば参照数を加算して既存の結果を返す。
+ *
+ * 同じ画像の同時アップロードで一意制約に当たった場合は、先に登録された画像を使い、
+ * 今回アップロードした分はストレージから削除する。
+ */
+@Service
+@Slf4j
+public class ImageStoreServiceImpl implements ImageStoreService {
+
+    private final StoredImageRepository storedImageRepository;
+    private final UserRepository userRepository;
+    private final CloudinaryService cloudinaryService;
+    private final TransactionTemplate transactionTemplate;
+
+    public ImageStoreServiceImpl(
+            StoredImageRepository storedImageRepository,
+            UserRepository userRepository,
+            CloudinaryService cloudinaryService,
+            PlatformTransactionManager transactionManager) {
+        this.storedImageRepository = storedImageRepository;
+        this.userRepository = userRepository;
+        this.cloudinaryService = cloudinaryService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public CloudinaryUploadResult store(MultipartFile file, String folder, Long userId) {
+        cloudinaryService.validateUpload(file);
+
+        Path spool = null;
+        try {
+            spool = Files.createTempFile("picme-upload-", ".tmp");
+            file.transferTo(spool.toFile());
+            return store(spool, null, folder, userId);
+        } catch (IOException e) {
+            log.error("画像アップロード失敗: {}", e.getMessage(), e);
+            throw ApiException.badRequest("画像のアップロードに失敗しました");
+        } finally {
+            if (spool != null) {
+                try {
+                    Files.deleteIfExists(spool);
+                } catch (IOException e) {
+                    log.warn("一時ファイルの削除に失敗: file={}, error={}", spool, e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public CloudinaryUploadResult store(Path file, String contentHash, String folder, Long userId) {
+        String hash;
+        try {
+            hash = contentHash != null ? contentHash : ImageFiles.sha256Hex(file);
+        } catch (IOException e) {
+            log.error("画像のハッシュ計算に失敗: file={}, error={}", file, e.getMessage());
+            throw ApiException.badRequest("画像のアップロードに失敗しました");
+        }
+
+        CloudinaryUploadResult existing = reuse(userId, hash);
+        if (existing != null) {
+            log.info("重複画像を再利用: publicId={}, user={}", existing.publicId(), userId);
+            return existing;
+        }
+
+        CloudinaryUploadResult uploaded = cloudinaryService.uploadImage(file, folder, userId);
+        try {
+            transactionTemplate.executeWithoutResult(status -> storedImageRepository.save(StoredImage.builder()
+                    .user(userRepository.getReferenceById(userId))
+                    .contentHash(hash)
+                    .publicId(uploaded.publicId())
+                    .secureUrl(uploaded.secureUrl())
+                    .thumbnailUrl(uploaded.thumbnailUrl())
+                    .bytes(uploaded.bytes())
+                    .width(uploaded.width())
+                    .height(uploaded.height())
+                    .build()));
+            return uploaded;
+        } catch (DataIntegrityViolationException e) {
+            // 同じ画像が同時にアップロードされた
+            CloudinaryUploadResult winner = reuse(userId, hash);
+            if (winner == null) {
+                return uploaded;
+            }
+            cloudinaryService.deleteImage(uploaded.publicId());
+            return winner;
+        }
+    }
+
+    @Override
+    public void release(String publicId) {
+        if (publicId == null || publicId.isEmpty()) {
+            return;
+        }
+
+        Boolean unused = transactionTemplate.execute(status -> storedImageRepository.findForUpdateByPublicId(publicId)
+                .map(image -> {
+                    if (image.getReferenceCount() > 1) {
+                        image.setReferenceCount(image.getReferenceCount() - 1);
+                        return false;
+                    }
+                    storedImageRepository.delete(image);
+                    return true;
+                })
+                // 重複排除の導入前にアップロードされた画像
+                .orElse(true));
+
+        if (!Boolean.TRUE.equals(unused)) {
+            return;
+        }
+
+        // ロールバックされた場合に参照中の画像を消さないよう、コミット後に削除する
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cloudinaryService.deleteImage(publicId);
+                }
+            });
+        } else {
+            cloudinaryService.deleteImage(publicId);
+        }
+    }
+
+    /**
+     * 同じ内容の画像があれば参照数を加算して返す
+     */
+    private CloudinaryUploadResult reuse(Long userId, String hash) {
+        return transactionTemplate.execute(status -> storedImageRepository.findByUserIdAndContentHash(userId, hash)
+                // 解放と競合して削除済みの場合は未登録として扱う
+                .filter(image -> storedImageRepository.incrementReferenceCount(image.getId()) > 0)
+                .map(image -> new CloudinaryUploadResult(
+                        image.getPublicId(),
+                        image.getSecureUrl(),
+                        image.getThumbnailUrl(),
+                        image.getBytes(),
+                        image.getWidth(),
+                        image.getHeight()))
+                .orElse(null));
+    }
+}
@@ -0,0 +1,343 @@
+package com.picme.backend.service.impl;
+
+import com.picme.backend.model.Artwork;
+import com.picme.backend.model.ArtworkStatus;
+import com.picme.backend.model.ImageVariant;
+import com.picme.backend.repository.ArtworkRepository;
+import com.picme.backend.service.CloudinaryService.CloudinaryUploadResult;
+import com.picme.backend.service.ImageStoreService;
+import com.picme.backend.service.ImageVariantService;
+import com.picme.backend.service.PublicPageService;
+import com.picme.backend.util.ImageFiles;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * レスポンシブ画像バリアント生成サービス実装
+ * 専用の固定数ワーカーと有界キューで、作品画像から設定された幅の縮小画像を生成する。
+ *
+ * 元画像は最大幅の2倍程度までサブサンプリングしながらデコードし、巨大な画像でもヒープ使用量を抑える。
+ * 極端に縦長の画像でも展開後の画素数が (最大幅の2倍)^2 を超えないよう、縦横両方の寸法から間引き率を決める。
+ * ヘッダーの寸法が max-source-pixels を超える画像はデコードせずに対象外とする。
+ * 縮小は大きい幅から順に半分ずつ段階的に行い、前段の結果を次の幅の元にする。
+ * 透過のある画像はPNG、それ以外はJPEGで出力する。
+ * アニメーションを含みうるGIFと、標準のImageIOで読めないWebPは対象外（元画像のみ）とする。
+ */
+@Service
+@Slf4j
+public class ImageVariantServiceImpl implements ImageVariantService {
+
+    private static final String FOLDER = "artworks/variants";
+
+    private final ArtworkRepository artworkRepository;
+    private final ImageStoreService imageStoreService;
+    private final PublicPageService publicPageService;
+    private final TransactionTemplate transactionTemplate;
+    private final int[] widths;
+    private final long maxSourcePixels;
+    private final float jpegQuality;
+    private final int workers;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor executor;
+
+    // 受け付け済みで未処理の元画像ファイル
+    private final Set<Path> pendingSources = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public ImageVariantServiceImpl(
+            ArtworkRepository artworkRepository,
+            ImageStoreService imageStoreService,
+            PublicPageService publicPageService,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.image-variants.widths:320,640,1280}") int[] widths,
+            @Value("${app.image-variants.jpeg-quality:0.82}") float jpegQuality,
+            @Value("${app.image-variants.workers:2}") int workers,
+            @Value("${app.image-variants.queue-capacity:50}") int queueCapacity,
+            @Value("${app.image-variants.max-source-pixels:100000000}") long maxSourcePixels) {
+        this.artworkRepository = artworkRepository;
+        this.imageStoreService = imageStoreService;
+        this.publicPageService = publicPageService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // 大きい幅から生成するため降順で保持する
+        this.widths = Arrays.stream(widths).filter(width -> width > 0).distinct()
+                .boxed().sorted(Comparator.reverseOrder()).mapToInt(Integer::intValue).toArray();
+        this.maxSourcePixels = maxSourcePixels;
+        this.jpegQuality = jpegQuality;
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-variant-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public boolean submit(Long artworkId, Long userId, Path source) {
+        if (widths.length == 0) {
+            return false;
+        }
+        pendingSources.add(source);
+        try {
+            executor.execute(() -> process(artworkId, userId, source));
+            submitted.incrementAndGet();
+            return true;
+        } catch (RejectedExecutionException e) {
+            pendingSources.remove(source);
+            rejected.incrementAndGet();
+            log.warn("Image variant queue is full, skipping artwork {}", artworkId);
+            return false;
+        }
+    }
+
+    @Override
+    public Set<Path> pendingSources() {
+        return Collections.unmodifiableSet(pendingSources);
+    }
+
+    @Override
+    public void deleteVariants(List<ImageVariant> variants) {
+        if (variants == null) {
+            return;
+        }
+        for (ImageVariant variant : variants) {
+            imageStoreService.release(variant.publicId());
+        }
+    }
+
+    @Override
+    public Stats getStats() {
+        return new Stats(
+                workers,
+                executor.getActiveCount(),
+                executor.getQueue().size(),
+                queueCapacity,
+                submitted.get(),
+                rejected.get(),
+                completed.get(),
+                skipped.get(),
+                failed.get());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // バリアントは任意のため、未処理分は破棄する（作品は元画像のみで表示される）
+        executor.shutdownNow();
+    }
+
+    private void process(Long artworkId, Long userId, Path source) {
+        List<ImageVariant> variants = new ArrayList<>();
+        try {
+            String contentType = ImageFiles.detectContentType(source);
+            if (!"image/jpeg".equals(contentType) && !"image/png".equals(contentType)) {
+                skipped.incrementAndGet();
+                return;
+            }
+
+            BufferedImage decoded = decode(source, widths[0]);
+            if (decoded == null) {
+                skipped.incrementAndGet();
+                return;
+            }
+
+            boolean alpha = decoded.getColorModel().hasAlpha();
+            BufferedImage current = decoded;
+            for (int width : widths) {
+                // デコードした画像より大きいバリアントは作らない（拡大はしない）
+                if (width >= decoded.getWidth()) {
+                    continue;
+                }
+                current = resize(current, width, alpha);
+                variants.add(store(current, alpha, userId));
+            }
+
+            if (variants.isEmpty()) {
+                skipped.incrementAndGet();
+                return;
+            }
+            variants.sort(Comparator.comparingInt(ImageVariant::width));
+
+            Boolean stored = transactionTemplate.execute(status -> {
+                Artwork artwork = artworkRepository.findById(artworkId).orElse(null);
+                if (artwork == null || artwork.getStatus() != ArtworkStatus.READY) {
+                    return false;
+                }
+                artwork.setVariants(variants);
+                artworkRepository.save(artwork);
+                publicPageService.invalidate(artwork.getUser());
+                return true;
+            });
+
+            // 生成中に作品が削除された場合はバリアントも残さない
+            if (!Boolean.TRUE.equals(stored)) {
+                deleteVariants(variants);
+                return;
+            }
+
+            completed.incrementAndGet();
+            log.info("Generated {} image variants for artwork {}", variants.size(), artworkId);
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            log.error("Failed to generate image variants for artwork {}: {}", artworkId, e.getMessage());
+            deleteVariants(variants);
+        } finally {
+            try {
+                Files.deleteIfExists(source);
+            } catch (IOException e) {
+                log.warn("Failed to delete variant source {}: {}", source, e.getMessage());
+            }
+            pendingSources.remove(source);
+        }
+    }
+
+    /**
+     * 最大バリアント幅の2倍を下回らない範囲でサブサンプリングしながらデコード
+     * 展開後の画素数が上限を超える場合は高さも考慮して間引き率を上げる
+     *
+     * @return デコードした画像（対象外の形式・寸法の場合はnull）
+     */
+    private BufferedImage decode(Path source, int maxWidth) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long sourceWidth = reader.getWidth(0);
+                long sourceHeight = reader.getHeight(0);
+                if (sourceWidth * sourceHeight > maxSourcePixels) {
+                    log.info("Skipping image variants for {}x{} image (over {} pixels)",
+                            sourceWidth, sourceHeight, maxSourcePixels);
+                    return null;
+                }
+
+                long decodeBudget = 4L * maxWidth * maxWidth;
+                int factor = (int) Math.max(1, sourceWidth / (maxWidth * 2L));
+                while ((sourceWidth / factor) * (sourceHeight / factor) > decodeBudget) {
+                    factor++;
+                }
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (factor > 1) {
+                    param.setSourceSubsampling(factor, factor, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 半分ずつ段階的に縮小し、最後に目的の幅へ合わせる（一度に大きく縮小した場合のジャギーを避ける）
+     */
+    private static BufferedImage resize(BufferedImage source, int targetWidth, boolean alpha) {
+        int targetHeight = Math.max(1, (int) Math.round((double) source.getHeight() * targetWidth / source.getWidth()));
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = width == targetWidth ? targetHeight : Math.max(targetHeight, height / 2);
+
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                if (!alpha) {
+                    graphics.setColor(Color.WHITE);
+                    graphics.fillRect(0, 0, width, height);
+                }
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width != targetWidth);
+
+        return current;
+    }
+
+    /**
+     * バリアントを書き出してストレージへ保存
+     */
+    private ImageVariant store(BufferedImage image, boolean alpha, Long userId) throws IOException {
+        String format = alpha ? "png" : "jpeg";
+        Path file = Files.createTempFile("picme-variant-", alpha ? ".png" : ".jpg");
+        try {
+            if (alpha) {
+                ImageIO.write(image, "png", file.toFile());
+            } else {
+                writeJpeg(image, file);
+            }
+            CloudinaryUploadResult result = imageStoreService.store(file, null, FOLDER, userId);
+            return new ImageVariant(image.getWidth(), image.getHeight(), format,
+                    result.secureUrl(), result.publicId(), result.bytes());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void writeJpeg(BufferedImage image, Path file) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality);
+        param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file.toFile())) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.picme.backend.service.impl;
+
+import com.picme.backend.exception.ApiException;
+import com.picme.backend.service.CloudinaryService;
+import com.picme.backend.util.ImageFiles;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ローカルファイルシステムの画像ストレージ実装（セルフホスト・検証環境向け）
+ * app.image-storage.type が local の場合に CloudinaryService の代わりに有効になる。
+ *
+ * 画像は内容のSHA-256を名前にして blobs/ 以下に保存し、同じ内容は1ファイルにまとめる。
+ * アップロードごとに refs/{ハッシュ}/ に参照を作り、publicId は参照を指す。
+ * 削除時は参照を消し、参照がなくなった時点で本体を削除する。
+ * URLは内容で決まり変化しないため、配信側で長期キャッシュを指定できる。
+ *
+ * 変換機能はないため、最適化・サムネイルURLは元画像のURLを返す。
+ */
+@Service
+@ConditionalOnProperty(name = "app.image-storage.type", havingValue = "local")
+@Slf4j
+public class LocalImageStorageService implements CloudinaryService {
+
+    private static final Pattern BLOB_NAME = Pattern.compile("^([0-9a-f]{64})\\.(jpg|png|gif|webp)$");
+    private static final Pattern PUBLIC_ID = Pattern.compile("^local/([0-9a-f]{64}\\.(?:jpg|png|gif|webp))/([A-Za-z0-9_-]+)$");
+    private static final Pattern SAFE_SEGMENT = Pattern.compile("[^A-Za-z0-9_]");
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path blobs;
+    private final Path refs;
+    private final Path tmp;
+    private final String publicBaseUrl;
+
+    // 同じ内容の保存と最後の参照の削除が競合しないよう、ハッシュ単位で排他する
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public LocalImageStorageService(
+            @Value("${app.image-storage.local.root:./data/images}") String root,
+            @Value("${app.image-storage.local.public-base-url:http://localhost:8080/api/public/images}") String publicBaseUrl) throws IOException {
+        Path rootDir = Paths.get(root).toAbsolutePath().normalize();
+        this.blobs = Files.createDirectories(rootDir.resolve("blobs"));
+        this.refs = Files.createDirectories(rootDir.resolve("refs"));
+        // 本体への移動をリネームで行えるよう、一時ファイルも同じルート以下に置く
+        this.tmp = Files.createDirectories(rootDir.resolve("tmp"));
+        this.publicBaseUrl = publicBaseUrl.endsWith("/")
+                ? publicBaseUrl.substring(0, publicBaseUrl.length() - 1)
+                : publicBaseUrl;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        log.info("Local image storage enabled: root={}", rootDir);
+    }
+
+    @Override
+    public CloudinaryUploadResult uploadImage(MultipartFile file, String folder, Long userId) {
+        validateUpload(file);
+
+        Path spool = null;
+        try {
+            spool = Files.createTempFile(tmp, "upload-", ".tmp");
+            file.transferTo(spool.toFile());
+            MessageDigest digest = ImageFiles.newSha256();
+            ImageFiles.digest(spool, digest);
+            return store(spool, digest, folder, userId);
+        } catch (IOException e) {
+            log.error("画像保存失敗: {}", e.getMessage(), e);
+            throw ApiException.badRequest("画像のアップロードに失敗しました");
+        } finally {
+            deleteQuietly(spool);
+        }
+    }
+
+    @Override
+    public CloudinaryUploadResult uploadImage(Path file, String folder, Long userId) {
+        // 呼び出し側の一時ファイルは呼び出し側で削除するため、コピーしてから取り込む
+        Path spool = null;
+        try (InputStream input = Files.newInputStream(file)) {
+            spool = Files.createTempFile(tmp, "upload-", ".tmp");
+            MessageDigest digest = ImageFiles.newSha256();
+            ImageFiles.copyWithLimit(input, spool, digest);
+            return store(spool, digest, folder, userId);
+        } catch (IOException e) {
+            log.error("画像保存失敗: file={}, error={}", file, e.getMessage());
+            throw ApiException.badRequest("画像のアップロードに失敗しました");
+        } finally {
+            deleteQuietly(spool);
+        }
+    }
+
+    @Override
+    public void validateUpload(MultipartFile file) {
+        ImageFiles.validate(file);
+    }
+
+    @Override
+    public void deleteImage(String publicId) {
+        if (publicId == null || publicId.isEmpty()) {
+            return;
+        }
+
+        Matcher matcher = PUBLIC_ID.matcher(publicId);
+        if (!matcher.matches()) {
+            // ストレージ切り替え前のCloudinary画像など
+            log.warn("ローカルストレージの画像ではないため、削除をスキップします: publicId={}", publicId);
+            return;
+        }
+
+        String name = matcher.group(1);
+        String hash = name.substring(0, 64);
+        Path refDir = refs.resolve(hash);
+
+        try {
+            synchronized (lockFor(hash)) {
+                Files.deleteIfExists(refDir.resolve(matcher.group(2)));
+                if (isEmptyDirectory(refDir)) {
+                    Files.deleteIfExists(refDir);
+                    Files.deleteIfExists(blobPath(name));
+                }
+            }
+            log.info("画像削除成功: publicId={}", publicId);
+        } catch (IOException e) {
+            log.error("画像削除失敗: publicId={}, error={}", publicId, e.getMessage());
+        }
+    }
+
+    @Override
+    public String getOptimizedUrl(String publicId, int width, int quality) {
+        return urlFor(publicId);
+    }
+
+    @Override
+    public String getThumbnailUrl(String publicId, int width) {
+        return urlFor(publicId);
+    }
+
+    /**
+     * 画像名（{ハッシュ}.{拡張子}）から保存先のファイルを取得（配信用）
+     */
+    public Optional<Path> resolve(String name) {
+        if (name == null || !BLOB_NAME.matcher(name).matches()) {
+            return Optional.empty();
+        }
+        Path blob = blobPath(name);
+        return Files.isRegularFile(blob) ? Optional.of(blob) : Optional.empty();
+    }
+
+    /**
+     * 一時ファイルを内容のハッシュで本体として取り込み、参照を作成する
+     */
+    private CloudinaryUploadResult store(Path spool, MessageDigest digest, String folder, Long userId) throws IOException {
+        String contentType = ImageFiles.detectContentType(spool);
+        if (contentType == null) {
+            throw ImageFiles.unsupportedType();
+        }
+
+        String hash = HexFormat.of().formatHex(digest.digest());
+        String name = hash + "." + ImageFiles.extensionFor(contentType);
+        String refId = userId + "_" + SAFE_SEGMENT.matcher(folder).replaceAll("") + "-" + UUID.randomUUID();
+        Path blob = blobPath(name);
+        long bytes = Files.size(spool);
+
+        synchronized (lockFor(hash)) {
+            if (!Files.exists(blob)) {
+                Files.createDirectories(blob.getParent());
+                Files.move(spool, blob, StandardCopyOption.ATOMIC_MOVE);
+            }
+            Path refDir = Files.createDirectories(refs.resolve(hash));
+            Files.createFile(refDir.resolve(refId));
+        }
+
+        String publicId = "local/" + name + "/" + refId;
+        String url = publicBaseUrl + "/" + name;
+        int[] size = readDimensions(blob);
+
+        log.info("画像保存成功: publicId={}, size={}bytes, user={}", publicId, bytes, userId);
+
+        return new CloudinaryUploadResult(publicId, url, url, bytes, size[0], size[1]);
+    }
+
+    private String urlFor(String publicId) {
+        Matcher matcher = PUBLIC_ID.matcher(publicId != null ? publicId : "");
+        return matcher.matches() ? publicBaseUrl + "/" + matcher.group(1) : null;
+    }
+
+    private Path blobPath(String name) {
+        return blobs.resolve(name.substring(0, 2)).resolve(name);
+    }
+
+    private Object lockFor(String hash) {
+        return locks[Integer.parseInt(hash.substring(0, 2), 16) % LOCK_STRIPES];
+    }
+
+    /**
+     * 画像のヘッダーから幅・高さを取得（全体はデコードしない、読めない形式は0）
+     */
+    private int[] readDimensions(Path file) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return new int[]{0, 0};
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return new int[]{reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            return new int[]{0, 0};
+        }
+    }
+
+    private static boolean isEmptyDirectory(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return false;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            return !entries.iterator().hasNext();
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("一時ファイルの削除に失敗: file={}, error={}", path, e.getMessage());
+        }
+    }
+}
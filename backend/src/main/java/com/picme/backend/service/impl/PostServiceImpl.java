@@ -3,12 +3,15 @@ package com.picme.backend.service.impl;
 import com.picme.backend.dto.request.PostRequest;
 import com.picme.backend.dto.response.PostResponse;
 import com.picme.backend.exception.ApiException;
-import com.picme.backend.model.PlanType;
 import com.picme.backend.model.Post;
 import com.picme.backend.model.User;
 import com.picme.backend.repository.PostRepository;
-import com.picme.backend.repository.UserRepository;
+import com.picme.backend.security.AuthenticatedUser;
+import com.picme.backend.security.CurrentUserResolver;
+import com.picme.backend.service.EntitlementService;
 import com.picme.backend.service.PostService;
+import com.picme.backend.service.PublicPageService;
+import com.picme.backend.service.UserUsageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -27,12 +30,16 @@ import java.util.stream.Collectors;
 public class PostServiceImpl implements PostService {
 
     private final PostRepository postRepository;
-    private final UserRepository userRepository;
+    private final CurrentUserResolver currentUserResolver;
+    private final PublicPageService publicPageService;
+    private final UserUsageService userUsageService;
+    private final EntitlementService entitlementService;
 
     @Override
     @Transactional(readOnly = true)
     public List<PostResponse> getPosts(String email) {
-        User user = getUserByEmail(email);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
 
         return postRepository.findByUserOrderByCreatedAtDesc(user)
                 .stream()
@@ -43,7 +50,8 @@ public class PostServiceImpl implements PostService {
     @Override
     @Transactional(readOnly = true)
     public PostResponse getPost(String email, Long postId) {
-        User user = getUserByEmail(email);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
 
         Post post = postRepository.findByIdAndUser(postId, user)
                 .orElseThrow(() -> ApiException.notFound("投稿"));
@@ -54,19 +62,20 @@ public class PostServiceImpl implements PostService {
     @Override
     @Transactional
     public PostResponse createPost(String email, PostRequest request) {
-        User user = getUserByEmail(email);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
 
         // プラン制限チェック
-        checkPostLimit(user);
+        checkPostLimit(principal);
 
         // Markdown使用チェック（Pro以上のみ）
-        if (containsMarkdown(request.getContent()) && !canUseMarkdown(user.getPlanType())) {
+        if (containsMarkdown(request.getContent()) && !canUseMarkdown(principal)) {
             throw ApiException.forbidden("マークダウン記法はProプラン以上でご利用いただけます");
         }
 
         // MARKDOWN形式はPro以上のみ
         String format = request.getContentFormat() != null ? request.getContentFormat() : "PLAIN";
-        if ("MARKDOWN".equals(format) && !canUseMarkdown(user.getPlanType())) {
+        if ("MARKDOWN".equals(format) && !canUseMarkdown(principal)) {
             throw ApiException.forbidden("マークダウン記法はProプラン以上でご利用いただけます");
         }
 
@@ -82,6 +91,8 @@ public class PostServiceImpl implements PostService {
 
         post = postRepository.save(post);
 
+        publicPageService.invalidate(principal.getId(), principal.getPublicUsername());
+
         log.info("Post created: {} for user: {}", post.getId(), email);
 
         return mapToResponse(post);
@@ -90,13 +101,14 @@ public class PostServiceImpl implements PostService {
     @Override
     @Transactional
     public PostResponse updatePost(String email, Long postId, PostRequest request) {
-        User user = getUserByEmail(email);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
 
         Post post = postRepository.findByIdAndUser(postId, user)
                 .orElseThrow(() -> ApiException.notFound("投稿"));
 
         // Markdown使用チェック（Pro以上のみ）
-        if (request.getContent() != null && containsMarkdown(request.getContent()) && !canUseMarkdown(user.getPlanType())) {
+        if (request.getContent() != null && containsMarkdown(request.getContent()) && !canUseMarkdown(principal)) {
             throw ApiException.forbidden("マークダウン記法はProプラン以上でご利用いただけます");
         }
 
@@ -118,7 +130,7 @@ public class PostServiceImpl implements PostService {
             post.setVisible(request.getVisible());
         }
         if (request.getContentFormat() != null) {
-            if ("MARKDOWN".equals(request.getContentFormat()) && !canUseMarkdown(user.getPlanType())) {
+            if ("MARKDOWN".equals(request.getContentFormat()) && !canUseMarkdown(principal)) {
                 throw ApiException.forbidden("マークダウン記法はProプラン以上でご利用いただけます");
             }
             post.setContentFormat(request.getContentFormat());
@@ -126,6 +138,8 @@ public class PostServiceImpl implements PostService {
 
         post = postRepository.save(post);
 
+        publicPageService.invalidate(principal.getId(), principal.getPublicUsername());
+
         log.info("Post updated: {} for user: {}", post.getId(), email);
 
         return mapToResponse(post);
@@ -134,12 +148,16 @@ public class PostServiceImpl implements PostService {
     @Override
     @Transactional
     public void deletePost(String email, Long postId) {
-        User user = getUserByEmail(email);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
 
         Post post = postRepository.findByIdAndUser(postId, user)
                 .orElseThrow(() -> ApiException.notFound("投稿"));
 
         postRepository.delete(post);
+        userUsageService.decrement(principal.getId(), UserUsageService.Counter.POSTS, 1);
+
+        publicPageService.invalidate(principal.getId(), principal.getPublicUsername());
 
         log.info("Post deleted: {} for user: {}", postId, email);
     }
@@ -147,7 +165,8 @@ public class PostServiceImpl implements PostService {
     @Override
     @Transactional
     public PostResponse toggleVisibility(String email, Long postId) {
-        User user = getUserByEmail(email);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
 
         Post post = postRepository.findByIdAndUser(postId, user)
                 .orElseThrow(() -> ApiException.notFound("投稿"));
@@ -162,6 +181,8 @@ public class PostServiceImpl implements PostService {
 
         post = postRepository.save(post);
 
+        publicPageService.invalidate(principal.getId(), principal.getPublicUsername());
+
         log.info("Post visibility toggled: {} to {} for user: {}", postId, newVisibility, email);
 
         return mapToResponse(post);
@@ -190,43 +211,22 @@ public class PostServiceImpl implements PostService {
     }
 
     /**
-     * メールアドレスでユーザーを取得
-     */
-    private User getUserByEmail(String email) {
-        return userRepository.findByEmail(email)
-                .orElseThrow(ApiException::userNotFound);
-    }
-
-    /**
-     * 投稿数の制限をチェック
+     * 投稿数の制限をチェックして使用量に加算
      */
-    private void checkPostLimit(User user) {
-        long currentCount = postRepository.countByUser(user);
-        int limit = getPostLimit(user.getPlanType());
+    private void checkPostLimit(AuthenticatedUser principal) {
+        int limit = entitlementService.forUser(principal.getId()).maxPosts();
 
-        if (currentCount >= limit) {
+        if (userUsageService.tryIncrement(principal.getId(), UserUsageService.Counter.POSTS, 1, limit).isEmpty()) {
             throw ApiException.limitExceeded(
                     String.format("投稿数の上限（%d件）に達しています。プランをアップグレードしてください。", limit));
         }
     }
 
-    /**
-     * プランごとの投稿数上限を取得
-     */
-    private int getPostLimit(PlanType planType) {
-        return switch (planType) {
-            case FREE -> 1;
-            case STARTER -> 5;
-            case PRO -> 20;
-            case STUDIO -> Integer.MAX_VALUE; // 無制限
-        };
-    }
-
     /**
      * Markdown記法が使用可能かチェック
      */
-    private boolean canUseMarkdown(PlanType planType) {
-        return planType == PlanType.PRO || planType == PlanType.STUDIO;
+    private boolean canUseMarkdown(AuthenticatedUser principal) {
+        return entitlementService.forUser(principal.getId()).markdown();
     }
 
     /**
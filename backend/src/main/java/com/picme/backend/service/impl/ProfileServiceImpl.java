@@ -7,18 +7,21 @@ import com.picme.backend.model.Profile;
 import com.picme.backend.model.User;
 import com.picme.backend.repository.ProfileRepository;
 import com.picme.backend.repository.UserRepository;
-import com.picme.backend.model.PlanType;
-import com.picme.backend.service.CloudinaryService;
 import com.picme.backend.service.CloudinaryService.CloudinaryUploadResult;
+import com.picme.backend.service.EntitlementService;
+import com.picme.backend.service.ImageStoreService;
 import com.picme.backend.service.ProfileService;
+import com.picme.backend.service.PublicPageService;
 import com.picme.backend.util.CssSanitizer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.Set;
+import java.util.function.Function;
 
 /**
  * プロフィールサービス実装
@@ -32,7 +35,10 @@ public class ProfileServiceImpl implements ProfileService {
 
     private final ProfileRepository profileRepository;
     private final UserRepository userRepository;
-    private final CloudinaryService cloudinaryService;
+    private final ImageStoreService imageStoreService;
+    private final PublicPageService publicPageService;
+    private final EntitlementService entitlementService;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     @Transactional(readOnly = true)
@@ -52,7 +58,7 @@ public class ProfileServiceImpl implements ProfileService {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(ApiException::userNotFound);
 
-        Profile profile = profileRepository.findByUserId(user.getId())
+        Profile profile = profileRepository.findForUpdateByUserId(user.getId())
                 .orElseThrow(() -> ApiException.notFound("プロフィール"));
 
         // 更新可能なフィールドを更新
@@ -62,11 +68,16 @@ public class ProfileServiceImpl implements ProfileService {
         if (request.getBio() != null) {
             profile.setBio(request.getBio());
         }
-        if (request.getAvatarUrl() != null) {
+        // URLを直接指定して画像を差し替えた場合は、アップロード済みの画像の参照を解放する
+        if (request.getAvatarUrl() != null && !request.getAvatarUrl().equals(profile.getAvatarUrl())) {
+            imageStoreService.release(profile.getAvatarPublicId());
             profile.setAvatarUrl(request.getAvatarUrl());
+            profile.setAvatarPublicId(null);
         }
-        if (request.getHeaderUrl() != null) {
+        if (request.getHeaderUrl() != null && !request.getHeaderUrl().equals(profile.getHeaderUrl())) {
+            imageStoreService.release(profile.getHeaderPublicId());
             profile.setHeaderUrl(request.getHeaderUrl());
+            profile.setHeaderPublicId(null);
         }
         if (request.getTheme() != null) {
             if (!VALID_THEMES.contains(request.getTheme())) {
@@ -92,6 +103,8 @@ public class ProfileServiceImpl implements ProfileService {
 
         profile = profileRepository.save(profile);
 
+        publicPageService.invalidate(user);
+
         log.info("Profile updated for user: {}", email);
 
         return mapToResponse(profile);
@@ -112,43 +125,77 @@ public class ProfileServiceImpl implements ProfileService {
     }
 
     @Override
-    @Transactional
     public ProfileResponse uploadAvatar(String email, MultipartFile file) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(ApiException::userNotFound);
 
-        Profile profile = profileRepository.findByUserId(user.getId())
-                .orElseThrow(() -> ApiException.notFound("プロフィール"));
-
-        // 既存のアバターがCloudinaryにある場合は削除
-        // avatarUrlからpublicIdを抽出する代わりに、新しい画像で上書き
-        CloudinaryUploadResult result = cloudinaryService.uploadImage(file, "avatars", user.getId());
+        // 画像のアップロード中はトランザクション（DB接続）を保持しない
+        // 同じ画像が保存済みの場合はアップロードせずに再利用する
+        CloudinaryUploadResult result = imageStoreService.store(file, "avatars", user.getId());
 
-        profile.setAvatarUrl(result.secureUrl());
-        profile = profileRepository.save(profile);
+        ProfileResponse response = saveUploadedImage(result, profile -> {
+            String previous = profile.getAvatarPublicId();
+            profile.setAvatarUrl(result.secureUrl());
+            profile.setAvatarPublicId(result.publicId());
+            return previous;
+        }, user);
 
         log.info("Avatar uploaded for user: {}", email);
 
-        return mapToResponse(profile);
+        return response;
     }
 
     @Override
-    @Transactional
     public ProfileResponse uploadHeader(String email, MultipartFile file) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(ApiException::userNotFound);
 
-        Profile profile = profileRepository.findByUserId(user.getId())
-                .orElseThrow(() -> ApiException.notFound("プロフィール"));
-
-        CloudinaryUploadResult result = cloudinaryService.uploadImage(file, "headers", user.getId());
+        CloudinaryUploadResult result = imageStoreService.store(file, "headers", user.getId());
 
-        profile.setHeaderUrl(result.secureUrl());
-        profile = profileRepository.save(profile);
+        ProfileResponse response = saveUploadedImage(result, profile -> {
+            String previous = profile.getHeaderPublicId();
+            profile.setHeaderUrl(result.secureUrl());
+            profile.setHeaderPublicId(result.publicId());
+            return previous;
+        }, user);
 
         log.info("Header uploaded for user: {}", email);
 
-        return mapToResponse(profile);
+        return response;
+    }
+
+    /**
+     * アップロードした画像をプロフィールに保存し、差し替え前の画像の参照を解放する
+     * 参照数の調整はプロフィールの更新と同じトランザクションで行い、ストレージからの削除はコミット後に行われる。
+     * 同じ画像を同じ枠に再アップロードした場合は、store() で加算した参照を戻す。
+     *
+     * @param apply プロフィールに画像を設定し、差し替え前の publicId を返す
+     */
+    private ProfileResponse saveUploadedImage(CloudinaryUploadResult result,
+                                              Function<Profile, String> apply, User user) {
+        try {
+            return transactionTemplate.execute(status -> {
+                Profile profile = profileRepository.findForUpdateByUserId(user.getId())
+                        .orElseThrow(() -> ApiException.notFound("プロフィール"));
+
+                String previousPublicId = apply.apply(profile);
+                profile = profileRepository.save(profile);
+
+                if (result.publicId().equals(previousPublicId)) {
+                    imageStoreService.release(result.publicId());
+                } else {
+                    imageStoreService.release(previousPublicId);
+                }
+
+                publicPageService.invalidate(user);
+
+                return mapToResponse(profile);
+            });
+        } catch (RuntimeException e) {
+            // 保存できなかった画像の参照を戻す
+            imageStoreService.release(result.publicId());
+            throw e;
+        }
     }
 
     @Override
@@ -157,18 +204,16 @@ public class ProfileServiceImpl implements ProfileService {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(ApiException::userNotFound);
 
-        // PRO/STUDIO のみカスタムCSS利用可
-        PlanType plan = user.getPlanType();
-        if (plan != PlanType.PRO && plan != PlanType.STUDIO) {
+        // カスタムCSSと行数の上限はプランで決まる（PRO 100行, STUDIO 500行）
+        EntitlementService.PlanEntitlements plan = entitlementService.forUser(user.getId());
+        if (!plan.customCss()) {
             throw ApiException.forbidden("カスタムCSSはPRO以上のプランで利用できます");
         }
 
         Profile profile = profileRepository.findByUserId(user.getId())
                 .orElseThrow(() -> ApiException.notFound("プロフィール"));
 
-        // 行数制限: PRO 100行, STUDIO 500行
-        int maxLines = (plan == PlanType.STUDIO) ? 500 : 100;
-        String validationError = CssSanitizer.validate(customCss, maxLines);
+        String validationError = CssSanitizer.validate(customCss, plan.customCssMaxLines());
         if (validationError != null) {
             throw ApiException.badRequest(validationError);
         }
@@ -178,6 +223,8 @@ public class ProfileServiceImpl implements ProfileService {
         profile.setCustomCss(sanitizedCss);
         profile = profileRepository.save(profile);
 
+        publicPageService.invalidate(user);
+
         log.info("Custom CSS updated for user: {}", email);
 
         return mapToResponse(profile);
@@ -187,24 +234,6 @@ public class ProfileServiceImpl implements ProfileService {
      * ProfileエンティティをProfileResponseにマッピング
      */
     private ProfileResponse mapToResponse(Profile profile) {
-        return ProfileResponse.builder()
-                .id(profile.getId())
-                .userId(profile.getUser().getId())
-                .username(profile.getUser().getUsername())
-                .displayName(profile.getDisplayName())
-                .bio(profile.getBio())
-                .avatarUrl(profile.getAvatarUrl())
-                .headerUrl(profile.getHeaderUrl())
-                .theme(profile.getTheme())
-                .colorPrimary(profile.getColorPrimary())
-                .colorAccent(profile.getColorAccent())
-                .fontFamily(profile.getFontFamily())
-                .layout(profile.getLayout())
-                .customCss(profile.getCustomCss())
-                .contactFormEnabled(profile.getContactFormEnabled())
-                .planType(profile.getUser().getPlanType() != null ? profile.getUser().getPlanType().name() : "FREE")
-                .createdAt(profile.getCreatedAt())
-                .updatedAt(profile.getUpdatedAt())
-                .build();
+        return ProfileResponse.fromEntity(profile);
     }
 }
@@ -0,0 +1,275 @@
+package com.picme.backend.service.impl;
+
+import com.picme.backend.dto.response.ArtworkResponse;
+import com.picme.backend.dto.response.CategoryResponse;
+import com.picme.backend.dto.response.PostResponse;
+import com.picme.backend.dto.response.ProfileResponse;
+import com.picme.backend.dto.response.PublicPageResponse;
+import com.picme.backend.dto.response.SocialLinkResponse;
+import com.picme.backend.dto.response.TagResponse;
+import com.picme.backend.exception.ApiException;
+import com.picme.backend.model.Post;
+import com.picme.backend.model.Profile;
+import com.picme.backend.model.User;
+import com.picme.backend.repository.ArtworkRepository;
+import com.picme.backend.repository.CategoryRepository;
+import com.picme.backend.repository.PostRepository;
+import com.picme.backend.repository.ProfileRepository;
+import com.picme.backend.repository.SocialLinkRepository;
+import com.picme.backend.repository.TagRepository;
+import com.picme.backend.repository.UserRepository;
+import com.picme.backend.service.PublicPageService;
+import com.picme.backend.util.LruTtlCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 公開ページサービス実装
+ * ユーザー解決は1回のみ行い、以降はユーザーIDで各テーブルを引く。
+ * 作品のカテゴリー・タグはフェッチジョインで取得するため、
+ * 作品数やタグ数に関係なく発行されるSQLは6本で固定される。
+ *
+ * 組み立て結果はユーザー名をキーにキャッシュし、各サービスの書き込み時に
+ * invalidate() で破棄する。お知らせの閲覧数のみ無効化対象外のため、TTLの範囲で遅れて反映される。
+ *
+ * invalidate() はユーザーの内容バージョンも進める。書き込み中のトランザクションでusers行をロックしないよう、
+ * バージョンはコミット後に別の短いトランザクションで、トランザクションごと・ユーザーごとに1回だけ進める。
+ * ETagは「ユーザーID-内容バージョン-お知らせの合計閲覧数-形式バージョン」で、
+ * DBに保存した値だけから作るため、再起動やインスタンスが変わっても同じ内容なら同じETagになる。
+ * Last-Modified は内容の更新日時とお知らせの最終更新日時（閲覧時にも更新される）の新しい方とする。
+ */
+@Service
+@Slf4j
+public class PublicPageServiceImpl implements PublicPageService {
+
+    // レスポンスの形式を変更した場合に上げる（クライアント・CDNの保持する古いETagを一斉に無効にする）
+    private static final int RESPONSE_FORMAT_VERSION = 1;
+
+    // トランザクション内で無効化したユーザーを保持するリソースのキー
+    private final Object pendingInvalidationsKey = new Object();
+
+    private final ProfileRepository profileRepository;
+    private final ArtworkRepository artworkRepository;
+    private final SocialLinkRepository socialLinkRepository;
+    private final PostRepository postRepository;
+    private final CategoryRepository categoryRepository;
+    private final TagRepository tagRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate versionTransaction;
+    private final LruTtlCache<String, CachedPage> cache;
+
+    public PublicPageServiceImpl(
+            ProfileRepository profileRepository,
+            ArtworkRepository artworkRepository,
+            SocialLinkRepository socialLinkRepository,
+            PostRepository postRepository,
+            CategoryRepository categoryRepository,
+            TagRepository tagRepository,
+            UserRepository userRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.public-page-cache.max-size:1000}") int maxSize,
+            @Value("${app.public-page-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.profileRepository = profileRepository;
+        this.artworkRepository = artworkRepository;
+        this.socialLinkRepository = socialLinkRepository;
+        this.postRepository = postRepository;
+        this.categoryRepository = categoryRepository;
+        this.tagRepository = tagRepository;
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.versionTransaction = new TransactionTemplate(transactionManager);
+        this.versionTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.cache = new LruTtlCache<>(maxSize, ttlSeconds * 1000);
+    }
+
+    @Override
+    public PublicPageResponse getPublicPage(String username) {
+        // キャッシュヒット時はトランザクション（DB接続）を開始しない
+        return loadPage(username).page();
+    }
+
+    @Override
+    public Optional<PageVersion> getPageVersion(String username) {
+        // キャッシュ済みのページは無効化されていない限り最新のバージョンを保持している
+        CachedPage cached = cache.get(username);
+        if (cached != null) {
+            return Optional.of(cached.version());
+        }
+
+        return userRepository.findContentVersionByUsername(username)
+                .filter(view -> Boolean.TRUE.equals(view.getActive()))
+                .map(view -> toPageVersion(view.getId(), view.getContentVersion(),
+                        latest(view.getContentUpdatedAt(), view.getPostsUpdatedAt()), view.getPostViews()));
+    }
+
+    @Override
+    public void invalidate(Long userId, String username) {
+        cache.invalidate(username);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingInvalidations pending = new PendingInvalidations();
+            pending.add(userId, username);
+            commitVersions(pending);
+            return;
+        }
+
+        // 同じトランザクション内の書き込みはまとめ、コミット後にバージョンを進める
+        PendingInvalidations pending =
+                (PendingInvalidations) TransactionSynchronizationManager.getResource(pendingInvalidationsKey);
+        if (pending == null) {
+            PendingInvalidations created = new PendingInvalidations();
+            TransactionSynchronizationManager.bindResource(pendingInvalidationsKey, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    commitVersions(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(pendingInvalidationsKey);
+                }
+            });
+            pending = created;
+        }
+        pending.add(userId, username);
+    }
+
+    @Override
+    public LruTtlCache.Stats getCacheStats() {
+        return cache.stats();
+    }
+
+    private CachedPage loadPage(String username) {
+        return cache.getOrLoad(username, key -> readOnlyTransaction.execute(status -> assemble(key)));
+    }
+
+    /**
+     * 内容バージョンを進め、バージョンを進める前に再キャッシュされたページを破棄する
+     */
+    private void commitVersions(PendingInvalidations pending) {
+        try {
+            versionTransaction.executeWithoutResult(status ->
+                    pending.userIds.forEach(userRepository::incrementContentVersion));
+        } catch (RuntimeException e) {
+            log.error("Failed to increment public page content version for users {}: {}",
+                    pending.userIds, e.getMessage());
+        }
+        pending.usernames.forEach(cache::invalidate);
+    }
+
+    private PageVersion toPageVersion(Long userId, Long contentVersion, LocalDateTime updatedAt, Long postViews) {
+        long version = contentVersion != null ? contentVersion : 0L;
+        long views = postViews != null ? postViews : 0L;
+        String etag = "\"" + userId + "-" + version + "-" + views + "-" + RESPONSE_FORMAT_VERSION + "\"";
+        long lastModified = updatedAt != null
+                ? updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : -1;
+        return new PageVersion(userId, etag, lastModified);
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        if (a == null) {
+            return b;
+        }
+        return b != null && b.isAfter(a) ? b : a;
+    }
+
+    /**
+     * 公開ページをDBから組み立てる
+     */
+    private CachedPage assemble(String username) {
+        // プロフィールとユーザーを1クエリで取得
+        Profile profile = profileRepository.findWithUserByUsername(username)
+                .orElseThrow(() -> ApiException.notFound("ユーザー"));
+
+        User user = profile.getUser();
+
+        // 非アクティブユーザーは表示しない
+        if (!user.getIsActive()) {
+            throw ApiException.notFound("ユーザー");
+        }
+
+        ProfileResponse profileResponse = ProfileResponse.fromEntity(profile);
+
+        List<ArtworkResponse> artworks = artworkRepository.findPublicArtworksWithAssociationsByUserId(user.getId())
+                .stream()
+                .map(ArtworkResponse::fromEntity)
+                .toList();
+
+        List<SocialLinkResponse> socialLinks = socialLinkRepository.findByUserIdAndVisibleTrueOrderByDisplayOrderAsc(user.getId())
+                .stream()
+                .map(SocialLinkResponse::fromEntity)
+                .toList();
+
+        List<Post> visiblePosts = postRepository.findByUserAndVisibleTrueOrderByPublishedAtDesc(user);
+        List<PostResponse> posts = visiblePosts.stream()
+                .map(PostResponse::fromEntity)
+                .toList();
+
+        // ページ本体と同じトランザクションで読んだ値からバージョンを作る（閲覧数は読み込んだお知らせから集計）
+        long postViews = 0;
+        LocalDateTime postsUpdatedAt = null;
+        for (Post post : visiblePosts) {
+            postViews += post.getViewCount() != null ? post.getViewCount() : 0;
+            postsUpdatedAt = latest(postsUpdatedAt, post.getUpdatedAt());
+        }
+        PageVersion version = toPageVersion(user.getId(), user.getContentVersion(),
+                latest(user.getContentUpdatedAt() != null ? user.getContentUpdatedAt() : user.getUpdatedAt(),
+                        postsUpdatedAt),
+                postViews);
+
+        List<CategoryResponse> categories = categoryRepository.findByUserOrderByDisplayOrderAsc(user)
+                .stream()
+                .map(CategoryResponse::fromEntity)
+                .toList();
+
+        List<TagResponse> tags = tagRepository.findByUserOrderByNameAsc(user)
+                .stream()
+                .map(TagResponse::fromEntity)
+                .toList();
+
+        PublicPageResponse page = PublicPageResponse.builder()
+                .profile(profileResponse)
+                .artworks(artworks)
+                .socialLinks(socialLinks)
+                .posts(posts)
+                .categories(categories)
+                .tags(tags)
+                .contactFormEnabled(profileResponse.getContactFormEnabled())
+                .customCss(profileResponse.getCustomCss())
+                .build();
+
+        return new CachedPage(page, version);
+    }
+
+    private record CachedPage(PublicPageResponse page, PageVersion version) {}
+
+    /**
+     * トランザクション内で無効化したユーザー
+     */
+    private static final class PendingInvalidations {
+        private final Set<Long> userIds = new LinkedHashSet<>();
+        private final Set<String> usernames = new LinkedHashSet<>();
+
+        private void add(Long userId, String username) {
+            userIds.add(userId);
+            usernames.add(username);
+        }
+    }
+}
@@ -4,11 +4,14 @@ import com.picme.backend.dto.request.SocialLinkReorderRequest;
 import com.picme.backend.dto.request.SocialLinkRequest;
 import com.picme.backend.dto.response.SocialLinkResponse;
 import com.picme.backend.exception.ApiException;
-import com.picme.backend.model.PlanType;
 import com.picme.backend.model.SocialLink;
 import com.picme.backend.model.User;
 import com.picme.backend.repository.SocialLinkRepository;
-import com.picme.backend.repository.UserRepository;
+import com.picme.backend.security.AuthenticatedUser;
+import com.picme.backend.security.CurrentUserResolver;
+import com.picme.backend.service.EntitlementService;
+import com.picme.backend.service.PublicPageService;
+import com.picme.backend.service.UserUsageService;
 import com.picme.backend.service.SocialLinkService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -27,12 +30,16 @@ import java.util.stream.Collectors;
 public class SocialLinkServiceImpl implements SocialLinkService {
 
     private final SocialLinkRepository socialLinkRepository;
-    private final UserRepository userRepository;
+    private final CurrentUserResolver currentUserResolver;
+    private final PublicPageService publicPageService;
+    private final UserUsageService userUsageService;
+    private final EntitlementService entitlementService;
 
     @Override
     @Transactional(readOnly = true)
     public List<SocialLinkResponse> getSocialLinks(String email) {
-        User user = getUserByEmail(email);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
 
         return socialLinkRepository.findByUserIdOrderByDisplayOrderAsc(user.getId())
                 .stream()
@@ -43,25 +50,25 @@ public class SocialLinkServiceImpl implements SocialLinkService {
     @Override
     @Transactional
     public SocialLinkResponse createSocialLink(String email, SocialLinkRequest request) {
-        User user = getUserByEmail(email);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
 
-        // プラン制限チェック
-        checkSocialLinkLimit(user);
-
-        // 現在のリンク数から表示順を決定
-        long currentCount = socialLinkRepository.countByUserId(user.getId());
+        // プラン制限チェック（リンク数を加算し、加算後のリンク数から表示順を決定）
+        long linkCount = reserveSocialLink(principal);
 
         SocialLink socialLink = SocialLink.builder()
                 .user(user)
                 .platform(request.getPlatform())
                 .url(request.getUrl())
                 .icon(request.getIcon())
-                .displayOrder((int) currentCount)
+                .displayOrder((int) linkCount - 1)
                 .visible(request.getVisible() != null ? request.getVisible() : true)
                 .build();
 
         socialLink = socialLinkRepository.save(socialLink);
 
+        publicPageService.invalidate(principal.getId(), principal.getPublicUsername());
+
         log.info("Social link created: {} for user: {}", socialLink.getId(), email);
 
         return mapToResponse(socialLink);
@@ -70,7 +77,8 @@ public class SocialLinkServiceImpl implements SocialLinkService {
     @Override
     @Transactional
     public SocialLinkResponse updateSocialLink(String email, Long linkId, SocialLinkRequest request) {
-        User user = getUserByEmail(email);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
 
         SocialLink socialLink = socialLinkRepository.findByIdAndUserId(linkId, user.getId())
                 .orElseThrow(() -> ApiException.notFound("SNSリンク"));
@@ -91,6 +99,8 @@ public class SocialLinkServiceImpl implements SocialLinkService {
 
         socialLink = socialLinkRepository.save(socialLink);
 
+        publicPageService.invalidate(principal.getId(), principal.getPublicUsername());
+
         log.info("Social link updated: {} for user: {}", socialLink.getId(), email);
 
         return mapToResponse(socialLink);
@@ -99,12 +109,16 @@ public class SocialLinkServiceImpl implements SocialLinkService {
     @Override
     @Transactional
     public void deleteSocialLink(String email, Long linkId) {
-        User user = getUserByEmail(email);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
 
         SocialLink socialLink = socialLinkRepository.findByIdAndUserId(linkId, user.getId())
                 .orElseThrow(() -> ApiException.notFound("SNSリンク"));
 
         socialLinkRepository.delete(socialLink);
+        userUsageService.decrement(principal.getId(), UserUsageService.Counter.SOCIAL_LINKS, 1);
+
+        publicPageService.invalidate(principal.getId(), principal.getPublicUsername());
 
         log.info("Social link deleted: {} for user: {}", linkId, email);
     }
@@ -112,12 +126,15 @@ public class SocialLinkServiceImpl implements SocialLinkService {
     @Override
     @Transactional
     public void reorderSocialLinks(String email, SocialLinkReorderRequest request) {
-        User user = getUserByEmail(email);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
 
         for (SocialLinkReorderRequest.OrderItem item : request.getOrders()) {
             socialLinkRepository.updateDisplayOrder(item.getId(), user.getId(), item.getOrder());
         }
 
+        publicPageService.invalidate(principal.getId(), principal.getPublicUsername());
+
         log.info("Social links reordered for user: {}", email);
     }
 
@@ -131,50 +148,22 @@ public class SocialLinkServiceImpl implements SocialLinkService {
     }
 
     /**
-     * メールアドレスでユーザーを取得
+     * SNSリンク数の制限をチェックして使用量に加算
+     *
+     * @return 加算後のリンク数
      */
-    private User getUserByEmail(String email) {
-        return userRepository.findByEmail(email)
-                .orElseThrow(ApiException::userNotFound);
-    }
+    private long reserveSocialLink(AuthenticatedUser principal) {
+        int limit = entitlementService.forUser(principal.getId()).maxSocialLinks();
 
-    /**
-     * SNSリンク数の制限をチェック
-     */
-    private void checkSocialLinkLimit(User user) {
-        long currentCount = socialLinkRepository.countByUserId(user.getId());
-        int limit = getSocialLinkLimit(user.getPlanType());
-
-        if (currentCount >= limit) {
-            throw ApiException.limitExceeded(
-                    String.format("SNSリンクの上限（%d個）に達しています。プランをアップグレードしてください。", limit));
-        }
-    }
-
-    /**
-     * プランごとのSNSリンク数上限を取得
-     */
-    private int getSocialLinkLimit(PlanType planType) {
-        return switch (planType) {
-            case FREE -> 2;
-            case STARTER -> 5;
-            case PRO -> 10;
-            case STUDIO -> Integer.MAX_VALUE;
-        };
+        return userUsageService.tryIncrement(principal.getId(), UserUsageService.Counter.SOCIAL_LINKS, 1, limit)
+                .orElseThrow(() -> ApiException.limitExceeded(
+                        String.format("SNSリンクの上限（%d個）に達しています。プランをアップグレードしてください。", limit)));
     }
 
     /**
      * SocialLinkエンティティをSocialLinkResponseにマッピング
      */
     private SocialLinkResponse mapToResponse(SocialLink socialLink) {
-        return SocialLinkResponse.builder()
-                .id(socialLink.getId())
-                .platform(socialLink.getPlatform())
-                .url(socialLink.getUrl())
-                .icon(socialLink.getIcon())
-                .displayOrder(socialLink.getDisplayOrder())
-                .visible(socialLink.getVisible())
-                .createdAt(socialLink.getCreatedAt())
-                .build();
+        return SocialLinkResponse.fromEntity(socialLink);
     }
 }
@@ -0,0 +1,370 @@
+package com.picme.backend.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picme.backend.config.StripeConfig;
+import com.picme.backend.exception.ApiException;
+import com.picme.backend.service.StripeEventInboxService;
+import com.picme.backend.service.SubscriptionService;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.model.Event;
+import com.stripe.net.ApiResource;
+import com.stripe.net.Webhook;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stripeイベント受信箱サービス実装
+ * 受信時は署名検証後に INSERT ... ON CONFLICT DO NOTHING の1文で保存し、すぐに応答する。
+ *
+ * ディスパッチャーは未処理のイベントをStripeでの発生順に読み、
+ * 同じ顧客のイベントが処理中・再試行待ちの間は後続のイベントを取り出さない（顧客ごとの順序保証）。
+ * 取り出しは期限付きで状態を PROCESSING に更新して行い、複数インスタンスでも同じイベントを二重に処理しない。
+ * 停止したワーカーの分は期限切れ後に再処理する。
+ *
+ * 反映と PROCESSED への更新は同じトランザクションで行う。
+ * 失敗時は指数バックオフで再試行し、上限に達したら FAILED にして後続のイベントを進める。
+ */
+@Service
+@Slf4j
+public class StripeEventInboxServiceImpl implements StripeEventInboxService {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO stripe_event_inbox (event_id, event_type, order_key, payload, status, attempts, " +
+            "  stripe_created_at, received_at, next_attempt_at) " +
+            "VALUES (?, ?, ?, ?, 'PENDING', 0, ?, now(), now()) " +
+            "ON CONFLICT (event_id) DO NOTHING";
+
+    // 顧客ごとの先頭の未処理イベントのうち、今すぐ取り出せるものだけを発生順に返す
+    // （再試行待ち・処理中の顧客の後続イベントで取り出し枠が埋まらないようにする）
+    private static final String SCAN_SQL =
+            "SELECT id, order_key FROM (" +
+            "  SELECT DISTINCT ON (order_key) id, order_key, status, next_attempt_at, locked_until, stripe_created_at " +
+            "  FROM stripe_event_inbox WHERE status IN ('PENDING', 'PROCESSING') " +
+            "  ORDER BY order_key, stripe_created_at, id) head " +
+            "WHERE (status = 'PENDING' AND next_attempt_at <= now()) " +
+            "   OR (status = 'PROCESSING' AND locked_until <= now()) " +
+            "ORDER BY stripe_created_at, id LIMIT ?";
+
+    private static final String CLAIM_SQL =
+            "UPDATE stripe_event_inbox SET status = 'PROCESSING', attempts = attempts + 1, " +
+            "  locked_until = now() + ? * interval '1 second' " +
+            "WHERE id = ? AND (status = 'PENDING' OR (status = 'PROCESSING' AND locked_until <= now())) " +
+            "RETURNING id, event_id, payload, attempts, received_at";
+
+    private static final String MARK_PROCESSED_SQL =
+            "UPDATE stripe_event_inbox SET status = 'PROCESSED', processed_at = now(), locked_until = NULL, " +
+            "  last_error = NULL WHERE id = ?";
+
+    private static final String MARK_RETRY_SQL =
+            "UPDATE stripe_event_inbox SET status = 'PENDING', locked_until = NULL, last_error = ?, " +
+            "  next_attempt_at = now() + ? * interval '1 millisecond' WHERE id = ?";
+
+    private static final String MARK_FAILED_SQL =
+            "UPDATE stripe_event_inbox SET status = 'FAILED', locked_until = NULL, last_error = ?, " +
+            "  processed_at = now() WHERE id = ?";
+
+    private static final String PENDING_STATS_SQL =
+            "SELECT COUNT(*), COALESCE(EXTRACT(EPOCH FROM now() - MIN(received_at)), 0) " +
+            "FROM stripe_event_inbox WHERE status IN ('PENDING', 'PROCESSING')";
+
+    private static final String PURGE_SQL =
+            "DELETE FROM stripe_event_inbox WHERE status = 'PROCESSED' AND processed_at < now() - ? * interval '1 day'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SubscriptionService subscriptionService;
+    private final ObjectMapper objectMapper;
+    private final StripeConfig stripeConfig;
+    private final TransactionTemplate transactionTemplate;
+    private final int workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long leaseSeconds;
+    private final long pollIntervalMillis;
+    private final int retentionDays;
+
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService dispatcher;
+    private final AtomicBoolean dispatchRequested = new AtomicBoolean();
+
+    // 処理中の順序キー（同じ顧客のイベントを並行して処理しない）
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong lastLagMillis = new AtomicLong();
+
+    public StripeEventInboxServiceImpl(
+            JdbcTemplate jdbcTemplate,
+            SubscriptionService subscriptionService,
+            ObjectMapper objectMapper,
+            StripeConfig stripeConfig,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.stripe-inbox.workers:2}") int workers,
+            @Value("${app.stripe-inbox.batch-size:100}") int batchSize,
+            @Value("${app.stripe-inbox.max-attempts:8}") int maxAttempts,
+            @Value("${app.stripe-inbox.retry-backoff-ms:5000}") long retryBackoffMillis,
+            @Value("${app.stripe-inbox.max-backoff-ms:3600000}") long maxBackoffMillis,
+            @Value("${app.stripe-inbox.lease-seconds:300}") long leaseSeconds,
+            @Value("${app.stripe-inbox.poll-interval-ms:2000}") long pollIntervalMillis,
+            @Value("${app.stripe-inbox.retention-days:30}") int retentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.subscriptionService = subscriptionService;
+        this.objectMapper = objectMapper;
+        this.stripeConfig = stripeConfig;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = Math.max(1, workers);
+        this.batchSize = batchSize;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.leaseSeconds = leaseSeconds;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.retentionDays = retentionDays;
+        // ディスパッチャーは空いているワーカー数までしか渡さないため、キューは溢れない
+        this.executor = new ThreadPoolExecutor(this.workers, this.workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(this.workers), namedThreads("stripe-inbox-"));
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(namedThreads("stripe-inbox-dispatcher-"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        dispatcher.scheduleWithFixedDelay(this::dispatch, 0, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        dispatcher.shutdownNow();
+        executor.shutdown();
+        // 終わらなかった分は処理中の期限切れ後に再処理される
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public boolean receive(String payload, String signature) {
+        if (!stripeConfig.isConfigured()) {
+            log.warn("Stripe webhook received but Stripe is not configured");
+            return false;
+        }
+
+        Event event;
+        try {
+            event = Webhook.constructEvent(payload, signature, stripeConfig.getWebhookSecret());
+        } catch (SignatureVerificationException e) {
+            log.error("Invalid webhook signature");
+            throw ApiException.badRequest("Invalid webhook signature");
+        }
+
+        Instant created = event.getCreated() != null ? Instant.ofEpochSecond(event.getCreated()) : Instant.now();
+        int inserted = jdbcTemplate.update(INSERT_SQL,
+                event.getId(), event.getType(), orderKey(event), payload, Timestamp.from(created));
+
+        if (inserted == 0) {
+            duplicates.incrementAndGet();
+            log.info("Duplicate Stripe event ignored: {} ({})", event.getId(), event.getType());
+            return false;
+        }
+
+        received.incrementAndGet();
+        log.info("Stripe event queued: {} ({})", event.getId(), event.getType());
+        requestDispatch();
+        return true;
+    }
+
+    @Override
+    public Stats getStats() {
+        long[] pending = jdbcTemplate.queryForObject(PENDING_STATS_SQL,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+        return new Stats(
+                workers,
+                executor.getActiveCount(),
+                received.get(),
+                duplicates.get(),
+                processed.get(),
+                retries.get(),
+                failed.get(),
+                pending != null ? pending[0] : 0,
+                pending != null ? pending[1] : 0,
+                lastLagMillis.get());
+    }
+
+    /**
+     * 反映済みのイベントを保持期間後に削除（FAILED は調査用に残す）
+     */
+    @Scheduled(cron = "${app.stripe-inbox.purge-cron:0 30 3 * * *}")
+    public void purge() {
+        try {
+            int deleted = jdbcTemplate.update(PURGE_SQL, retentionDays);
+            if (deleted > 0) {
+                log.info("Purged {} processed Stripe events", deleted);
+            }
+        } catch (Exception e) {
+            log.error("Failed to purge Stripe event inbox: {}", e.getMessage());
+        }
+    }
+
+    private void requestDispatch() {
+        if (dispatchRequested.compareAndSet(false, true)) {
+            try {
+                dispatcher.execute(this::dispatch);
+            } catch (RuntimeException e) {
+                // 停止中（次回の定期実行で処理される）
+                dispatchRequested.set(false);
+            }
+        }
+    }
+
+    /**
+     * 処理可能なイベントを発生順に取り出してワーカーへ渡す
+     */
+    private void dispatch() {
+        dispatchRequested.set(false);
+        try {
+            int capacity = workers - inFlight.size();
+            if (capacity <= 0) {
+                return;
+            }
+
+            // 候補は顧客ごとの先頭イベントのみ（処理中・再試行待ちの顧客はSQLで除外済み）
+            List<Candidate> candidates = jdbcTemplate.query(SCAN_SQL, (rs, rowNum) -> new Candidate(
+                    rs.getLong("id"), rs.getString("order_key")),
+                    batchSize);
+
+            for (Candidate candidate : candidates) {
+                if (capacity <= 0) {
+                    break;
+                }
+                // 自インスタンスで処理中の顧客は取り出さない（読み取り後に状態が変わった場合の保険）
+                if (inFlight.contains(candidate.orderKey())) {
+                    continue;
+                }
+
+                Claimed claimed = claim(candidate.id());
+                if (claimed == null) {
+                    // 他のインスタンスが取り出した
+                    continue;
+                }
+                inFlight.add(candidate.orderKey());
+                capacity--;
+                executor.execute(() -> process(candidate.orderKey(), claimed));
+            }
+        } catch (Exception e) {
+            log.error("Failed to dispatch Stripe events: {}", e.getMessage());
+        }
+    }
+
+    private Claimed claim(long id) {
+        List<Claimed> rows = jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new Claimed(
+                rs.getLong("id"), rs.getString("event_id"), rs.getString("payload"),
+                rs.getInt("attempts"), rs.getTimestamp("received_at").toInstant()),
+                leaseSeconds, id);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private void process(String orderKey, Claimed claimed) {
+        try {
+            Event event = ApiResource.GSON.fromJson(claimed.payload(), Event.class);
+            transactionTemplate.executeWithoutResult(status -> {
+                subscriptionService.applyWebhookEvent(event);
+                jdbcTemplate.update(MARK_PROCESSED_SQL, claimed.id());
+            });
+            processed.incrementAndGet();
+            lastLagMillis.set(Math.max(0, System.currentTimeMillis() - claimed.receivedAt().toEpochMilli()));
+        } catch (Exception e) {
+            fail(claimed, e);
+        } finally {
+            inFlight.remove(orderKey);
+            requestDispatch();
+        }
+    }
+
+    private void fail(Claimed claimed, Exception cause) {
+        String error = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+
+        try {
+            if (claimed.attempts() >= maxAttempts) {
+                failed.incrementAndGet();
+                jdbcTemplate.update(MARK_FAILED_SQL, error, claimed.id());
+                log.error("Stripe event {} failed after {} attempts: {}", claimed.eventId(), claimed.attempts(), error);
+                return;
+            }
+
+            long delay = Math.min(maxBackoffMillis, retryBackoffMillis << Math.min(20, claimed.attempts() - 1));
+            retries.incrementAndGet();
+            jdbcTemplate.update(MARK_RETRY_SQL, error, delay, claimed.id());
+            log.warn("Stripe event {} failed (attempt {}/{}), retrying in {}ms: {}",
+                    claimed.eventId(), claimed.attempts(), maxAttempts, delay, error);
+        } catch (Exception e) {
+            // 状態を更新できなかった場合は処理中の期限切れ後に再処理される
+            log.error("Failed to record Stripe event failure {}: {}", claimed.eventId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 処理順を保証する単位（イベント対象の顧客ID、顧客のないイベントはイベントID）
+     */
+    private String orderKey(Event event) {
+        try {
+            JsonNode object = objectMapper.readTree(event.getDataObjectDeserializer().getRawJson());
+            if ("customer".equals(object.path("object").asText())) {
+                return object.path("id").asText(event.getId());
+            }
+            JsonNode customer = object.path("customer");
+            if (customer.isTextual()) {
+                return customer.asText();
+            }
+            if (customer.hasNonNull("id")) {
+                return customer.get("id").asText();
+            }
+        } catch (Exception e) {
+            log.debug("Failed to read customer from Stripe event {}: {}", event.getId(), e.getMessage());
+        }
+        return event.getId();
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Candidate(long id, String orderKey) {}
+
+    private record Claimed(long id, String eventId, String payload, int attempts, Instant receivedAt) {}
+}
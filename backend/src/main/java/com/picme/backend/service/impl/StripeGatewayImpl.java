@@ -0,0 +1,57 @@
+package com.picme.backend.service.impl;
+
+import com.picme.backend.config.StripeConfig;
+import com.picme.backend.service.StripeGateway;
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Subscription;
+import com.stripe.model.SubscriptionItem;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Stripe API を呼び出す実装
+ */
+@Service
+@ConditionalOnProperty(name = "app.stripe-gateway.type", havingValue = "stripe", matchIfMissing = true)
+@RequiredArgsConstructor
+public class StripeGatewayImpl implements StripeGateway {
+
+    private final StripeConfig stripeConfig;
+
+    @Override
+    public boolean isAvailable() {
+        return stripeConfig.isConfigured();
+    }
+
+    @Override
+    public Optional<RemoteSubscription> getSubscription(String subscriptionId) throws StripeException {
+        Subscription subscription;
+        try {
+            subscription = Subscription.retrieve(subscriptionId);
+        } catch (InvalidRequestException e) {
+            if ("resource_missing".equals(e.getCode())) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+
+        List<SubscriptionItem> items = subscription.getItems() != null ? subscription.getItems().getData() : null;
+        String priceId = items != null && !items.isEmpty() && items.get(0).getPrice() != null
+                ? items.get(0).getPrice().getId()
+                : null;
+
+        return Optional.of(new RemoteSubscription(
+                subscription.getId(),
+                subscription.getCustomer(),
+                subscription.getStatus(),
+                priceId,
+                Boolean.TRUE.equals(subscription.getCancelAtPeriodEnd()),
+                subscription.getCurrentPeriodStart(),
+                subscription.getCurrentPeriodEnd()));
+    }
+}
@@ -0,0 +1,375 @@
+package com.picme.backend.service.impl;
+
+import com.picme.backend.model.Subscription;
+import com.picme.backend.repository.SubscriptionRepository;
+import com.picme.backend.service.StripeGateway;
+import com.picme.backend.service.SubscriptionReconcileService;
+import com.picme.backend.service.SubscriptionService;
+import com.stripe.exception.StripeException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * サブスクリプション照合サービス実装
+ * Stripe連携済みのサブスクリプションをIDの昇順にキーセットで batch-size 件ずつ読み、
+ * Stripe側の状態を並列に取得して、補正とカーソルの保存を1ページ1トランザクションで行う。
+ * カーソルは job_cursors に保存するため、再起動後は途中から再開する。
+ * 複数インスタンスで同時に走らないよう、job_cursors の行に期限付きの実行権（locked_by / locked_until）を取り、
+ * ページを保存するたびに期限を延ばす。期限切れの実行権は別のインスタンスが引き継ぐ。
+ *
+ * Stripe API の呼び出しは requests-per-second 以下に抑え、429 を受けた場合は
+ * 全ワーカーで待機してから指数バックオフで再試行する。
+ * 取得に失敗した場合はそのページの失敗箇所の手前までを反映して中断し、次回はそこから再開する。
+ */
+@Service
+@Slf4j
+public class SubscriptionReconcileServiceImpl implements SubscriptionReconcileService {
+
+    private static final String CURSOR_NAME = "subscription-reconcile";
+
+    private static final String LOAD_CURSOR_SQL =
+            "SELECT last_id, last_completed_at FROM job_cursors WHERE name = ?";
+
+    // 実行権が空いているか期限切れの場合だけ取得する
+    private static final String CLAIM_LEASE_SQL =
+            "INSERT INTO job_cursors (name, last_id, locked_by, locked_until, updated_at) " +
+            "VALUES (?, 0, ?, now() + ? * interval '1 second', now()) " +
+            "ON CONFLICT (name) DO UPDATE SET locked_by = EXCLUDED.locked_by, locked_until = EXCLUDED.locked_until " +
+            "WHERE job_cursors.locked_until IS NULL OR job_cursors.locked_until <= now()";
+
+    private static final String SAVE_CURSOR_SQL =
+            "UPDATE job_cursors SET last_id = ?, locked_until = now() + ? * interval '1 second', updated_at = now() " +
+            "WHERE name = ? AND locked_by = ?";
+
+    private static final String COMPLETE_CURSOR_SQL =
+            "UPDATE job_cursors SET last_id = 0, last_completed_at = now(), updated_at = now() " +
+            "WHERE name = ? AND locked_by = ?";
+
+    private static final String RELEASE_LEASE_SQL =
+            "UPDATE job_cursors SET locked_by = NULL, locked_until = NULL WHERE name = ? AND locked_by = ?";
+
+    private final SubscriptionRepository subscriptionRepository;
+    private final SubscriptionService subscriptionService;
+    private final StripeGateway stripeGateway;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxRetries;
+    private final long rateLimitBackoffMillis;
+    private final long leaseSeconds;
+    private final Throttle throttle;
+
+    private final ExecutorService runner;
+    private final ExecutorService fetchers;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile long cursor;
+    private volatile LocalDateTime lastRunStartedAt;
+    private volatile LocalDateTime lastRunFinishedAt;
+    private volatile LocalDateTime lastCompletedAt;
+
+    private final AtomicLong checked = new AtomicLong();
+    private final AtomicLong corrected = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong missing = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+
+    public SubscriptionReconcileServiceImpl(
+            SubscriptionRepository subscriptionRepository,
+            SubscriptionService subscriptionService,
+            StripeGateway stripeGateway,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.subscription-reconcile.batch-size:100}") int batchSize,
+            @Value("${app.subscription-reconcile.concurrency:4}") int concurrency,
+            @Value("${app.subscription-reconcile.requests-per-second:20}") double requestsPerSecond,
+            @Value("${app.subscription-reconcile.max-retries:5}") int maxRetries,
+            @Value("${app.subscription-reconcile.rate-limit-backoff-ms:1000}") long rateLimitBackoffMillis,
+            @Value("${app.subscription-reconcile.lease-seconds:600}") long leaseSeconds) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.subscriptionService = subscriptionService;
+        this.stripeGateway = stripeGateway;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.rateLimitBackoffMillis = rateLimitBackoffMillis;
+        this.leaseSeconds = Math.max(1, leaseSeconds);
+        this.throttle = new Throttle(requestsPerSecond);
+        this.runner = Executors.newSingleThreadExecutor(namedThreads("subscription-reconcile-"));
+        this.fetchers = Executors.newFixedThreadPool(Math.max(1, concurrency), namedThreads("subscription-reconcile-fetch-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 中断したページは保存済みのカーソルから再開される
+        runner.shutdownNow();
+        fetchers.shutdownNow();
+    }
+
+    /**
+     * 定期実行（スケジューラーのスレッドを占有しないよう専用スレッドで実行）
+     */
+    @Scheduled(cron = "${app.subscription-reconcile.cron:0 20 */6 * * *}")
+    public void scheduledRun() {
+        trigger();
+    }
+
+    @Override
+    public boolean trigger() {
+        if (!stripeGateway.isAvailable()) {
+            log.debug("Subscription reconcile skipped: Stripe is not configured");
+            return false;
+        }
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            runner.execute(this::run);
+        } catch (RuntimeException e) {
+            running.set(false);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Stats getStats() {
+        return new Stats(
+                running.get(),
+                cursor,
+                lastRunStartedAt,
+                lastRunFinishedAt,
+                lastCompletedAt,
+                checked.get(),
+                corrected.get(),
+                skipped.get(),
+                missing.get(),
+                errors.get(),
+                rateLimited.get());
+    }
+
+    private void run() {
+        String owner = UUID.randomUUID().toString();
+        if (jdbcTemplate.update(CLAIM_LEASE_SQL, CURSOR_NAME, owner, leaseSeconds) == 0) {
+            log.info("Subscription reconcile skipped: another instance is running");
+            running.set(false);
+            return;
+        }
+
+        lastRunStartedAt = LocalDateTime.now();
+        long before = corrected.get();
+        try {
+            loadCursor();
+            log.info("Subscription reconcile started from id {}", cursor);
+
+            while (!Thread.currentThread().isInterrupted()) {
+                List<SubscriptionRepository.StripeLinkView> page = subscriptionRepository
+                        .findReconcileTargetsAfter(cursor, PageRequest.of(0, batchSize));
+                if (page.isEmpty()) {
+                    if (jdbcTemplate.update(COMPLETE_CURSOR_SQL, CURSOR_NAME, owner) == 0) {
+                        throw new IllegalStateException("reconcile lease lost");
+                    }
+                    cursor = 0;
+                    lastCompletedAt = LocalDateTime.now();
+                    log.info("Subscription reconcile completed: {} corrected", corrected.get() - before);
+                    break;
+                }
+
+                // 取得開始後に更新された行は、Webhookの反映の方が新しい可能性があるため次回に回す
+                LocalDateTime fetchStartedAt = LocalDateTime.now();
+                List<Fetched> fetched = fetch(page);
+                if (!fetched.isEmpty()) {
+                    cursor = apply(fetched, fetchStartedAt, owner);
+                }
+                if (fetched.size() < page.size()) {
+                    log.warn("Subscription reconcile paused at id {}; resuming on the next run", cursor);
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            errors.incrementAndGet();
+            log.error("Subscription reconcile failed at id {}: {}", cursor, e.getMessage());
+        } finally {
+            try {
+                jdbcTemplate.update(RELEASE_LEASE_SQL, CURSOR_NAME, owner);
+            } catch (RuntimeException e) {
+                // 解放できなくても期限切れ後に別のインスタンスが引き継ぐ
+                log.warn("Failed to release subscription reconcile lease: {}", e.getMessage());
+            }
+            lastRunFinishedAt = LocalDateTime.now();
+            running.set(false);
+        }
+    }
+
+    private void loadCursor() {
+        List<Long> rows = jdbcTemplate.query(LOAD_CURSOR_SQL, (rs, rowNum) -> {
+            Timestamp completedAt = rs.getTimestamp("last_completed_at");
+            lastCompletedAt = completedAt != null ? completedAt.toLocalDateTime() : null;
+            return rs.getLong("last_id");
+        }, CURSOR_NAME);
+        cursor = rows.isEmpty() ? 0 : rows.get(0);
+    }
+
+    /**
+     * ページ内のサブスクリプションをStripeから並列に取得
+     * 失敗した場合は失敗箇所の手前までを返す（以降の取得は取り消す）
+     */
+    private List<Fetched> fetch(List<SubscriptionRepository.StripeLinkView> page) throws InterruptedException {
+        List<Future<Optional<StripeGateway.RemoteSubscription>>> futures = new ArrayList<>(page.size());
+        for (SubscriptionRepository.StripeLinkView row : page) {
+            futures.add(fetchers.submit(() -> fetchWithRetry(row.getStripeSubscriptionId())));
+        }
+
+        List<Fetched> results = new ArrayList<>(page.size());
+        try {
+            for (int i = 0; i < page.size(); i++) {
+                SubscriptionRepository.StripeLinkView row = page.get(i);
+                try {
+                    results.add(new Fetched(row.getId(), futures.get(i).get()));
+                } catch (ExecutionException e) {
+                    errors.incrementAndGet();
+                    log.warn("Failed to fetch Stripe subscription {}: {}",
+                            row.getStripeSubscriptionId(), e.getCause().getMessage());
+                    break;
+                }
+            }
+        } finally {
+            for (int i = results.size(); i < futures.size(); i++) {
+                futures.get(i).cancel(true);
+            }
+        }
+        return results;
+    }
+
+    private Optional<StripeGateway.RemoteSubscription> fetchWithRetry(String subscriptionId)
+            throws StripeException, InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            throttle.acquire();
+            try {
+                return stripeGateway.getSubscription(subscriptionId);
+            } catch (StripeException e) {
+                Integer status = e.getStatusCode();
+                if (status == null || status != 429 || attempt >= maxRetries) {
+                    throw e;
+                }
+                rateLimited.incrementAndGet();
+                // 全ワーカーの呼び出しを止める（同時に再開しないよう揺らぎを加える）
+                long delay = (rateLimitBackoffMillis << Math.min(attempt, 10))
+                        + ThreadLocalRandom.current().nextLong(rateLimitBackoffMillis + 1);
+                throttle.pause(TimeUnit.MILLISECONDS.toNanos(delay));
+                log.debug("Stripe rate limit hit, backing off {}ms", delay);
+            }
+        }
+    }
+
+    /**
+     * 1ページ分の補正とカーソルの保存を1トランザクションで行う
+     * 対象の行をロックしてから更新日時を確認するため、確認後にWebhookの更新を上書きすることはない。
+     * 実行権を失っていた場合は何も反映せずに中断する。
+     *
+     * @return 保存したカーソル
+     */
+    private long apply(List<Fetched> fetched, LocalDateTime fetchStartedAt, String owner) {
+        Long next = transactionTemplate.execute(status -> {
+            Map<Long, Subscription> subscriptions = subscriptionRepository
+                    .findAllForUpdateWithUserByIdIn(fetched.stream().map(Fetched::subscriptionId).toList())
+                    .stream()
+                    .collect(Collectors.toMap(Subscription::getId, Function.identity()));
+
+            for (Fetched f : fetched) {
+                Subscription subscription = subscriptions.get(f.subscriptionId());
+                if (subscription == null) {
+                    continue;
+                }
+                checked.incrementAndGet();
+                if (subscription.getUpdatedAt() != null && subscription.getUpdatedAt().isAfter(fetchStartedAt)) {
+                    skipped.incrementAndGet();
+                    continue;
+                }
+                if (f.remote().isEmpty()) {
+                    missing.incrementAndGet();
+                }
+                if (subscriptionService.reconcileWithStripe(subscription, f.remote())) {
+                    corrected.incrementAndGet();
+                }
+            }
+
+            long last = fetched.get(fetched.size() - 1).subscriptionId();
+            if (jdbcTemplate.update(SAVE_CURSOR_SQL, last, leaseSeconds, CURSOR_NAME, owner) == 0) {
+                throw new IllegalStateException("reconcile lease lost");
+            }
+            return last;
+        });
+        return next != null ? next : cursor;
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Fetched(long subscriptionId, Optional<StripeGateway.RemoteSubscription> remote) {}
+
+    /**
+     * 呼び出し間隔を一定以上に保つ（429を受けた場合は全体で待機）
+     */
+    private static final class Throttle {
+
+        private final long intervalNanos;
+        private long nextNanos = System.nanoTime();
+
+        Throttle(double permitsPerSecond) {
+            this.intervalNanos = permitsPerSecond > 0 ? (long) (1_000_000_000L / permitsPerSecond) : 0;
+        }
+
+        void acquire() throws InterruptedException {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long at = Math.max(now, nextNanos);
+                nextNanos = at + intervalNanos;
+                waitNanos = at - now;
+            }
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+
+        synchronized void pause(long nanos) {
+            nextNanos = Math.max(nextNanos, System.nanoTime() + nanos);
+        }
+    }
+}
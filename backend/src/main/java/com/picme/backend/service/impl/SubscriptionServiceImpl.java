@@ -11,8 +11,11 @@ import com.picme.backend.model.SubscriptionStatus;
 import com.picme.backend.model.User;
 import com.picme.backend.repository.SubscriptionRepository;
 import com.picme.backend.repository.UserRepository;
+import com.picme.backend.security.PrincipalCache;
+import com.picme.backend.service.EntitlementService;
+import com.picme.backend.service.PublicPageService;
+import com.picme.backend.service.StripeGateway;
 import com.picme.backend.service.SubscriptionService;
-import com.stripe.exception.SignatureVerificationException;
 import com.stripe.exception.StripeException;
 import com.stripe.model.Customer;
 import com.stripe.model.Event;
@@ -20,7 +23,6 @@ import com.stripe.model.EventDataObjectDeserializer;
 import com.stripe.model.Invoice;
 import com.stripe.model.StripeObject;
 import com.stripe.model.checkout.Session;
-import com.stripe.net.Webhook;
 import com.stripe.param.checkout.SessionCreateParams;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -30,6 +32,8 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Objects;
+import java.util.Optional;
 
 /**
  * サブスクリプションサービス実装
@@ -42,6 +46,9 @@ public class SubscriptionServiceImpl implements SubscriptionService {
     private final SubscriptionRepository subscriptionRepository;
     private final UserRepository userRepository;
     private final StripeConfig stripeConfig;
+    private final PublicPageService publicPageService;
+    private final PrincipalCache principalCache;
+    private final EntitlementService entitlementService;
 
     @Override
     @Transactional(readOnly = true)
@@ -213,21 +220,8 @@ public class SubscriptionServiceImpl implements SubscriptionService {
 
     @Override
     @Transactional
-    public void handleWebhookEvent(String payload, String signature) {
-        if (!stripeConfig.isConfigured()) {
-            log.warn("Stripe webhook received but Stripe is not configured");
-            return;
-        }
-
-        Event event;
-        try {
-            event = Webhook.constructEvent(payload, signature, stripeConfig.getWebhookSecret());
-        } catch (SignatureVerificationException e) {
-            log.error("Invalid webhook signature");
-            throw ApiException.badRequest("Invalid webhook signature");
-        }
-
-        log.info("Processing Stripe webhook event: {}", event.getType());
+    public void applyWebhookEvent(Event event) {
+        log.info("Processing Stripe webhook event: {} ({})", event.getId(), event.getType());
 
         switch (event.getType()) {
             case "checkout.session.completed" -> handleCheckoutCompleted(event);
@@ -240,14 +234,63 @@ public class SubscriptionServiceImpl implements SubscriptionService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional
+    public boolean reconcileWithStripe(Subscription subscription, Optional<StripeGateway.RemoteSubscription> remote) {
+        // Stripe側に存在しない場合は削除イベントを取りこぼしたものとして扱う
+        SubscriptionStatus status = remote.map(r -> mapStripeStatus(r.status())).orElse(SubscriptionStatus.CANCELED);
+
+        PlanType planType;
+        if (status == SubscriptionStatus.CANCELED) {
+            planType = PlanType.FREE;
+        } else {
+            // 価格IDが設定にない場合はプランを変更しない
+            planType = remote.map(r -> getPlanForPriceId(r.priceId())).orElse(subscription.getPlanType());
+        }
+
+        boolean changed = false;
+        if (subscription.getStatus() != status) {
+            subscription.setStatus(status);
+            changed = true;
+        }
+        if (subscription.getPlanType() != planType) {
+            subscription.setPlanType(planType);
+            changed = true;
+        }
+        if (remote.isPresent()) {
+            StripeGateway.RemoteSubscription r = remote.get();
+            LocalDateTime periodStart = toLocalDateTime(r.currentPeriodStart());
+            LocalDateTime periodEnd = toLocalDateTime(r.currentPeriodEnd());
+            if (!Objects.equals(subscription.getCancelAtPeriodEnd(), r.cancelAtPeriodEnd())
+                    || !Objects.equals(subscription.getCurrentPeriodStart(), periodStart)
+                    || !Objects.equals(subscription.getCurrentPeriodEnd(), periodEnd)) {
+                subscription.setCancelAtPeriodEnd(r.cancelAtPeriodEnd());
+                subscription.setCurrentPeriodStart(periodStart);
+                subscription.setCurrentPeriodEnd(periodEnd);
+                changed = true;
+            }
+        }
+
+        User user = subscription.getUser();
+        if (user.getPlanType() != planType) {
+            user.setPlanType(planType);
+            userRepository.save(user);
+            publicPageService.invalidate(user);
+            userRepository.incrementTokenVersion(user.getId());
+            principalCache.invalidate(user.getEmail());
+            changed = true;
+        }
+
+        if (changed) {
+            entitlementService.invalidate(user.getId());
+            log.info("Subscription {} reconciled with Stripe: status={}, plan={}",
+                    subscription.getStripeSubscriptionId(), status, planType);
+        }
+        return changed;
+    }
+
+    @Override
     public PlanType getUserPlanType(Long userId) {
-        return subscriptionRepository.findByUserId(userId)
-                .filter(s -> s.getStatus() == SubscriptionStatus.ACTIVE || s.getStatus() == SubscriptionStatus.TRIALING)
-                .map(Subscription::getPlanType)
-                .orElseGet(() -> userRepository.findById(userId)
-                        .map(User::getPlanType)
-                        .orElse(PlanType.FREE));
+        return entitlementService.getEffectivePlan(userId);
     }
 
     // === Private Helper Methods ===
@@ -292,41 +335,24 @@ public class SubscriptionServiceImpl implements SubscriptionService {
         };
     }
 
+    private PlanType getPlanForPriceId(String priceId) {
+        if (priceId == null || priceId.isEmpty()) return null;
+        if (priceId.equals(stripeConfig.getPriceIdStarter())) return PlanType.STARTER;
+        if (priceId.equals(stripeConfig.getPriceIdPro())) return PlanType.PRO;
+        if (priceId.equals(stripeConfig.getPriceIdStudio())) return PlanType.STUDIO;
+        return null;
+    }
+
     private SubscriptionResponse.PlanLimits getPlanLimits(PlanType planType) {
-        return switch (planType) {
-            case FREE -> SubscriptionResponse.PlanLimits.builder()
-                    .maxArtworks(5)
-                    .maxSocialLinks(2)
-                    .maxPosts(1)
-                    .maxCategories(0)
-                    .maxStorageMb(300)
-                    .hasAds(true)
-                    .build();
-            case STARTER -> SubscriptionResponse.PlanLimits.builder()
-                    .maxArtworks(20)
-                    .maxSocialLinks(5)
-                    .maxPosts(5)
-                    .maxCategories(0)
-                    .maxStorageMb(1024)
-                    .hasAds(false)
-                    .build();
-            case PRO -> SubscriptionResponse.PlanLimits.builder()
-                    .maxArtworks(50)
-                    .maxSocialLinks(10)
-                    .maxPosts(20)
-                    .maxCategories(5)
-                    .maxStorageMb(2048)
-                    .hasAds(false)
-                    .build();
-            case STUDIO -> SubscriptionResponse.PlanLimits.builder()
-                    .maxArtworks(200)
-                    .maxSocialLinks(Integer.MAX_VALUE)
-                    .maxPosts(Integer.MAX_VALUE)
-                    .maxCategories(Integer.MAX_VALUE)
-                    .maxStorageMb(10240)
-                    .hasAds(false)
-                    .build();
-        };
+        EntitlementService.PlanEntitlements plan = entitlementService.forPlan(planType);
+        return SubscriptionResponse.PlanLimits.builder()
+                .maxArtworks(plan.maxArtworks())
+                .maxSocialLinks(plan.maxSocialLinks())
+                .maxPosts(plan.maxPosts())
+                .maxCategories(plan.maxCategories())
+                .maxStorageMb((int) plan.maxStorageMb())
+                .hasAds(plan.hasAds())
+                .build();
     }
 
     private void handleCheckoutCompleted(Event event) {
@@ -366,6 +392,10 @@ public class SubscriptionServiceImpl implements SubscriptionService {
         // ユーザーのプランタイプも更新
         user.setPlanType(planType);
         userRepository.save(user);
+        publicPageService.invalidate(user);
+        userRepository.incrementTokenVersion(user.getId());
+        principalCache.invalidate(user.getEmail());
+        entitlementService.invalidate(user.getId());
 
         log.info("Checkout completed for user {}: plan={}", user.getEmail(), planType);
     }
@@ -394,6 +424,7 @@ public class SubscriptionServiceImpl implements SubscriptionService {
         subscription.setCurrentPeriodEnd(toLocalDateTime(stripeSubscription.getCurrentPeriodEnd()));
 
         subscriptionRepository.save(subscription);
+        entitlementService.invalidate(subscription.getUser().getId());
 
         log.info("Subscription updated: {}", stripeSubscription.getId());
     }
@@ -421,6 +452,10 @@ public class SubscriptionServiceImpl implements SubscriptionService {
         User user = subscription.getUser();
         user.setPlanType(PlanType.FREE);
         userRepository.save(user);
+        publicPageService.invalidate(user);
+        userRepository.incrementTokenVersion(user.getId());
+        principalCache.invalidate(user.getEmail());
+        entitlementService.invalidate(user.getId());
 
         log.info("Subscription deleted for user: {}", user.getEmail());
     }
@@ -451,6 +486,7 @@ public class SubscriptionServiceImpl implements SubscriptionService {
         if (subscription != null) {
             subscription.setStatus(SubscriptionStatus.PAST_DUE);
             subscriptionRepository.save(subscription);
+            entitlementService.invalidate(subscription.getUser().getId());
         }
 
         log.warn("Payment failed for invoice: {}", invoice.getId());
@@ -460,7 +496,8 @@ public class SubscriptionServiceImpl implements SubscriptionService {
         return switch (stripeStatus) {
             case "active" -> SubscriptionStatus.ACTIVE;
             case "past_due" -> SubscriptionStatus.PAST_DUE;
-            case "canceled" -> SubscriptionStatus.CANCELED;
+            case "canceled", "incomplete_expired" -> SubscriptionStatus.CANCELED;
+            case "unpaid" -> SubscriptionStatus.PAST_DUE;
             case "incomplete" -> SubscriptionStatus.INCOMPLETE;
             case "trialing" -> SubscriptionStatus.TRIALING;
             default -> SubscriptionStatus.ACTIVE;
@@ -2,11 +2,13 @@ package com.picme.backend.service.impl;
 
 import com.picme.backend.dto.response.TagResponse;
 import com.picme.backend.exception.ApiException;
-import com.picme.backend.model.PlanType;
 import com.picme.backend.model.Tag;
 import com.picme.backend.model.User;
 import com.picme.backend.repository.TagRepository;
-import com.picme.backend.repository.UserRepository;
+import com.picme.backend.security.AuthenticatedUser;
+import com.picme.backend.security.CurrentUserResolver;
+import com.picme.backend.service.EntitlementService;
+import com.picme.backend.service.PublicPageService;
 import com.picme.backend.service.TagService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -27,13 +29,16 @@ import java.util.stream.Collectors;
 public class TagServiceImpl implements TagService {
 
     private final TagRepository tagRepository;
-    private final UserRepository userRepository;
+    private final CurrentUserResolver currentUserResolver;
+    private final PublicPageService publicPageService;
+    private final EntitlementService entitlementService;
 
     @Override
     @Transactional(readOnly = true)
     public List<TagResponse> getTags(String email) {
-        User user = getUserByEmail(email);
-        checkTagFeatureAvailable(user);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
+        checkTagFeatureAvailable(principal);
 
         return tagRepository.findByUserOrderByNameAsc(user)
                 .stream()
@@ -44,8 +49,9 @@ public class TagServiceImpl implements TagService {
     @Override
     @Transactional
     public TagResponse createTag(String email, String tagName) {
-        User user = getUserByEmail(email);
-        checkTagFeatureAvailable(user);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
+        checkTagFeatureAvailable(principal);
 
         // 既存のタグがあればそれを返す
         return tagRepository.findByUserAndName(user, tagName)
@@ -57,6 +63,8 @@ public class TagServiceImpl implements TagService {
                             .build();
                     tag = tagRepository.save(tag);
 
+                    publicPageService.invalidate(principal.getId(), principal.getPublicUsername());
+
                     log.info("Tag created: {} for user: {}", tag.getId(), email);
 
                     return TagResponse.fromEntity(tag);
@@ -66,22 +74,26 @@ public class TagServiceImpl implements TagService {
     @Override
     @Transactional
     public void deleteTag(String email, Long tagId) {
-        User user = getUserByEmail(email);
-        checkTagFeatureAvailable(user);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
+        checkTagFeatureAvailable(principal);
 
         Tag tag = tagRepository.findByIdAndUser(tagId, user)
                 .orElseThrow(() -> ApiException.notFound("タグ"));
 
         tagRepository.delete(tag);
 
+        publicPageService.invalidate(principal.getId(), principal.getPublicUsername());
+
         log.info("Tag deleted: {} for user: {}", tagId, email);
     }
 
     @Override
     @Transactional
     public List<TagResponse> getOrCreateTags(String email, Set<String> tagNames) {
-        User user = getUserByEmail(email);
-        checkTagFeatureAvailable(user);
+        AuthenticatedUser principal = currentUserResolver.resolve(email);
+        User user = currentUserResolver.reference(principal);
+        checkTagFeatureAvailable(principal);
 
         List<TagResponse> result = new ArrayList<>();
 
@@ -108,6 +120,10 @@ public class TagServiceImpl implements TagService {
             }
         }
 
+        if (result.size() > existingTags.size()) {
+            publicPageService.invalidate(principal.getId(), principal.getPublicUsername());
+        }
+
         return result;
     }
 
@@ -120,19 +136,11 @@ public class TagServiceImpl implements TagService {
                 .collect(Collectors.toList());
     }
 
-    /**
-     * メールアドレスでユーザーを取得
-     */
-    private User getUserByEmail(String email) {
-        return userRepository.findByEmail(email)
-                .orElseThrow(ApiException::userNotFound);
-    }
-
     /**
      * タグ機能が利用可能かチェック（Pro以上）
      */
-    private void checkTagFeatureAvailable(User user) {
-        if (user.getPlanType() != PlanType.PRO && user.getPlanType() != PlanType.STUDIO) {
+    private void checkTagFeatureAvailable(AuthenticatedUser principal) {
+        if (!entitlementService.forUser(principal.getId()).tags()) {
             throw ApiException.forbidden("タグ機能はProプラン以上でご利用いただけます");
         }
     }
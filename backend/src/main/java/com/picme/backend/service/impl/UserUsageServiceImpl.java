@@ -0,0 +1,227 @@
+package com.picme.backend.service.impl;
+
+import com.picme.backend.model.Artwork;
+import com.picme.backend.model.UserUsage;
+import com.picme.backend.repository.ArtworkRepository;
+import com.picme.backend.repository.UserUsageRepository;
+import com.picme.backend.service.UserUsageService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * ユーザー使用量サービス実装
+ * 上限判定は「値 + 加算量 <= 上限」を条件にしたUPDATEで行い、行ロックにより同時作成でも上限を超えない。
+ * 使用量の行がないユーザー（導入前のユーザー・新規ユーザー）は、初回の加算時に実データから集計して作成する。
+ * 集計値のずれ（管理操作やDBの直接変更など）は定期的な再集計で補正する。
+ *
+ * 再集計は一定件数のユーザーごとに、先に user_usage の行ロックを取ってから実データを数える。
+ * 加算済みで未コミットの作成があればそのコミットを待ってから数えるため、作成途中の件数で上書きしない。
+ */
+@Service
+@Slf4j
+public class UserUsageServiceImpl implements UserUsageService {
+
+    // ユーザーごとの実データの集計（ストレージは同じ内容の画像を1回分として数える）
+    private static final String COMPUTED_USAGE_SQL =
+            "SELECT u.id AS user_id, " +
+            "  (SELECT COUNT(*) FROM artworks a WHERE a.user_id = u.id) AS artwork_count, " +
+            "  (SELECT COALESCE(SUM(s.file_size), 0) FROM (" +
+            "     SELECT MAX(a.file_size) AS file_size FROM artworks a WHERE a.user_id = u.id " +
+            "     GROUP BY COALESCE(a.content_hash, CAST(a.id AS varchar))) s) AS storage_bytes, " +
+            "  (SELECT COUNT(*) FROM posts p WHERE p.user_id = u.id) AS post_count, " +
+            "  (SELECT COUNT(*) FROM social_links l WHERE l.user_id = u.id) AS social_link_count, " +
+            "  (SELECT COUNT(*) FROM categories c WHERE c.user_id = u.id) AS category_count " +
+            "FROM users u";
+
+    private static final String INITIALIZE_SQL =
+            "INSERT INTO user_usage (user_id, artwork_count, storage_bytes, post_count, social_link_count, " +
+            "  category_count, updated_at) " +
+            "SELECT c.user_id, c.artwork_count, c.storage_bytes, c.post_count, c.social_link_count, " +
+            "  c.category_count, now() FROM (" + COMPUTED_USAGE_SQL + " WHERE u.id = ?) c " +
+            "ON CONFLICT (user_id) DO NOTHING";
+
+    private static final String EXISTS_SQL =
+            "SELECT EXISTS (SELECT 1 FROM user_usage WHERE user_id = ?)";
+
+    // 1回の再集計で行ロックを取るユーザー数
+    private static final int RECONCILE_BATCH_SIZE = 100;
+
+    private static final String LOCK_RECONCILE_BATCH_SQL =
+            "SELECT user_id FROM user_usage WHERE user_id > ? ORDER BY user_id LIMIT ? FOR UPDATE";
+
+    // ロック取得後の文で実行するため、ロック待ちの間にコミットされた作成・削除も数える
+    private static final String RECONCILE_SQL =
+            "UPDATE user_usage uu SET artwork_count = c.artwork_count, storage_bytes = c.storage_bytes, " +
+            "  post_count = c.post_count, social_link_count = c.social_link_count, " +
+            "  category_count = c.category_count, updated_at = now() " +
+            "FROM (" + COMPUTED_USAGE_SQL + " WHERE u.id = ANY(?)) c " +
+            "WHERE uu.user_id = c.user_id AND (uu.artwork_count <> c.artwork_count " +
+            "  OR uu.storage_bytes <> c.storage_bytes OR uu.post_count <> c.post_count " +
+            "  OR uu.social_link_count <> c.social_link_count OR uu.category_count <> c.category_count)";
+
+    private final UserUsageRepository userUsageRepository;
+    private final ArtworkRepository artworkRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Counter, String> incrementSql = new EnumMap<>(Counter.class);
+    private final Map<Counter, String> decrementSql = new EnumMap<>(Counter.class);
+
+    public UserUsageServiceImpl(
+            UserUsageRepository userUsageRepository,
+            ArtworkRepository artworkRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.userUsageRepository = userUsageRepository;
+        this.artworkRepository = artworkRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        for (Counter counter : Counter.values()) {
+            incrementSql.put(counter, String.format(
+                    "UPDATE user_usage SET %1$s = %1$s + ?, updated_at = now() " +
+                    "WHERE user_id = ? AND %1$s + ? <= ? RETURNING %1$s", counter.column()));
+            decrementSql.put(counter, String.format(
+                    "UPDATE user_usage SET %1$s = GREATEST(%1$s - ?, 0), updated_at = now() " +
+                    "WHERE user_id = ?", counter.column()));
+        }
+    }
+
+    @Override
+    public OptionalLong tryIncrement(Long userId, Counter counter, long amount, long limit) {
+        OptionalLong updated = increment(userId, counter, amount, limit);
+        if (updated.isPresent() || Boolean.TRUE.equals(jdbcTemplate.queryForObject(EXISTS_SQL, Boolean.class, userId))) {
+            return updated;
+        }
+
+        // 使用量の行がまだない場合は実データから作成してやり直す
+        jdbcTemplate.update(INITIALIZE_SQL, userId);
+        return increment(userId, counter, amount, limit);
+    }
+
+    @Override
+    public void decrement(Long userId, Counter counter, long amount) {
+        if (amount <= 0) {
+            return;
+        }
+        // 行がない場合は何もしない（作成時に実データから集計される）
+        jdbcTemplate.update(decrementSql.get(counter), amount, userId);
+    }
+
+    @Override
+    public void releaseArtworkStorage(Artwork artwork) {
+        long bytes = artwork.getFileSize() != null ? artwork.getFileSize() : 0L;
+        if (bytes <= 0) {
+            return;
+        }
+        Long userId = artwork.getUser().getId();
+        if (artwork.getContentHash() != null
+                && artworkRepository.existsByUserIdAndContentHashAndIdNotAndFileSizeGreaterThan(
+                        userId, artwork.getContentHash(), artwork.getId(), 0L)) {
+            return;
+        }
+        decrement(userId, Counter.STORAGE_BYTES, bytes);
+    }
+
+    @Override
+    public UserUsage getUsage(Long userId) {
+        return getUsages(List.of(userId)).getOrDefault(userId, UserUsage.builder().userId(userId).build());
+    }
+
+    @Override
+    public Map<Long, UserUsage> getUsages(Collection<Long> userIds) {
+        Map<Long, UserUsage> usages = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return usages;
+        }
+        userUsageRepository.findAllById(userIds).forEach(usage -> usages.put(usage.getUserId(), usage));
+
+        // 未集計のユーザーは実データからまとめて集計する（行は作成しない）
+        List<Long> missing = userIds.stream().filter(id -> !usages.containsKey(id)).distinct().toList();
+        if (!missing.isEmpty()) {
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(COMPUTED_USAGE_SQL + " WHERE u.id = ANY(?)");
+                ps.setArray(1, con.createArrayOf("bigint", missing.toArray()));
+                return ps;
+            }, rs -> {
+                UserUsage usage = mapComputed(rs);
+                usages.put(usage.getUserId(), usage);
+            });
+        }
+        return usages;
+    }
+
+    @Override
+    @Scheduled(cron = "${app.user-usage.reconcile-cron:0 45 4 * * *}")
+    public void reconcile() {
+        try {
+            int corrected = 0;
+            long cursor = 0;
+            while (true) {
+                long after = cursor;
+                BatchResult batch = transactionTemplate.execute(status -> reconcileBatch(after));
+                if (batch == null || batch.lastUserId() == null) {
+                    break;
+                }
+                corrected += batch.corrected();
+                cursor = batch.lastUserId();
+            }
+            if (corrected > 0) {
+                log.warn("Reconciled usage counters for {} users", corrected);
+            }
+        } catch (Exception e) {
+            log.error("Failed to reconcile usage counters: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * ユーザーID順に一定件数の使用量行をロックし、同じトランザクションで再集計する
+     */
+    private BatchResult reconcileBatch(long afterUserId) {
+        List<Long> userIds = jdbcTemplate.queryForList(
+                LOCK_RECONCILE_BATCH_SQL, Long.class, afterUserId, RECONCILE_BATCH_SIZE);
+        if (userIds.isEmpty()) {
+            return new BatchResult(null, 0);
+        }
+
+        int corrected = jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(RECONCILE_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", userIds.toArray()));
+            return ps;
+        });
+        return new BatchResult(userIds.get(userIds.size() - 1), corrected);
+    }
+
+    private OptionalLong increment(Long userId, Counter counter, long amount, long limit) {
+        List<Long> values = jdbcTemplate.query(incrementSql.get(counter),
+                (rs, rowNum) -> rs.getLong(1), amount, userId, amount, limit);
+        return values.isEmpty() ? OptionalLong.empty() : OptionalLong.of(values.get(0));
+    }
+
+    private static UserUsage mapComputed(ResultSet rs) throws SQLException {
+        return UserUsage.builder()
+                .userId(rs.getLong("user_id"))
+                .artworkCount(rs.getLong("artwork_count"))
+                .storageBytes(rs.getLong("storage_bytes"))
+                .postCount(rs.getLong("post_count"))
+                .socialLinkCount(rs.getLong("social_link_count"))
+                .categoryCount(rs.getLong("category_count"))
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private record BatchResult(Long lastUserId, int corrected) {}
+}
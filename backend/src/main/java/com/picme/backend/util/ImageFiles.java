@@ -0,0 +1,181 @@
+package com.picme.backend.util;
+
+import com.picme.backend.exception.ApiException;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 画像アップロードの共通ルール（形式・サイズ検証、ストリームの書き出し）
+ * 各ストレージ実装で同じ制限を適用するために使う。
+ */
+public final class ImageFiles {
+
+    public static final List<String> ALLOWED_MIME_TYPES = List.of(
+            "image/jpeg", "image/png", "image/gif", "image/webp"
+    );
+
+    public static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
+
+    // ストリームをファイルへ書き出す際のバッファサイズ（アップロード1件あたりのヒープ使用量の上限）
+    public static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/jpeg", "jpg",
+            "image/png", "png",
+            "image/gif", "gif",
+            "image/webp", "webp"
+    );
+
+    private ImageFiles() {
+    }
+
+    /**
+     * アップロードファイルのバリデーション
+     */
+    public static void validate(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw ApiException.badRequest("ファイルが選択されていません");
+        }
+
+        if (file.getSize() > MAX_FILE_SIZE) {
+            throw fileTooLarge();
+        }
+
+        String contentType = file.getContentType();
+        if (contentType == null || !ALLOWED_MIME_TYPES.contains(contentType)) {
+            throw unsupportedType();
+        }
+    }
+
+    /**
+     * 固定サイズのバッファでストリームをファイルへ書き出す（上限サイズを超えた時点で中断）
+     *
+     * @param digest nullでなければ書き出した内容でダイジェストを更新する
+     * @return 書き出したバイト数
+     */
+    public static long copyWithLimit(InputStream input, Path target, MessageDigest digest) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+        long total = 0;
+        try (ReadableByteChannel source = Channels.newChannel(input);
+             FileChannel sink = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (source.read(buffer) != -1) {
+                buffer.flip();
+                total += buffer.remaining();
+                if (total > MAX_FILE_SIZE) {
+                    throw fileTooLarge();
+                }
+                if (digest != null) {
+                    digest.update(buffer.duplicate());
+                }
+                while (buffer.hasRemaining()) {
+                    sink.write(buffer);
+                }
+                buffer.clear();
+            }
+        }
+        if (total == 0) {
+            throw ApiException.badRequest("ファイルが選択されていません");
+        }
+        return total;
+    }
+
+    /**
+     * 固定サイズのバッファでファイル内容のダイジェストを計算
+     */
+    public static void digest(Path file, MessageDigest digest) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+    }
+
+    /**
+     * ファイル内容のSHA-256を16進文字列で取得（固定サイズのバッファで読む）
+     */
+    public static String sha256Hex(Path file) throws IOException {
+        MessageDigest digest = newSha256();
+        digest(file, digest);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * ファイル先頭のシグネチャから画像形式を判定（対応外の場合はnull）
+     */
+    public static String detectContentType(Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(12);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) != -1) {
+                // 先頭12バイトまで読む
+            }
+        }
+        byte[] b = header.array();
+        int length = header.position();
+
+        if (length >= 3 && (b[0] & 0xff) == 0xff && (b[1] & 0xff) == 0xd8 && (b[2] & 0xff) == 0xff) {
+            return "image/jpeg";
+        }
+        if (length >= 8 && (b[0] & 0xff) == 0x89 && b[1] == 'P' && b[2] == 'N' && b[3] == 'G') {
+            return "image/png";
+        }
+        if (length >= 4 && b[0] == 'G' && b[1] == 'I' && b[2] == 'F' && b[3] == '8') {
+            return "image/gif";
+        }
+        if (length >= 12 && b[0] == 'R' && b[1] == 'I' && b[2] == 'F' && b[3] == 'F'
+                && b[8] == 'W' && b[9] == 'E' && b[10] == 'B' && b[11] == 'P') {
+            return "image/webp";
+        }
+        return null;
+    }
+
+    /**
+     * 画像形式に対応する拡張子を取得
+     */
+    public static String extensionFor(String contentType) {
+        return EXTENSIONS.get(contentType);
+    }
+
+    /**
+     * 拡張子に対応する画像形式を取得
+     */
+    public static String contentTypeFor(String extension) {
+        return EXTENSIONS.entrySet().stream()
+                .filter(entry -> entry.getValue().equals(extension))
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElse("application/octet-stream");
+    }
+
+    public static ApiException unsupportedType() {
+        return ApiException.badRequest("対応していないファイル形式です。JPG, PNG, GIF, WebPが使用できます");
+    }
+
+    private static ApiException fileTooLarge() {
+        return ApiException.badRequest(
+                String.format("ファイルサイズが上限（%dMB）を超えています", MAX_FILE_SIZE / (1024 * 1024)));
+    }
+}
@@ -0,0 +1,169 @@
+package com.picme.backend.util;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * サイズ上限（LRU）とTTLを持つインメモリキャッシュ
+ * ヒット・ミス・追い出し数を保持し、サイズ調整の指標として公開する。
+ */
+public class LruTtlCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, CacheEntry<V>> entries;
+
+    // 読み込み中に無効化が走った場合に古い値を書き戻さないよう、無効化の順序を数える論理時刻
+    private long clock;
+    private long allInvalidatedAt;
+
+    // 読み込み中のキーごとの状態（読み込みがない間は保持しない）
+    private final Map<K, Loading> loading = new HashMap<>();
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    public LruTtlCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * キャッシュから取得（期限切れ・未登録の場合はnull）
+     */
+    public synchronized V get(K key) {
+        CacheEntry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            entries.remove(key);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value();
+    }
+
+    /**
+     * キャッシュから取得し、なければloaderで読み込んで登録
+     * loaderはロック外で実行する。読み込み中に同じキー（または全件）が無効化された場合は登録しない。
+     */
+    public V getOrLoad(K key, Function<K, V> loader) {
+        long startedAt;
+        Loading state;
+        synchronized (this) {
+            V cached = get(key);
+            if (cached != null) {
+                return cached;
+            }
+            startedAt = clock;
+            state = loading.computeIfAbsent(key, k -> new Loading());
+            state.loaders++;
+        }
+
+        V value = null;
+        try {
+            value = loader.apply(key);
+        } finally {
+            synchronized (this) {
+                if (value != null && state.invalidatedAt <= startedAt && allInvalidatedAt <= startedAt) {
+                    putInternal(key, value);
+                }
+                if (--state.loaders == 0) {
+                    loading.remove(key);
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * キャッシュに登録
+     */
+    public synchronized void put(K key, V value) {
+        putInternal(key, value);
+    }
+
+    /**
+     * 指定キーを無効化
+     */
+    public synchronized void invalidate(K key) {
+        Loading state = loading.get(key);
+        if (state != null) {
+            state.invalidatedAt = ++clock;
+        }
+        if (entries.remove(key) != null) {
+            invalidations++;
+        }
+    }
+
+    /**
+     * 全エントリを無効化
+     */
+    public synchronized void invalidateAll() {
+        allInvalidatedAt = ++clock;
+        invalidations += entries.size();
+        entries.clear();
+    }
+
+    /**
+     * 統計情報を取得
+     */
+    public synchronized Stats stats() {
+        long lookups = hits + misses;
+        return new Stats(
+                entries.size(),
+                maxSize,
+                ttlMillis / 1000,
+                hits,
+                misses,
+                evictions,
+                expirations,
+                invalidations,
+                lookups > 0 ? (hits * 100.0 / lookups) : 0);
+    }
+
+    private void putInternal(K key, V value) {
+        entries.put(key, new CacheEntry<>(value, System.currentTimeMillis() + ttlMillis));
+
+        // 上限超過分を最も古く参照されたものから追い出す
+        Iterator<Map.Entry<K, CacheEntry<V>>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    private record CacheEntry<V>(V value, long expiresAt) {}
+
+    private static final class Loading {
+        private int loaders;
+        private long invalidatedAt;
+    }
+
+    /**
+     * キャッシュ統計
+     */
+    public record Stats(
+            int size,
+            int maxSize,
+            long ttlSeconds,
+            long hits,
+            long misses,
+            long evictions,
+            long expirations,
+            long invalidations,
+            double hitRatePercent
+    ) {}
+}
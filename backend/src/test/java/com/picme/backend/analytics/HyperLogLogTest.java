@@ -0,0 +1,114 @@
+package com.picme.backend.analytics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HyperLogLogTest {
+
+    // 標準誤差 約2.3% の4倍を許容範囲とする
+    private static final double TOLERANCE = 0.10;
+
+    @Test
+    @DisplayName("空のスケッチの推定値は0")
+    void emptyEstimateIsZero() {
+        assertThat(new HyperLogLog().estimate()).isZero();
+        assertThat(HyperLogLog.fromBytes(null).estimate()).isZero();
+        assertThat(HyperLogLog.fromBytes(new byte[0]).estimate()).isZero();
+    }
+
+    @Test
+    @DisplayName("少数の訪問者は線形カウントでほぼ正確に数える")
+    void smallCardinalityIsNearlyExact() {
+        HyperLogLog hll = new HyperLogLog();
+        for (int i = 0; i < 100; i++) {
+            hll.add("visitor-" + i);
+        }
+        assertThat(hll.estimate()).isBetween(97L, 103L);
+    }
+
+    @Test
+    @DisplayName("同じ訪問者を何度追加しても1人として数える")
+    void duplicatesAreCountedOnce() {
+        HyperLogLog hll = new HyperLogLog();
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 1000; i++) {
+                hll.add("visitor-" + i);
+            }
+        }
+        assertWithinTolerance(hll.estimate(), 1000);
+    }
+
+    @Test
+    @DisplayName("大きな件数でも推定誤差が許容範囲に収まる")
+    void largeCardinalityWithinErrorBound() {
+        for (int n : new int[] {10_000, 100_000, 1_000_000}) {
+            HyperLogLog hll = new HyperLogLog();
+            for (int i = 0; i < n; i++) {
+                hll.add("ip-" + i, "agent");
+            }
+            assertWithinTolerance(hll.estimate(), n);
+        }
+    }
+
+    @Test
+    @DisplayName("要素の区切りが異なる入力は別の訪問者として扱う")
+    void partBoundariesAreDistinguished() {
+        HyperLogLog hll = new HyperLogLog();
+        hll.add("ab", "c");
+        hll.add("a", "bc");
+        assertThat(hll.estimate()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("合成は和集合の推定値になる")
+    void mergeEstimatesUnion() {
+        HyperLogLog a = new HyperLogLog();
+        HyperLogLog b = new HyperLogLog();
+        for (int i = 0; i < 60_000; i++) {
+            a.add("visitor-" + i);
+        }
+        for (int i = 40_000; i < 100_000; i++) {
+            b.add("visitor-" + i);
+        }
+        a.merge(b);
+        assertWithinTolerance(a.estimate(), 100_000);
+    }
+
+    @Test
+    @DisplayName("疎・密どちらの形式でも保存と復元で推定値が変わらない")
+    void roundTripPreservesEstimate() {
+        HyperLogLog sparse = new HyperLogLog();
+        for (int i = 0; i < 50; i++) {
+            sparse.add("visitor-" + i);
+        }
+        byte[] sparseBytes = sparse.toBytes();
+        assertThat(sparseBytes[0]).isEqualTo((byte) 0x01);
+        assertThat(sparseBytes).hasSizeLessThan(1 + 2048);
+        assertThat(HyperLogLog.fromBytes(sparseBytes).estimate()).isEqualTo(sparse.estimate());
+
+        HyperLogLog dense = new HyperLogLog();
+        for (int i = 0; i < 50_000; i++) {
+            dense.add("visitor-" + i);
+        }
+        byte[] denseBytes = dense.toBytes();
+        assertThat(denseBytes[0]).isEqualTo((byte) 0x02);
+        assertThat(denseBytes).hasSize(1 + 2048);
+        assertThat(HyperLogLog.fromBytes(denseBytes).estimate()).isEqualTo(dense.estimate());
+    }
+
+    @Test
+    @DisplayName("未知の形式は例外にする")
+    void unknownFormatIsRejected() {
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[] {0x7F, 0, 0}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void assertWithinTolerance(long estimate, long actual) {
+        assertThat((double) Math.abs(estimate - actual) / actual)
+                .as("estimate=%d actual=%d", estimate, actual)
+                .isLessThanOrEqualTo(TOLERANCE);
+    }
+}
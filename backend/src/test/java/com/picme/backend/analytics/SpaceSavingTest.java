@@ -0,0 +1,98 @@
+package com.picme.backend.analytics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpaceSavingTest {
+
+    @Test
+    @DisplayName("容量以内の項目は誤差なしで数える")
+    void exactBelowCapacity() {
+        SpaceSaving sketch = new SpaceSaving(4);
+        sketch.add("a", 5);
+        sketch.add("b", 3);
+        sketch.add("a");
+
+        assertThat(sketch.top(10)).containsExactly(
+                new SpaceSaving.Entry("a", 6, 0),
+                new SpaceSaving.Entry("b", 3, 0));
+    }
+
+    @Test
+    @DisplayName("カウントは真の値以上で、過大評価は error 以内に収まる")
+    void countsAreUpperBoundsWithinError() {
+        Random random = new Random(42);
+        SpaceSaving sketch = new SpaceSaving(32);
+        Map<String, Long> actual = new HashMap<>();
+        long total = 0;
+
+        // 上位5件に偏った分布と、多数の低頻度項目を混ぜる
+        for (int i = 0; i < 200_000; i++) {
+            String item = random.nextInt(10) < 6
+                    ? "hot-" + random.nextInt(5)
+                    : "cold-" + random.nextInt(5_000);
+            sketch.add(item);
+            actual.merge(item, 1L, Long::sum);
+            total++;
+        }
+
+        for (SpaceSaving.Entry entry : sketch.top(32)) {
+            long trueCount = actual.getOrDefault(entry.item(), 0L);
+            assertThat(entry.count()).isGreaterThanOrEqualTo(trueCount);
+            assertThat(entry.count() - entry.error()).isLessThanOrEqualTo(trueCount);
+            // Space-Saving の誤差の上限は 総数 / カウンター数
+            assertThat(entry.error()).isLessThanOrEqualTo(total / 32);
+        }
+
+        assertThat(sketch.top(5))
+                .extracting(SpaceSaving.Entry::item)
+                .containsExactlyInAnyOrder("hot-0", "hot-1", "hot-2", "hot-3", "hot-4");
+    }
+
+    @Test
+    @DisplayName("合成後も上位項目と上限側のカウントを保つ")
+    void mergeKeepsHeavyHittersAndUpperBounds() {
+        SpaceSaving a = new SpaceSaving(8);
+        SpaceSaving b = new SpaceSaving(8);
+        Map<String, Long> actual = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 20_000; i++) {
+            SpaceSaving target = i % 2 == 0 ? a : b;
+            String item = random.nextInt(4) == 0 ? "cold-" + random.nextInt(1_000) : "hot-" + random.nextInt(3);
+            target.add(item);
+            actual.merge(item, 1L, Long::sum);
+        }
+        a.merge(b);
+
+        List<SpaceSaving.Entry> top = a.top(8);
+        assertThat(top).hasSizeLessThanOrEqualTo(8);
+        assertThat(top.subList(0, 3))
+                .extracting(SpaceSaving.Entry::item)
+                .containsExactlyInAnyOrder("hot-0", "hot-1", "hot-2");
+        for (SpaceSaving.Entry entry : top) {
+            assertThat(entry.count()).isGreaterThanOrEqualTo(actual.getOrDefault(entry.item(), 0L));
+        }
+    }
+
+    @Test
+    @DisplayName("保存と復元で内容が変わらない")
+    void roundTrip() {
+        SpaceSaving sketch = new SpaceSaving(3);
+        sketch.add("google.com", 10);
+        sketch.add("x.com", 4);
+        sketch.add("example.com", 2);
+        sketch.add("other.net");
+
+        SpaceSaving restored = SpaceSaving.fromBytes(sketch.toBytes());
+        assertThat(restored.top(3)).isEqualTo(sketch.top(3));
+        assertThat(SpaceSaving.fromBytes(null).top(10)).isEmpty();
+    }
+}
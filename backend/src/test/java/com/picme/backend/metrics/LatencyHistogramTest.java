@@ -0,0 +1,77 @@
+package com.picme.backend.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("16未満は値そのものがバケットになる")
+    void smallValuesAreExact() {
+        for (int micros = 0; micros < 16; micros++) {
+            assertThat(LatencyHistogram.bucketIndex(micros)).isEqualTo(micros);
+            assertThat(LatencyHistogram.bucketUpperBound(micros)).isEqualTo(micros);
+        }
+    }
+
+    @Test
+    @DisplayName("各値はそのバケットの範囲に含まれ、相対誤差は1/16以内")
+    void bucketsContainValueWithBoundedError() {
+        long previousIndex = -1;
+        for (long micros = 0; micros < (1L << 37); micros = micros < 4096 ? micros + 1 : micros + micros / 97) {
+            int index = LatencyHistogram.bucketIndex(micros);
+            long upper = LatencyHistogram.bucketUpperBound(index);
+
+            assertThat(upper).as("upper bound of %d", micros).isGreaterThanOrEqualTo(micros);
+            if (index > 0) {
+                assertThat(LatencyHistogram.bucketUpperBound(index - 1))
+                        .as("previous bucket of %d", micros)
+                        .isLessThan(micros);
+            }
+            assertThat((double) (upper - micros) / Math.max(1, micros)).isLessThanOrEqualTo(1.0 / 16);
+            // インデックスは値に対して単調
+            assertThat(index).isGreaterThanOrEqualTo((int) previousIndex);
+            previousIndex = index;
+        }
+    }
+
+    @Test
+    @DisplayName("バケットは隙間なく連続する")
+    void bucketsAreContiguous() {
+        for (int index = 1; index < 500; index++) {
+            long lower = LatencyHistogram.bucketUpperBound(index - 1) + 1;
+            assertThat(LatencyHistogram.bucketIndex(lower)).isEqualTo(index);
+            assertThat(LatencyHistogram.bucketIndex(LatencyHistogram.bucketUpperBound(index))).isEqualTo(index);
+        }
+    }
+
+    @Test
+    @DisplayName("パーセンタイルはバケット幅の誤差内で求まる")
+    void percentilesWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram(1, TimeUnit.MINUTES, 6);
+        // 1ms〜1000msを1件ずつ
+        for (int ms = 1; ms <= 1000; ms++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(ms));
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.count()).isEqualTo(1000);
+        assertThat(snapshot.meanMs()).isCloseTo(500.5, within(0.01));
+        assertThat(snapshot.maxMs()).isEqualTo(1000.0);
+        assertThat(snapshot.p50Ms()).isBetween(500.0, 500.0 * 17 / 16);
+        assertThat(snapshot.p95Ms()).isBetween(950.0, 950.0 * 17 / 16);
+        assertThat(snapshot.p99Ms()).isBetween(990.0, 1000.0);
+    }
+
+    @Test
+    @DisplayName("記録がなければ空の要約を返す")
+    void emptySnapshot() {
+        LatencyHistogram histogram = new LatencyHistogram(1, TimeUnit.MINUTES, 6);
+        assertThat(histogram.snapshot()).isEqualTo(LatencyHistogram.Snapshot.EMPTY);
+    }
+}
@@ -0,0 +1,58 @@
+package com.picme.backend.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RollingCounterTest {
+
+    // 200ms の時間窓を 50ms × 4 スロットに分割
+    private static final long WINDOW_MILLIS = 200;
+    private static final int SLOTS = 4;
+
+    @Test
+    @DisplayName("時間窓内の件数を合計する")
+    void sumsWithinWindow() {
+        RollingCounter counter = new RollingCounter(WINDOW_MILLIS, TimeUnit.MILLISECONDS, SLOTS);
+        for (int i = 0; i < 5; i++) {
+            counter.increment();
+        }
+        assertThat(counter.sum()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("時間窓を過ぎた件数は合計に含めない")
+    void expiresAfterWindow() throws InterruptedException {
+        RollingCounter counter = new RollingCounter(WINDOW_MILLIS, TimeUnit.MILLISECONDS, SLOTS);
+        counter.increment();
+        counter.increment();
+
+        Thread.sleep(WINDOW_MILLIS * 2);
+
+        assertThat(counter.sum()).isZero();
+    }
+
+    @Test
+    @DisplayName("再利用したスロットは前の時間窓の件数を引き継がない")
+    void reusedSlotStartsFromZero() throws InterruptedException {
+        RollingCounter counter = new RollingCounter(WINDOW_MILLIS, TimeUnit.MILLISECONDS, SLOTS);
+        // 時間窓を何周かして全スロットに古い件数を残す
+        for (int round = 0; round < 3; round++) {
+            long deadline = System.currentTimeMillis() + WINDOW_MILLIS;
+            while (System.currentTimeMillis() < deadline) {
+                counter.increment();
+                Thread.sleep(5);
+            }
+        }
+
+        Thread.sleep(WINDOW_MILLIS * 2);
+        for (int i = 0; i < 3; i++) {
+            counter.increment();
+        }
+
+        assertThat(counter.sum()).isEqualTo(3);
+    }
+}
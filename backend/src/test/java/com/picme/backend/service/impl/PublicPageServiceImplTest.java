@@ -0,0 +1,210 @@
+package com.picme.backend.service.impl;
+
+import com.picme.backend.dto.response.PublicPageResponse;
+import com.picme.backend.model.Artwork;
+import com.picme.backend.model.Category;
+import com.picme.backend.model.Post;
+import com.picme.backend.model.Profile;
+import com.picme.backend.model.SocialLink;
+import com.picme.backend.model.Tag;
+import com.picme.backend.model.User;
+import com.picme.backend.repository.ArtworkRepository;
+import com.picme.backend.repository.CategoryRepository;
+import com.picme.backend.repository.PostRepository;
+import com.picme.backend.repository.ProfileRepository;
+import com.picme.backend.repository.SocialLinkRepository;
+import com.picme.backend.repository.TagRepository;
+import com.picme.backend.repository.UserRepository;
+import com.picme.backend.service.PublicPageService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 公開ページの組み立てで発行されるSQLの本数が、作品・タグ・お知らせ・リンクの件数に依存しないことを確認する
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class PublicPageServiceImplTest {
+
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private ProfileRepository profileRepository;
+    @Autowired private ArtworkRepository artworkRepository;
+    @Autowired private SocialLinkRepository socialLinkRepository;
+    @Autowired private PostRepository postRepository;
+    @Autowired private CategoryRepository categoryRepository;
+    @Autowired private TagRepository tagRepository;
+    @Autowired private UserRepository userRepository;
+
+    private PublicPageServiceImpl publicPageService;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        // キャッシュは無効（TTL 0）にして毎回DBから組み立てる
+        publicPageService = new PublicPageServiceImpl(
+                profileRepository, artworkRepository, socialLinkRepository, postRepository,
+                categoryRepository, tagRepository, userRepository, transactionManager, 10, 0);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("発行されるSQLの本数は件数に関係なく一定")
+    void statementCountIsIndependentOfRowCounts() {
+        seedUser("small", 1, 1, 1, 1, 1);
+        seedUser("large", 4, 6, 25, 10, 8);
+        entityManager.flush();
+        entityManager.clear();
+
+        long smallStatements = countStatements("small");
+        long largeStatements = countStatements("large");
+
+        assertThat(largeStatements).isEqualTo(smallStatements);
+        assertThat(smallStatements).isLessThanOrEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("作品にカテゴリーとタグが付いた状態で組み立てられる")
+    void assemblesArtworksWithAssociations() {
+        seedUser("artist", 2, 3, 5, 2, 2);
+        entityManager.flush();
+        entityManager.clear();
+
+        PublicPageResponse page = publicPageService.getPublicPage("artist");
+
+        assertThat(page.getArtworks()).hasSize(5);
+        assertThat(page.getArtworks()).allSatisfy(artwork -> {
+            assertThat(artwork.getCategoryId()).isNotNull();
+            assertThat(artwork.getTagIds()).hasSize(3);
+        });
+        assertThat(page.getCategories()).hasSize(2);
+        assertThat(page.getTags()).hasSize(3);
+        assertThat(page.getPosts()).hasSize(2);
+        assertThat(page.getSocialLinks()).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("お知らせの閲覧数が変わるとETagが変わる")
+    void etagChangesWithPostViews() {
+        seedUser("reader", 1, 1, 1, 2, 1);
+        entityManager.flush();
+        entityManager.clear();
+
+        String before = publicPageService.getPageVersion("reader").orElseThrow().etag();
+
+        Post post = postRepository.findAll().stream()
+                .filter(p -> "reader".equals(p.getUser().getUsername()))
+                .findFirst()
+                .orElseThrow();
+        post.setViewCount(post.getViewCount() + 1);
+        entityManager.flush();
+        entityManager.clear();
+
+        String after = publicPageService.getPageVersion("reader").orElseThrow().etag();
+        assertThat(after).isNotEqualTo(before);
+    }
+
+    @Test
+    @DisplayName("組み立て時のバージョンと軽量クエリのバージョンが一致する")
+    void assembledVersionMatchesVersionQuery() {
+        seedUser("viewer", 1, 1, 1, 3, 1);
+        entityManager.flush();
+        postRepository.findAll().forEach(post -> post.setViewCount(7));
+        entityManager.flush();
+        entityManager.clear();
+
+        // キャッシュを有効にしたサービスで組み立て、キャッシュに保持したバージョンを取得する
+        PublicPageServiceImpl cachingService = new PublicPageServiceImpl(
+                profileRepository, artworkRepository, socialLinkRepository, postRepository,
+                categoryRepository, tagRepository, userRepository, transactionManager, 10, 60);
+        cachingService.getPublicPage("viewer");
+        PublicPageService.PageVersion assembled = cachingService.getPageVersion("viewer").orElseThrow();
+
+        PublicPageService.PageVersion queried = publicPageService.getPageVersion("viewer").orElseThrow();
+        assertThat(assembled).isEqualTo(queried);
+    }
+
+    private long countStatements(String username) {
+        entityManager.clear();
+        statistics.clear();
+        publicPageService.getPublicPage(username);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void seedUser(String username, int categoryCount, int tagCount, int artworkCount,
+                          int postCount, int linkCount) {
+        User user = entityManager.persist(User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .passwordHash("hash")
+                .emailVerified(true)
+                .build());
+        entityManager.persist(Profile.builder()
+                .user(user)
+                .displayName(username)
+                .build());
+
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < categoryCount; i++) {
+            categories.add(entityManager.persist(Category.builder()
+                    .user(user)
+                    .name("category-" + i)
+                    .displayOrder(i)
+                    .build()));
+        }
+
+        List<Tag> tags = new ArrayList<>();
+        for (int i = 0; i < tagCount; i++) {
+            tags.add(entityManager.persist(Tag.builder()
+                    .user(user)
+                    .name("tag-" + i)
+                    .build()));
+        }
+
+        for (int i = 0; i < artworkCount; i++) {
+            Artwork artwork = Artwork.builder()
+                    .user(user)
+                    .title("artwork-" + i)
+                    .imageUrl("https://example.com/" + username + "/" + i + ".jpg")
+                    .categoryEntity(categories.get(i % categories.size()))
+                    .displayOrder(i)
+                    .build();
+            artwork.getTags().addAll(tags);
+            entityManager.persist(artwork);
+        }
+
+        for (int i = 0; i < postCount; i++) {
+            entityManager.persist(Post.builder()
+                    .user(user)
+                    .title("post-" + i)
+                    .content("content")
+                    .publishedAt(LocalDateTime.now().minusDays(i))
+                    .build());
+        }
+
+        for (int i = 0; i < linkCount; i++) {
+            entityManager.persist(SocialLink.builder()
+                    .user(user)
+                    .platform("web")
+                    .url("https://example.com/" + username + "/link-" + i)
+                    .displayOrder(i)
+                    .build());
+        }
+    }
+}
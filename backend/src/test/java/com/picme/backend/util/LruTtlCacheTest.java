@@ -0,0 +1,146 @@
+package com.picme.backend.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LruTtlCacheTest {
+
+    @Test
+    @DisplayName("上限を超えると最も古く参照されたものから追い出す")
+    void evictsLeastRecentlyUsed() {
+        LruTtlCache<String, Integer> cache = new LruTtlCache<>(2, 60_000);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        assertThat(cache.get("a")).isEqualTo(1);
+        cache.put("c", 3);
+
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isEqualTo(1);
+        assertThat(cache.get("c")).isEqualTo(3);
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+        assertThat(cache.stats().size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("TTLを過ぎたエントリは返さない")
+    void expiresAfterTtl() throws InterruptedException {
+        LruTtlCache<String, Integer> cache = new LruTtlCache<>(10, 20);
+        cache.put("a", 1);
+        Thread.sleep(40);
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.stats().expirations()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("ヒット時はloaderを呼ばず、ヒット・ミス数を数える")
+    void getOrLoadCountsHitsAndMisses() {
+        LruTtlCache<String, Integer> cache = new LruTtlCache<>(10, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getOrLoad("a", key -> loads.incrementAndGet());
+        cache.getOrLoad("a", key -> loads.incrementAndGet());
+        cache.getOrLoad("a", key -> loads.incrementAndGet());
+
+        assertThat(loads.get()).isEqualTo(1);
+        LruTtlCache.Stats stats = cache.stats();
+        assertThat(stats.hits()).isEqualTo(2);
+        assertThat(stats.misses()).isEqualTo(1);
+        assertThat(stats.hitRatePercent()).isBetween(66.0, 67.0);
+    }
+
+    @Test
+    @DisplayName("読み込み中に無効化された場合は古い値を登録しない")
+    void invalidationDuringLoadDiscardsValue() {
+        LruTtlCache<String, Integer> cache = new LruTtlCache<>(10, 60_000);
+
+        Integer loaded = cache.getOrLoad("a", key -> {
+            cache.invalidate(key);
+            return 1;
+        });
+
+        assertThat(loaded).isEqualTo(1);
+        assertThat(cache.get("a")).isNull();
+    }
+
+    @Test
+    @DisplayName("読み込み中に別のキーが無効化されても値を登録する")
+    void invalidationOfOtherKeyDuringLoadKeepsValue() {
+        LruTtlCache<String, Integer> cache = new LruTtlCache<>(10, 60_000);
+        cache.put("b", 2);
+
+        cache.getOrLoad("a", key -> {
+            cache.invalidate("b");
+            return 1;
+        });
+
+        assertThat(cache.get("a")).isEqualTo(1);
+        assertThat(cache.get("b")).isNull();
+    }
+
+    @Test
+    @DisplayName("読み込み中に全件無効化された場合は登録しない")
+    void invalidateAllDuringLoadDiscardsValue() {
+        LruTtlCache<String, Integer> cache = new LruTtlCache<>(10, 60_000);
+
+        cache.getOrLoad("a", key -> {
+            cache.invalidateAll();
+            return 1;
+        });
+
+        assertThat(cache.get("a")).isNull();
+    }
+
+    @Test
+    @DisplayName("無効化の後に始まった読み込みの値は登録する")
+    void loadStartedAfterInvalidationIsCached() {
+        LruTtlCache<String, Integer> cache = new LruTtlCache<>(10, 60_000);
+
+        // 外側の読み込み中に無効化し、その後に同じキーの読み込みを完了させる
+        cache.getOrLoad("a", key -> {
+            cache.invalidate(key);
+            assertThat(cache.getOrLoad(key, k -> 2)).isEqualTo(2);
+            return 1;
+        });
+
+        assertThat(cache.get("a")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("loaderが例外を投げても後続の読み込みは登録される")
+    void loaderFailureDoesNotBlockLaterLoads() {
+        LruTtlCache<String, Integer> cache = new LruTtlCache<>(10, 60_000);
+
+        assertThatThrownBy(() -> cache.getOrLoad("a", key -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+        cache.getOrLoad("a", key -> 1);
+
+        assertThat(cache.get("a")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("nullは登録しない")
+    void nullIsNotCached() {
+        LruTtlCache<String, Integer> cache = new LruTtlCache<>(10, 60_000);
+        cache.getOrLoad("a", key -> null);
+        assertThat(cache.stats().size()).isZero();
+    }
+
+    @Test
+    @DisplayName("全件無効化で件数分の無効化を数える")
+    void invalidateAllClearsEntries() {
+        LruTtlCache<String, Integer> cache = new LruTtlCache<>(10, 60_000);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.invalidateAll();
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.stats().invalidations()).isEqualTo(2);
+    }
+}
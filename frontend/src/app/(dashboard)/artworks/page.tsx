@@ -5,7 +5,7 @@ import { useForm } from 'react-hook-form';
 import { zodResolver } from '@hookform/resolvers/zod';
 import * as z from 'zod';
 import { motion } from 'framer-motion';
-import { getArtworks, updateArtwork, deleteArtwork, Artwork } from '@/lib/artworks';
+import { getArtworks, getArtworkStatus, updateArtwork, deleteArtwork, Artwork } from '@/lib/artworks';
 import { uploadArtwork } from '@/lib/upload';
 import { Button } from '@/components/ui/button';
 import { Input } from '@/components/ui/input';
@@ -16,7 +16,7 @@ import { Dialog, DialogContent, DialogDescription, DialogFooter, DialogHeader, D
 import { FileUpload } from '@/components/ui/file-upload';
 import { PageHeader } from '@/components/ui/page-header';
 import { dashStaggerContainer, dashStaggerItem, scaleIn } from '@/lib/motion';
-import { Plus, Pencil, Trash2, Image as ImageIcon, Loader2, ArrowUpDown } from 'lucide-react';
+import { Plus, Pencil, Trash2, Image as ImageIcon, Loader2, ArrowUpDown, AlertCircle } from 'lucide-react';
 import { useSubscription } from '@/contexts/SubscriptionContext';
 import { UpgradePrompt, LimitBadge } from '@/components/ui/upgrade-prompt';
 import { SortableArtworkList } from '@/components/dashboard/sortable-artwork-list';
@@ -30,6 +30,12 @@ const editSchema = z.object({
 
 type EditFormValues = z.infer<typeof editSchema>;
 
+// 画像の処理状態を確認する間隔（ミリ秒）
+const STATUS_POLL_INTERVAL = 3000;
+
+// アップロード後の画像処理が終わっていない作品は画像URLが空のため、編集・表示の対象外とする
+const isImageReady = (artwork: Artwork) => !artwork.status || artwork.status === 'READY';
+
 export default function ArtworksPage() {
   const [artworks, setArtworks] = useState<Artwork[]>([]);
   const [isLoading, setIsLoading] = useState(true);
@@ -64,6 +70,32 @@ export default function ArtworksPage() {
 
   useEffect(() => { fetchArtworks(); }, []);
 
+  // 画像処理中の作品があれば、完了するまで処理状態を定期的に確認する
+  const processingIds = artworks.filter(a => a.status === 'PROCESSING').map(a => a.id).join(',');
+  useEffect(() => {
+    if (!processingIds) return;
+    const ids = processingIds.split(',').map(Number);
+    const timer = setInterval(async () => {
+      try {
+        const statuses = await Promise.all(ids.map(id => getArtworkStatus(id)));
+        if (statuses.every(s => s.status === 'PROCESSING')) return;
+        setArtworks(prev => prev.map(artwork => {
+          const status = statuses.find(s => s.id === artwork.id);
+          if (!status) return artwork;
+          return {
+            ...artwork,
+            status: status.status,
+            imageUrl: status.imageUrl || artwork.imageUrl,
+            thumbnailUrl: status.thumbnailUrl || artwork.thumbnailUrl,
+          };
+        }));
+      } catch (error) {
+        console.error('Failed to fetch artwork status', error);
+      }
+    }, STATUS_POLL_INTERVAL);
+    return () => clearInterval(timer);
+  }, [processingIds]);
+
   const openCreateDialog = () => {
     setUploadFile(null);
     setUploadTitle('');
@@ -73,6 +105,7 @@ export default function ArtworksPage() {
   };
 
   const openEditDialog = (artwork: Artwork) => {
+    if (!isImageReady(artwork)) return;
     setEditingArtwork(artwork);
     reset({ title: artwork.title, description: artwork.description || '', imageUrl: artwork.imageUrl });
     setIsEditDialogOpen(true);
@@ -190,23 +223,35 @@ export default function ArtworksPage() {
                 className="overflow-hidden rounded-lg border border-slate-200 bg-white group transition-shadow hover:shadow-sm"
               >
                 <div className="aspect-square w-full relative bg-slate-100 overflow-hidden">
-                  <img
-                    src={artwork.thumbnailUrl || artwork.imageUrl}
-                    alt={artwork.title}
-                    className="w-full h-full object-cover transition-transform group-hover:scale-105 duration-300"
-                    onError={(e) => {
-                      e.currentTarget.style.display = 'none';
-                      e.currentTarget.parentElement?.classList.add('flex', 'items-center', 'justify-center');
-                      e.currentTarget.parentElement!.innerHTML = '<span class="text-slate-400">No Image</span>';
-                    }}
-                  />
+                  {artwork.status === 'PROCESSING' ? (
+                    <div className="w-full h-full flex flex-col items-center justify-center gap-2 text-slate-400">
+                      <Loader2 className="h-8 w-8 animate-spin" />
+                      <span className="text-sm">画像を処理しています</span>
+                    </div>
+                  ) : artwork.status === 'FAILED' ? (
+                    <div className="w-full h-full flex flex-col items-center justify-center gap-2 text-red-500">
+                      <AlertCircle className="h-8 w-8" />
+                      <span className="text-sm">画像の処理に失敗しました</span>
+                    </div>
+                  ) : (
+                    <img
+                      src={artwork.thumbnailUrl || artwork.imageUrl}
+                      alt={artwork.title}
+                      className="w-full h-full object-cover transition-transform group-hover:scale-105 duration-300"
+                      onError={(e) => {
+                        e.currentTarget.style.display = 'none';
+                        e.currentTarget.parentElement?.classList.add('flex', 'items-center', 'justify-center');
+                        e.currentTarget.parentElement!.innerHTML = '<span class="text-slate-400">No Image</span>';
+                      }}
+                    />
+                  )}
                 </div>
                 <CardContent className="p-4">
                   <h3 className="font-semibold text-lg truncate" title={artwork.title}>{artwork.title}</h3>
                   <p className="text-sm text-slate-500 truncate mt-1">{artwork.description || '説明なし'}</p>
                 </CardContent>
                 <CardFooter className="p-4 pt-0 flex justify-end gap-2">
-                  <Button variant="ghost" size="sm" onClick={() => openEditDialog(artwork)}>
+                  <Button variant="ghost" size="sm" onClick={() => openEditDialog(artwork)} disabled={!isImageReady(artwork)}>
                     <Pencil className="h-4 w-4 mr-1" /> 編集
                   </Button>
                   <Button variant="ghost" size="sm" className="text-red-600 hover:text-red-700 hover:bg-red-50" onClick={() => handleDelete(artwork.id)} disabled={isDeleting === artwork.id}>
@@ -19,7 +19,7 @@ import {
 } from '@dnd-kit/sortable';
 import { CSS } from '@dnd-kit/utilities';
 import { Artwork } from '@/lib/artworks';
-import { GripVertical } from 'lucide-react';
+import { GripVertical, Loader2, AlertCircle } from 'lucide-react';
 
 interface SortableArtworkItemProps {
   artwork: Artwork;
@@ -55,11 +55,21 @@ function SortableArtworkItem({ artwork }: SortableArtworkItemProps) {
         <GripVertical className="h-4 w-4 text-slate-400" />
       </div>
       <div className="aspect-square w-full bg-slate-100 overflow-hidden">
-        <img
-          src={artwork.thumbnailUrl || artwork.imageUrl}
-          alt={artwork.title}
-          className="w-full h-full object-cover"
-        />
+        {artwork.status === 'PROCESSING' ? (
+          <div className="w-full h-full flex items-center justify-center text-slate-400">
+            <Loader2 className="h-6 w-6 animate-spin" />
+          </div>
+        ) : artwork.status === 'FAILED' ? (
+          <div className="w-full h-full flex items-center justify-center text-red-500">
+            <AlertCircle className="h-6 w-6" />
+          </div>
+        ) : (
+          <img
+            src={artwork.thumbnailUrl || artwork.imageUrl}
+            alt={artwork.title}
+            className="w-full h-full object-cover"
+          />
+        )}
       </div>
       <div className="p-3">
         <h3 className="text-sm font-medium truncate">{artwork.title}</h3>
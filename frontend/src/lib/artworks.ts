@@ -1,5 +1,10 @@
 import api from './api';
 
+/**
+ * 画像の処理状態（アップロード直後は PROCESSING で imageUrl は空）
+ */
+export type ArtworkProcessingStatus = 'PROCESSING' | 'READY' | 'FAILED';
+
 export interface Artwork {
   id: number;
   title: string;
@@ -11,10 +16,20 @@ export interface Artwork {
   tagIds?: number[];
   displayOrder: number;
   visible?: boolean;
+  status?: ArtworkProcessingStatus;
   createdAt: string;
   updatedAt?: string;
 }
 
+export interface ArtworkStatus {
+  id: number;
+  status: ArtworkProcessingStatus;
+  error?: string;
+  imageUrl?: string;
+  thumbnailUrl?: string;
+  updatedAt?: string;
+}
+
 export interface ArtworkRequest {
   title: string;
   description: string;
@@ -42,6 +57,14 @@ export async function getArtwork(id: number): Promise<Artwork> {
   return response.data.data;
 }
 
+/**
+ * 作品画像の処理状態取得
+ */
+export async function getArtworkStatus(id: number): Promise<ArtworkStatus> {
+  const response = await api.get(`/api/artworks/${id}/status`);
+  return response.data.data;
+}
+
 /**
  * 作品作成
  */